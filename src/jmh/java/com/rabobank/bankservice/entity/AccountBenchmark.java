@@ -0,0 +1,48 @@
+package com.rabobank.bankservice.entity;
+
+import com.rabobank.bankservice.error.InsufficientBalanceException;
+import com.rabobank.bankservice.model.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccountBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+    private static final Money AMOUNT_IN_CENTS = Money.of(AMOUNT);
+    private static final BigDecimal TOO_MUCH = new BigDecimal("1000000000000.00");
+
+    private Account account;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        account = new Account();
+        account.setBalance(new BigDecimal("1000000000.00"));
+    }
+
+    @Benchmark
+    public BigDecimal subtractBalance() {
+        account.subtractBalance(AMOUNT);
+        return account.getBalance();
+    }
+
+    @Benchmark
+    public Money subtractBalanceInCents() {
+        account.subtractBalance(AMOUNT_IN_CENTS);
+        return account.balance();
+    }
+
+    @Benchmark
+    public Object subtractBalanceInsufficient() {
+        try {
+            account.subtractBalance(TOO_MUCH);
+            return account;
+        } catch (InsufficientBalanceException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.rabobank.bankservice.fee;
+
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.TransactionType;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FeeScheduleBenchmark {
+
+    private FeeSchedule schedule;
+
+    //amounts in every tier, so the scan length varies as it would across requests
+    private final long[] amounts = {500, 12_345, 250_000, 4_000_000};
+    private int next;
+
+    @Setup
+    public void setUp() {
+        schedule = FeeSchedule.compile(List.of(
+                FeeRule.percentage(CardType.CREDIT, TransactionType.TRANSFER, new BigDecimal("0.01")),
+                rule("0.00", "0.25", "0.015", "0.50"),
+                rule("100.00", "0.25", "0.010", "0.50"),
+                rule("1000.00", "1.00", "0.005", "0.50"),
+                rule("10000.00", "5.00", "0.002", "0.50")));
+    }
+
+    private static FeeRule rule(String amountFrom, String flatFee, String rate, String minimumFee) {
+        return new FeeRule(CardType.CREDIT, TransactionType.WITHDRAWAL, new BigDecimal(amountFrom),
+                new BigDecimal(flatFee), new BigDecimal(rate), new BigDecimal(minimumFee), new BigDecimal("25.00"));
+    }
+
+    @Benchmark
+    public long percentage() {
+        return schedule.feeCents(12_345, CardType.CREDIT, TransactionType.TRANSFER);
+    }
+
+    @Benchmark
+    public long tieredWithCap() {
+        next = (next + 1) & 3;
+        return schedule.feeCents(amounts[next], CardType.CREDIT, TransactionType.WITHDRAWAL);
+    }
+
+    @Benchmark
+    public long noRule() {
+        return schedule.feeCents(12_345, CardType.DEBIT, TransactionType.WITHDRAWAL);
+    }
+}
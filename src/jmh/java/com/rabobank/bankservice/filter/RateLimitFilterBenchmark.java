@@ -0,0 +1,68 @@
+package com.rabobank.bankservice.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.ratelimit.RateLimitPolicy;
+import com.rabobank.bankservice.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead the rate limit adds to a request: the bucket lookup and update alone, and the whole filter pass
+ * with an empty chain. Limits are never reached, so every request goes through.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RateLimitFilterBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final RateLimitPolicy POLICY = new RateLimitPolicy(1_000_000, 1_000_000_000);
+
+    private final RateLimiter rateLimiter = new RateLimiter(100_000, System::nanoTime);
+    private final String[] users = new String[USERS];
+    private final FilterChain chain = (request, response) -> {
+    };
+    private RateLimitFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < USERS; i++) {
+            users[i] = "user." + i + "@example.com";
+            rateLimiter.tryAcquire(users[i], "POST /api/accounts/transfer", POLICY);
+        }
+        filter = new RateLimitFilter(rateLimiter, POLICY, POLICY, new ObjectMapper(), new SimpleMeterRegistry());
+        request = new MockHttpServletRequest("POST", "/api/accounts/transfer");
+        response = new MockHttpServletResponse();
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                users[0], null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        next = (next + 1) % USERS;
+        return rateLimiter.tryAcquire(users[next], "POST /api/accounts/transfer", POLICY);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilter() throws Exception {
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Benchmark
+    public String endpoint() {
+        return RateLimitFilter.endpoint("GET", "/api/accounts/42/transactions");
+    }
+}
@@ -0,0 +1,35 @@
+package com.rabobank.bankservice.limit;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WithdrawalCountersBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    private final WithdrawalCounters counters = new WithdrawalCounters(64, Clock.systemDefaultZone());
+    //limits that are never reached, so every reservation goes through and is released again
+    private final WithdrawalLimitPolicy policy = new WithdrawalLimitPolicy(Long.MAX_VALUE / 2, 10, Duration.ofMinutes(1));
+    private long next;
+
+    @Setup
+    public void setUp() {
+        for (long accountId = 0; accountId < ACCOUNTS; accountId++) {
+            counters.reserve(accountId, 100, policy, (id, day, since) -> WithdrawalCounters.SeedUsage.NONE);
+        }
+    }
+
+    @Benchmark
+    public void reserveAndRelease() {
+        next = (next + 1) % ACCOUNTS;
+        WithdrawalCounters.Reservation reservation = counters.reserve(next, 100, policy,
+                (id, day, since) -> WithdrawalCounters.SeedUsage.NONE);
+        counters.release(reservation);
+    }
+}
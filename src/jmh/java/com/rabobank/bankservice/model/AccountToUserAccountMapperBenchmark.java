@@ -0,0 +1,54 @@
+package com.rabobank.bankservice.model;
+
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.Card;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccountToUserAccountMapperBenchmark {
+
+    @Param({"1", "2", "50"})
+    public int accountCount;
+
+    private AccountToUserAccountMapper mapper;
+    private List<Account> accounts;
+
+    @Setup
+    public void setUp() {
+        mapper = Mappers.getMapper(AccountToUserAccountMapper.class);
+
+        User user = new User();
+        user.setId(1L);
+        user.setName("Benchmark");
+        user.setEmail("benchmark@example.com");
+
+        accounts = new ArrayList<>();
+        for (int i = 0; i < accountCount; i++) {
+            Card card = new Card();
+            card.setCardType(i % 2 == 0 ? CardType.DEBIT : CardType.CREDIT);
+            card.setCardNumber(String.format("%016d", i));
+
+            Account account = new Account();
+            account.setId((long) i);
+            account.setUser(user);
+            account.setCard(card);
+            account.setBalance(new BigDecimal("1000.00"));
+            accounts.add(account);
+        }
+    }
+
+    @Benchmark
+    public UserAccount accountsToUserAccount() {
+        return mapper.accountsToUserAccount(accounts);
+    }
+}
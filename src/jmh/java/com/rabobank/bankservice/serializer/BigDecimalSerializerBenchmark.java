@@ -0,0 +1,53 @@
+package com.rabobank.bankservice.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.model.AccountDetail;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BigDecimalSerializerBenchmark {
+
+    private final BigDecimalSerializer serializer = new BigDecimalSerializer();
+    private final BigDecimal value = new BigDecimal("12345.6789");
+
+    private ObjectMapper objectMapper;
+    private JsonGenerator generator;
+    private AccountDetail accountDetail;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream());
+        accountDetail = AccountDetail.builder()
+                .cardNumber("4111111111111111")
+                .cardType(CardType.DEBIT)
+                .currentBalance(value)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        generator.close();
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        generator.writeStartArray();
+        serializer.serialize(value, generator, objectMapper.getSerializerProvider());
+        generator.writeEndArray();
+    }
+
+    @Benchmark
+    public byte[] accountDetailToJson() throws IOException {
+        return objectMapper.writeValueAsBytes(accountDetail);
+    }
+}
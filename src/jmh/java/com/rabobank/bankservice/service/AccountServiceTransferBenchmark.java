@@ -0,0 +1,116 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.BankServiceApplication;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.Card;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link AccountService#transfer} against the embedded H2 database, one pair of accounts
+ * per benchmark thread. Run with more threads via -Djmh.threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AccountServiceTransferBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        @Param({"atomic", "optimistic", "pessimistic"})
+        public String concurrencyMode;
+
+        ConfigurableApplicationContext context;
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = SpringApplication.run(BankServiceApplication.class,
+                    "--server.port=0",
+                    "--spring.main.banner-mode=off",
+                    "--spring.jpa.show-sql=false",
+                    "--logging.level.root=WARN",
+                    "--logging.level.org.springframework.security=WARN",
+                    "--account.concurrency.mode=" + concurrencyMode);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AccountPair {
+
+        AccountService accountService;
+        TransferTransaction forward;
+        TransferTransaction backward;
+        boolean flip;
+
+        @Setup(Level.Trial)
+        public void setUp(Application application) {
+            accountService = application.context.getBean(AccountService.class);
+
+            User user = new User();
+            user.setName("Benchmark");
+            user.setEmail(UUID.randomUUID() + "@example.com");
+            user.setPassword("unused");
+            application.context.getBean(UserRepository.class).save(user);
+
+            AccountRepository accountRepository = application.context.getBean(AccountRepository.class);
+            Account first = accountRepository.save(debitAccount(user));
+            Account second = accountRepository.save(debitAccount(user));
+            forward = transfer(first, second);
+            backward = transfer(second, first);
+
+            //UserContext reads the caller from the current request, as UserContextFilter would have set it
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.setAttribute("currentUser", user);
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        private static Account debitAccount(User user) {
+            Card card = new Card();
+            card.setCardType(CardType.DEBIT);
+            card.setCardNumber(UUID.randomUUID().toString().substring(0, 16));
+
+            Account account = new Account();
+            account.setUser(user);
+            account.setCard(card);
+            account.setBalance(new BigDecimal("1000000000.00"));
+            return account;
+        }
+
+        private static TransferTransaction transfer(Account source, Account target) {
+            TransferTransaction transferTransaction = new TransferTransaction();
+            transferTransaction.setSourceAccountId(source.getId());
+            transferTransaction.setTargetAccountId(target.getId());
+            transferTransaction.setAmount(new BigDecimal("0.01"));
+            return transferTransaction;
+        }
+    }
+
+    @Benchmark
+    public Account transfer(AccountPair pair) {
+        pair.flip = !pair.flip;
+        return pair.accountService.transfer(pair.flip ? pair.forward : pair.backward);
+    }
+}
@@ -0,0 +1,59 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.Card;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransactionFeeServiceBenchmark {
+
+    private TransactionFeeService transactionFeeService;
+    private WithdrawTransaction withdrawTransaction;
+    private Money amount;
+    private Account creditAccount;
+    private Account debitAccount;
+
+    @Setup
+    public void setUp() {
+        transactionFeeService = new TransactionFeeService(new BigDecimal("0.01"));
+
+        withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAmount(new BigDecimal("123.45"));
+        amount = Money.of(withdrawTransaction.getAmount());
+
+        creditAccount = account(CardType.CREDIT);
+        debitAccount = account(CardType.DEBIT);
+    }
+
+    private static Account account(CardType cardType) {
+        Card card = new Card();
+        card.setCardType(cardType);
+        Account account = new Account();
+        account.setCard(card);
+        return account;
+    }
+
+    @Benchmark
+    public Money creditCardFee() {
+        return transactionFeeService.calculateFee(withdrawTransaction, creditAccount);
+    }
+
+    @Benchmark
+    public Money debitCardFee() {
+        return transactionFeeService.calculateFee(withdrawTransaction, debitAccount);
+    }
+
+    @Benchmark
+    public Money creditCardFeeFromCents() {
+        return transactionFeeService.calculateFee(amount, CardType.CREDIT, TransactionType.WITHDRAWAL);
+    }
+}
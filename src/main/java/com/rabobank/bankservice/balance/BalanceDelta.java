@@ -0,0 +1,7 @@
+package com.rabobank.bankservice.balance;
+
+/**
+ * Change of one account's balance, in cents.
+ */
+public record BalanceDelta(long accountId, long cents) {
+}
@@ -0,0 +1,38 @@
+package com.rabobank.bankservice.balance;
+
+import com.rabobank.bankservice.model.Money;
+
+import java.util.Optional;
+
+/**
+ * Applies balance changes for the atomic concurrency mode. Called inside the caller's database
+ * transaction; an engine that keeps state outside the database undoes its change if that transaction
+ * rolls back.
+ */
+public interface BalanceEngine {
+
+    /**
+     * Takes the amount plus the fee from the account.
+     *
+     * @return the balance after the debit
+     * @throws com.rabobank.bankservice.error.InsufficientBalanceException if the balance does not cover both
+     */
+    Money debit(Long accountId, Money amount, Money fee);
+
+    /**
+     * Takes the amount plus the fee from the source and adds the amount to the target.
+     *
+     * @return the source balance after the transfer
+     */
+    Money transfer(Long sourceAccountId, Long targetAccountId, Money amount, Money fee);
+
+    /**
+     * @return the balance if the engine holds one newer than the {@code accounts} table, otherwise empty
+     */
+    Optional<Money> findBalance(Long accountId);
+
+    /**
+     * @return true if balances live in memory and the {@code accounts} table only catches up periodically
+     */
+    boolean isInMemory();
+}
@@ -0,0 +1,404 @@
+package com.rabobank.bankservice.balance;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * {@link BalanceMutationLog} on memory-mapped segment files of fixed-width, CRC-checked records, one
+ * per account delta. Appending only copies into the mapped segment; a flusher thread forces the
+ * written range to disk once per group-commit window, so every caller that appended within the window
+ * shares one fsync. A full segment is forced and the next one started, named after its first LSN;
+ * segments whose frames are all in the {@code accounts} table are deleted.
+ * <p>
+ * Recovery reads each segment up to the first record that is blank, fails its CRC or is out of
+ * sequence. Forcing is contiguous and only forced frames are acknowledged, so nothing after that point
+ * was acknowledged, and a frame cut off there is dropped.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.balance-engine", havingValue = "sharded")
+public class BalanceJournal implements BalanceMutationLog, DisposableBean {
+
+    static final String SYNCS_METRIC = "balance.journal.syncs";
+    static final String FRAMES_PER_SYNC_METRIC = "balance.journal.sync.frames";
+
+    //record layout: lsn, account id, delta, fee, timestamp, type, index in frame, frame size, unused, crc
+    static final int RECORD_BYTES = 48;
+    private static final int ACCOUNT_OFFSET = 8;
+    private static final int DELTA_OFFSET = 16;
+    private static final int FEE_OFFSET = 24;
+    private static final int TIMESTAMP_OFFSET = 32;
+    private static final int TYPE_OFFSET = 40;
+    private static final int INDEX_OFFSET = 41;
+    private static final int SIZE_OFFSET = 42;
+    private static final int CRC_OFFSET = 44;
+    private static final int MAX_FRAME_RECORDS = 255;
+
+    private static final String SEGMENT_PREFIX = "balance-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final long groupCommitWindowNanos;
+    private final Counter syncs;
+    private final DistributionSummary framesPerSync;
+
+    //guarded by this
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private final CRC32 crc = new CRC32();
+    private MappedByteBuffer segment;
+    private long segmentStartLsn;
+    private int position;
+    private int forcedPosition;
+    private long lastLsn;
+
+    //guarded by durability
+    private final Object durability = new Object();
+    private long durableLsn;
+    private boolean flushRequested;
+    private boolean running;
+    private Thread flusher;
+
+    @Autowired
+    public BalanceJournal(@Value("${account.balance-engine.journal.directory:balance-journal}") Path directory,
+                          @Value("${account.balance-engine.journal.segment-size:64MB}") DataSize segmentSize,
+                          @Value("${account.balance-engine.journal.group-commit-window:1ms}") Duration groupCommitWindow,
+                          MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.recordsPerSegment = (int) Math.min(Integer.MAX_VALUE / RECORD_BYTES, segmentSize.toBytes() / RECORD_BYTES);
+        if (recordsPerSegment < 2) {
+            throw new IllegalArgumentException("Balance journal segments must hold at least two records");
+        }
+        this.groupCommitWindowNanos = groupCommitWindow.toNanos();
+        this.syncs = Counter.builder(SYNCS_METRIC)
+                .description("Forces of the balance journal to disk")
+                .register(meterRegistry);
+        this.framesPerSync = DistributionSummary.builder(FRAMES_PER_SYNC_METRIC)
+                .description("Frames made durable by one force of the balance journal")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized long append(BalanceMutationType type, long feeCents, List<BalanceDelta> deltas) {
+        if (segment == null) {
+            throw new IllegalStateException("Balance journal is not open");
+        }
+        if (deltas.isEmpty() || deltas.size() > Math.min(MAX_FRAME_RECORDS, recordsPerSegment)) {
+            throw new IllegalArgumentException("A frame of " + deltas.size() + " deltas does not fit in a segment");
+        }
+        if (position + deltas.size() > recordsPerSegment) {
+            startSegment(lastLsn + 1);
+        }
+
+        long lsn = lastLsn + 1;
+        long timestamp = System.currentTimeMillis();
+        for (int index = 0; index < deltas.size(); index++) {
+            BalanceDelta delta = deltas.get(index);
+            record.clear();
+            record.putLong(lsn)
+                    .putLong(delta.accountId())
+                    .putLong(delta.cents())
+                    .putLong(feeCents)
+                    .putLong(timestamp)
+                    .put((byte) type.ordinal())
+                    .put((byte) index)
+                    .put((byte) deltas.size())
+                    .put((byte) 0);
+            crc.reset();
+            crc.update(record.array(), 0, CRC_OFFSET);
+            record.putInt((int) crc.getValue());
+            segment.put(position * RECORD_BYTES, record.array());
+            position++;
+        }
+        lastLsn = lsn;
+        return lsn;
+    }
+
+    @Override
+    public void awaitDurable(long lsn) {
+        if (groupCommitWindowNanos == 0) {
+            synchronized (durability) {
+                if (durableLsn >= lsn) {
+                    return;
+                }
+            }
+            flush();
+            return;
+        }
+
+        boolean interrupted = false;
+        synchronized (durability) {
+            while (durableLsn < lsn) {
+                if (!running) {
+                    throw new IllegalStateException("Balance journal is closed");
+                }
+                if (!flushRequested) {
+                    flushRequested = true;
+                    durability.notifyAll();
+                }
+                try {
+                    durability.wait();
+                } catch (InterruptedException e) {
+                    //the caller must not acknowledge before the frame is durable
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized long lastLsn() {
+        return lastLsn;
+    }
+
+    @Override
+    public synchronized void discardUpTo(long lsn) {
+        List<Long> starts = segmentStarts();
+        for (int i = 0; i < starts.size() - 1; i++) {
+            long start = starts.get(i);
+            if (start != segmentStartLsn && starts.get(i + 1) - 1 <= lsn) {
+                try {
+                    Files.deleteIfExists(segmentPath(start));
+                } catch (IOException e) {
+                    log.warn("Could not delete balance journal segment {}", segmentPath(start), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void recover(long afterLsn, Consumer<Frame> consumer) {
+        long highestLsn = afterLsn;
+        try {
+            Files.createDirectories(directory);
+            for (long start : segmentStarts()) {
+                highestLsn = Math.max(highestLsn, readSegment(segmentPath(start), start, afterLsn, consumer));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the balance journal", e);
+        }
+        lastLsn = highestLsn;
+        markDurable(highestLsn);
+        startSegment(highestLsn + 1);
+
+        synchronized (durability) {
+            running = true;
+        }
+        if (groupCommitWindowNanos > 0) {
+            flusher = new Thread(this::runFlusher, "balance-journal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        synchronized (durability) {
+            running = false;
+            durability.notifyAll();
+        }
+        if (flusher != null) {
+            flusher.join();
+        }
+        flush();
+        synchronized (this) {
+            segment = null;
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            synchronized (durability) {
+                while (running && !flushRequested) {
+                    try {
+                        durability.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+                flushRequested = false;
+            }
+            //let the appends of this window pile up behind the same force
+            LockSupport.parkNanos(groupCommitWindowNanos);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Could not force the balance journal, retrying", e);
+                synchronized (durability) {
+                    flushRequested = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Forces what was appended to the current segment so far; earlier segments were forced when they
+     * filled up. Appends carry on meanwhile.
+     */
+    private void flush() {
+        MappedByteBuffer buffer;
+        int from;
+        int to;
+        long lsn;
+        synchronized (this) {
+            if (segment == null) {
+                return;
+            }
+            buffer = segment;
+            from = forcedPosition;
+            to = position;
+            lsn = lastLsn;
+        }
+        force(buffer, from, to);
+        synchronized (this) {
+            if (segment == buffer) {
+                forcedPosition = Math.max(forcedPosition, to);
+            }
+        }
+        markDurable(lsn);
+    }
+
+    private void force(MappedByteBuffer buffer, int fromRecord, int toRecord) {
+        if (toRecord > fromRecord) {
+            buffer.force(fromRecord * RECORD_BYTES, (toRecord - fromRecord) * RECORD_BYTES);
+            syncs.increment();
+        }
+    }
+
+    private void markDurable(long lsn) {
+        synchronized (durability) {
+            if (lsn > durableLsn) {
+                if (running) {
+                    framesPerSync.record(lsn - durableLsn);
+                }
+                durableLsn = lsn;
+                durability.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Forces the full segment, if any, and maps a fresh one. A leftover file of the same name only holds
+     * records that were never acknowledged.
+     */
+    private void startSegment(long startLsn) {
+        if (segment != null) {
+            force(segment, forcedPosition, position);
+            markDurable(lastLsn);
+        }
+        Path path = segmentPath(startLsn);
+        try {
+            Files.deleteIfExists(path);
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_BYTES);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start balance journal segment " + path, e);
+        }
+        segmentStartLsn = startLsn;
+        position = 0;
+        forcedPosition = 0;
+    }
+
+    /**
+     * @return the highest LSN of a complete frame in the segment, 0 if there is none
+     */
+    private long readSegment(Path path, long startLsn, long afterLsn, Consumer<Frame> consumer) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+        byte[] recordBytes = new byte[RECORD_BYTES];
+        long highestLsn = 0;
+        long expectedLsn = startLsn;
+        List<BalanceDelta> deltas = null;
+        int frameSize = 0;
+
+        while (bytes.remaining() >= RECORD_BYTES) {
+            bytes.get(recordBytes);
+            ByteBuffer recordBuffer = ByteBuffer.wrap(recordBytes);
+            crc.reset();
+            crc.update(recordBytes, 0, CRC_OFFSET);
+            if (recordBuffer.getInt(CRC_OFFSET) != (int) crc.getValue()) {
+                break;
+            }
+            long lsn = recordBuffer.getLong(0);
+            int index = Byte.toUnsignedInt(recordBuffer.get(INDEX_OFFSET));
+            int size = Byte.toUnsignedInt(recordBuffer.get(SIZE_OFFSET));
+            if (lsn != expectedLsn || index != (deltas == null ? 0 : deltas.size())
+                    || (deltas != null && size != frameSize) || size == 0) {
+                break;
+            }
+            if (deltas == null) {
+                deltas = new ArrayList<>(size);
+                frameSize = size;
+            }
+            deltas.add(new BalanceDelta(recordBuffer.getLong(ACCOUNT_OFFSET), recordBuffer.getLong(DELTA_OFFSET)));
+
+            if (deltas.size() == frameSize) {
+                if (lsn > afterLsn) {
+                    consumer.accept(new Frame(lsn,
+                            BalanceMutationType.values()[recordBuffer.get(TYPE_OFFSET)],
+                            recordBuffer.getLong(FEE_OFFSET),
+                            Instant.ofEpochMilli(recordBuffer.getLong(TIMESTAMP_OFFSET)),
+                            List.copyOf(deltas)));
+                }
+                highestLsn = lsn;
+                expectedLsn = lsn + 1;
+                deltas = null;
+            }
+        }
+        if (deltas != null) {
+            log.warn("Dropping frame {} cut off at the end of {}", expectedLsn, path);
+        }
+        return highestLsn;
+    }
+
+    private List<Long> segmentStarts() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list the balance journal segments", e);
+        }
+    }
+
+    private Path segmentPath(long startLsn) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, startLsn, SEGMENT_SUFFIX));
+    }
+}
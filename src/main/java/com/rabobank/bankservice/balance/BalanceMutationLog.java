@@ -0,0 +1,46 @@
+package com.rabobank.bankservice.balance;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Durable record of every balance change made by {@link ShardedBalanceEngine}, replayed into the
+ * {@code accounts} table after a crash. Changes are grouped into frames numbered by a log sequence
+ * number (LSN); a frame is replayed completely or not at all.
+ */
+public interface BalanceMutationLog {
+
+    /**
+     * Appends the deltas as one frame. Safe to call from several threads; the frame is not durable
+     * before {@link #awaitDurable(long)} returned for its LSN.
+     *
+     * @param feeCents fee charged by the operation, already included in the deltas
+     * @return the LSN of the frame
+     */
+    long append(BalanceMutationType type, long feeCents, List<BalanceDelta> deltas);
+
+    /**
+     * Blocks until the frame with the given LSN, and every frame before it, is on disk.
+     */
+    void awaitDurable(long lsn);
+
+    /**
+     * @return the LSN of the last appended frame
+     */
+    long lastLsn();
+
+    /**
+     * Deletes the files that only hold frames up to the given LSN.
+     */
+    void discardUpTo(long lsn);
+
+    /**
+     * Hands every frame after {@code afterLsn} to the consumer, in LSN order, and continues numbering
+     * after the highest LSN seen. Called once, before the first append.
+     */
+    void recover(long afterLsn, Consumer<Frame> consumer);
+
+    record Frame(long lsn, BalanceMutationType type, long feeCents, Instant timestamp, List<BalanceDelta> deltas) {
+    }
+}
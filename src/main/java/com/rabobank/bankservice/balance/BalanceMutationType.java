@@ -0,0 +1,13 @@
+package com.rabobank.bankservice.balance;
+
+/**
+ * What caused a balance change. Stored by ordinal in the {@link BalanceJournal}, so only append.
+ */
+public enum BalanceMutationType {
+    WITHDRAWAL,
+    TRANSFER,
+    /**
+     * Undoes an earlier change whose database transaction rolled back.
+     */
+    REVERSAL
+}
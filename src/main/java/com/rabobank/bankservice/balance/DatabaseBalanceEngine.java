@@ -0,0 +1,70 @@
+package com.rabobank.bankservice.balance;
+
+import com.rabobank.bankservice.error.AccountNotFoundException;
+import com.rabobank.bankservice.error.InsufficientBalanceException;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Changes balances with conditional UPDATEs, so concurrent debits can never take a balance below zero
+ * and the {@code accounts} table is always current.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "account.balance-engine", havingValue = "database", matchIfMissing = true)
+public class DatabaseBalanceEngine implements BalanceEngine {
+
+    private final AccountRepository accountRepository;
+
+    @Autowired
+    public DatabaseBalanceEngine(AccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    @Override
+    public Money debit(Long accountId, Money amount, Money fee) {
+        return debit(accountId, amount.plus(fee));
+    }
+
+    @Override
+    public Money transfer(Long sourceAccountId, Long targetAccountId, Money amount, Money fee) {
+        //update rows in ascending id order so crossing transfers can't deadlock on the row locks
+        if (sourceAccountId <= targetAccountId) {
+            Money balance = debit(sourceAccountId, amount.plus(fee));
+            credit(targetAccountId, amount);
+            return balance;
+        }
+        credit(targetAccountId, amount);
+        return debit(sourceAccountId, amount.plus(fee));
+    }
+
+    @Override
+    public Optional<Money> findBalance(Long accountId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return false;
+    }
+
+    private Money debit(Long accountId, Money amount) {
+        return accountRepository.debit(accountId, amount).orElseThrow(() -> {
+            Money currentBalance = accountRepository.findBalanceById(accountId)
+                    .orElseThrow(() -> new AccountNotFoundException("Account not found"));
+            return new InsufficientBalanceException(amount.toBigDecimal(), currentBalance.toBigDecimal());
+        });
+    }
+
+    private void credit(Long accountId, Money amount) {
+        if (accountRepository.credit(accountId, amount) == 0) {
+            throw new AccountNotFoundException("Target account not found");
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.rabobank.bankservice.balance;
+
+import com.rabobank.bankservice.error.AccountNotFoundException;
+import com.rabobank.bankservice.error.InsufficientBalanceException;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.BalanceCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the balances of used accounts in memory, partitioned by account id over single-threaded
+ * shards, so a balance is only ever touched by one thread and needs no lock. A transfer within a shard
+ * is one task. Across shards the amount is first reserved on the source shard, then the change is
+ * logged and credited on the target shard, and finally the reservation is committed on the source
+ * shard. Every change is durable in the {@link BalanceMutationLog} before the call returns, its LSN is
+ * written in the caller's transaction, and it is undone by a logged reversal if that transaction rolls back.
+ * <p>
+ * A scheduled checkpoint adds the committed changes to the {@code accounts} table together with the LSN
+ * they cover, up to the oldest frame whose transaction is still open, and discards the log up to there.
+ * On startup, the committed frames after the checkpointed LSN are replayed into the table; a frame whose
+ * transaction never committed has no ledger row either and is dropped. In between, the table trails the
+ * engine, so readers of balances go through {@link #findBalance(Long)}.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "account.balance-engine", havingValue = "sharded")
+public class ShardedBalanceEngine implements BalanceEngine, InitializingBean, DisposableBean {
+
+    private final AccountRepository accountRepository;
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final BalanceMutationLog mutationLog;
+    private final TransactionTemplate transactionTemplate;
+    private final Shard[] shards;
+
+    //written by the owning shard after every change, read without locking by anyone
+    private final Map<Long, Money> publishedBalances = new ConcurrentHashMap<>();
+    //logged debits and transfers by LSN, until a checkpoint has added them to the table
+    private final ConcurrentSkipListMap<Long, LoggedFrame> uncheckpointed = new ConcurrentSkipListMap<>();
+    private long checkpointedLsn;
+
+    @Autowired
+    ShardedBalanceEngine(AccountRepository accountRepository,
+                         BalanceCheckpointRepository checkpointRepository,
+                         BalanceMutationLog mutationLog,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${account.balance-engine.shards:4}") int shardCount) {
+        this.accountRepository = accountRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.mutationLog = mutationLog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    /**
+     * Replays the committed frames logged after the last checkpoint into the {@code accounts} table.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        checkpointedLsn = checkpointRepository.findLsn();
+        Set<Long> committed = checkpointRepository.findCommittedLsnsAfter(checkpointedLsn);
+        Map<Long, Long> deltas = new HashMap<>();
+        mutationLog.recover(checkpointedLsn, frame -> {
+            if (committed.contains(frame.lsn())) {
+                addDeltas(deltas, frame.deltas());
+            }
+        });
+
+        long recoveredLsn = mutationLog.lastLsn();
+        if (recoveredLsn > checkpointedLsn) {
+            log.info("Replaying the committed balance mutation log frames {} to {}", checkpointedLsn + 1, recoveredLsn);
+            writeCheckpoint(deltas, recoveredLsn);
+        }
+        mutationLog.discardUpTo(recoveredLsn);
+    }
+
+    @Override
+    public Money debit(Long accountId, Money amount, Money fee) {
+        long debit = amount.plus(fee).cents();
+        long feeCents = fee.cents();
+        Applied applied = move(BalanceMutationType.WITHDRAWAL, feeCents, accountId, -debit, null, 0, true);
+        commitWithTransaction(applied.lsn(),
+                () -> move(BalanceMutationType.REVERSAL, -feeCents, accountId, debit, null, 0, false));
+        return Money.ofCents(applied.balance());
+    }
+
+    @Override
+    public Money transfer(Long sourceAccountId, Long targetAccountId, Money amount, Money fee) {
+        long debit = amount.plus(fee).cents();
+        long credit = amount.cents();
+        long feeCents = fee.cents();
+        Applied applied = move(BalanceMutationType.TRANSFER, feeCents, sourceAccountId, -debit, targetAccountId, credit, true);
+        commitWithTransaction(applied.lsn(),
+                () -> move(BalanceMutationType.REVERSAL, -feeCents, targetAccountId, -credit, sourceAccountId, debit, false));
+        return Money.ofCents(applied.balance());
+    }
+
+    @Override
+    public Optional<Money> findBalance(Long accountId) {
+        return Optional.ofNullable(publishedBalances.get(accountId));
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${account.balance-engine.checkpoint-interval:1s}")
+    public synchronized void checkpoint() {
+        //shards append and track a frame in one task, so once they are parked every frame up to here is tracked
+        long lastLsn = whileShardsPaused(mutationLog::lastLsn);
+        long lsn = lastLsn;
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Map.Entry<Long, LoggedFrame> entry : uncheckpointed.headMap(lastLsn, true).entrySet()) {
+            if (!entry.getValue().committed) {
+                //may still commit, and a replay only starts after the checkpointed LSN
+                lsn = entry.getKey() - 1;
+                break;
+            }
+            addDeltas(deltas, entry.getValue().deltas);
+        }
+        if (lsn <= checkpointedLsn) {
+            return;
+        }
+        //never put a change in the table before its frame is durable
+        mutationLog.awaitDurable(lsn);
+
+        try {
+            writeCheckpoint(deltas, lsn);
+            uncheckpointed.headMap(lsn, true).clear();
+            mutationLog.discardUpTo(lsn);
+        } catch (RuntimeException e) {
+            log.warn("Balance checkpoint up to LSN {} failed, retrying with the next one", lsn, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        checkpoint();
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+    }
+
+    /**
+     * Applies {@code sourceCents} to the source and {@code targetCents} to the optional target as one
+     * logged frame, and waits until the frame is durable. If {@code checked}, the available source
+     * balance must cover the debit.
+     *
+     * @return the source balance afterwards, in cents, and the LSN of the frame
+     */
+    private Applied move(BalanceMutationType type, long feeCents, Long sourceId, long sourceCents,
+                         Long targetId, long targetCents, boolean checked) {
+        Applied applied = applyOnShards(type, feeCents, sourceId, sourceCents, targetId, targetCents, checked);
+        //the shards carry on meanwhile, so concurrent callers share the journal's group commit
+        mutationLog.awaitDurable(applied.lsn());
+        return applied;
+    }
+
+    private Applied applyOnShards(BalanceMutationType type, long feeCents, Long sourceId, long sourceCents,
+                                  Long targetId, long targetCents, boolean checked) {
+        Long sourceSeed = seed(sourceId);
+        Shard source = shardOf(sourceId);
+        if (targetId == null) {
+            return call(source, () -> {
+                AccountBalance account = load(source, sourceId, sourceSeed, "Account not found");
+                check(account, sourceCents, checked);
+                long lsn = append(type, feeCents, List.of(new BalanceDelta(sourceId, sourceCents)));
+                return new Applied(apply(sourceId, account, sourceCents), lsn);
+            });
+        }
+
+        Long targetSeed = seed(targetId);
+        Shard target = shardOf(targetId);
+        List<BalanceDelta> frame = List.of(new BalanceDelta(sourceId, sourceCents), new BalanceDelta(targetId, targetCents));
+        if (source == target) {
+            return call(source, () -> {
+                AccountBalance sourceAccount = load(source, sourceId, sourceSeed, "Account not found");
+                AccountBalance targetAccount = load(source, targetId, targetSeed, "Target account not found");
+                check(sourceAccount, sourceCents, checked);
+                long lsn = append(type, feeCents, frame);
+                apply(targetId, targetAccount, targetCents);
+                return new Applied(apply(sourceId, sourceAccount, sourceCents), lsn);
+            });
+        }
+
+        long reservation = checked ? -sourceCents : 0;
+        call(source, () -> {
+            AccountBalance account = load(source, sourceId, sourceSeed, "Account not found");
+            check(account, sourceCents, checked);
+            account.reserved += reservation;
+            return null;
+        });
+
+        long lsn;
+        try {
+            lsn = call(target, () -> {
+                AccountBalance account = load(target, targetId, targetSeed, "Target account not found");
+                long appendedLsn = append(type, feeCents, frame);
+                apply(targetId, account, targetCents);
+                return appendedLsn;
+            });
+        } catch (RuntimeException e) {
+            call(source, () -> source.accounts.get(sourceId).reserved -= reservation);
+            throw e;
+        }
+
+        long frameLsn = lsn;
+        return call(source, () -> {
+            AccountBalance account = source.accounts.get(sourceId);
+            account.reserved -= reservation;
+            return new Applied(apply(sourceId, account, sourceCents), frameLsn);
+        });
+    }
+
+    /**
+     * Logs the frame and, unless it is a reversal, tracks it until a checkpoint. A reversal undoes a
+     * frame whose transaction rolled back, so neither of them ever reaches the table.
+     */
+    private long append(BalanceMutationType type, long feeCents, List<BalanceDelta> deltas) {
+        long lsn = mutationLog.append(type, feeCents, deltas);
+        if (type != BalanceMutationType.REVERSAL) {
+            uncheckpointed.put(lsn, new LoggedFrame(deltas));
+        }
+        return lsn;
+    }
+
+    /**
+     * Reads the starting balance on the caller's thread, inside its transaction, for accounts the
+     * engine does not hold yet; a shard never waits for a database connection.
+     *
+     * @return the balance in cents, or null if the engine holds the account or it does not exist
+     */
+    private Long seed(Long accountId) {
+        if (publishedBalances.containsKey(accountId)) {
+            return null;
+        }
+        return accountRepository.findBalanceById(accountId)
+                .map(Money::cents)
+                .orElse(null);
+    }
+
+    private AccountBalance load(Shard shard, Long accountId, Long seed, String notFoundMessage) {
+        AccountBalance account = shard.accounts.get(accountId);
+        if (account == null) {
+            if (seed == null) {
+                throw new AccountNotFoundException(notFoundMessage);
+            }
+            account = new AccountBalance(seed);
+            shard.accounts.put(accountId, account);
+            publishedBalances.put(accountId, Money.ofCents(seed));
+        }
+        return account;
+    }
+
+    private static void check(AccountBalance account, long cents, boolean checked) {
+        if (checked && account.available() + cents < 0) {
+            throw new InsufficientBalanceException(toAmount(-cents), toAmount(account.available()));
+        }
+    }
+
+    private long apply(Long accountId, AccountBalance account, long cents) {
+        account.balance += cents;
+        publishedBalances.put(accountId, Money.ofCents(account.balance));
+        return account.balance;
+    }
+
+    /**
+     * Writes the durable frame's LSN in the caller's transaction, so the frame reaches the table only if
+     * that transaction commits, and undoes the change if it rolls back. Without a transaction the frame
+     * is committed right away.
+     */
+    private void commitWithTransaction(long lsn, Runnable undo) {
+        LoggedFrame frame = uncheckpointed.get(lsn);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                checkpointRepository.saveCommittedLsn(lsn);
+            } catch (RuntimeException e) {
+                rollBack(lsn, undo);
+                throw e;
+            }
+            frame.committed = true;
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    rollBack(lsn, undo);
+                } else {
+                    //an unknown outcome keeps the change, as the ledger row may well have committed
+                    frame.committed = true;
+                }
+            }
+        });
+        checkpointRepository.saveCommittedLsn(lsn);
+    }
+
+    private void rollBack(long lsn, Runnable undo) {
+        uncheckpointed.remove(lsn);
+        undo.run();
+    }
+
+    private static void addDeltas(Map<Long, Long> deltas, List<BalanceDelta> frame) {
+        frame.forEach(delta -> deltas.merge(delta.accountId(), delta.cents(), Long::sum));
+    }
+
+    private void writeCheckpoint(Map<Long, Long> deltas, long lsn) {
+        SortedMap<Long, BigDecimal> amounts = new TreeMap<>();
+        deltas.forEach((accountId, cents) -> {
+            if (cents != 0) {
+                amounts.put(accountId, toAmount(cents));
+            }
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!amounts.isEmpty()) {
+                List<Long> missing = accountRepository.addBalanceDeltas(amounts);
+                if (!missing.isEmpty()) {
+                    log.warn("Dropped balance changes of accounts {} that no longer exist", missing);
+                }
+            }
+            checkpointRepository.saveLsn(lsn);
+        });
+        checkpointedLsn = lsn;
+    }
+
+    /**
+     * Runs the action once every shard has finished its queued work and is parked, so no balance
+     * changes and nothing is appended to the log while it runs.
+     */
+    private <T> T whileShardsPaused(Supplier<T> action) {
+        CountDownLatch parked = new CountDownLatch(shards.length);
+        CountDownLatch resume = new CountDownLatch(1);
+        for (Shard shard : shards) {
+            shard.executor.execute(() -> {
+                parked.countDown();
+                awaitUninterruptibly(resume);
+            });
+        }
+        awaitUninterruptibly(parked);
+        try {
+            return action.get();
+        } finally {
+            resume.countDown();
+        }
+    }
+
+    private Shard shardOf(Long accountId) {
+        return shards[(int) Math.floorMod(accountId, (long) shards.length)];
+    }
+
+    /**
+     * Runs the task on the shard and waits for it. Waiting ignores interrupts, so a started
+     * reserve/commit sequence always completes.
+     */
+    private static <T> T call(Shard shard, Callable<T> task) {
+        Future<T> future = shard.executor.submit(task);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException runtimeException) {
+                        throw runtimeException;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static final class Shard {
+
+        private final ExecutorService executor;
+        //only touched by the shard's thread, or while all shards are paused
+        private final Map<Long, AccountBalance> accounts = new HashMap<>();
+
+        private Shard(int index) {
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "balance-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static final class AccountBalance {
+
+        private long balance;
+        //held by cross-shard transfers between reserve and commit
+        private long reserved;
+
+        private AccountBalance(long balance) {
+            this.balance = balance;
+        }
+
+        private long available() {
+            return balance - reserved;
+        }
+    }
+
+    private record Applied(long balance, long lsn) {
+    }
+
+    private static final class LoggedFrame {
+
+        private final List<BalanceDelta> deltas;
+        //set once the caller's transaction committed, read by the checkpoint
+        private volatile boolean committed;
+
+        private LoggedFrame(List<BalanceDelta> deltas) {
+            this.deltas = deltas;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.rabobank.bankservice.config;
+
+import com.zaxxer.hikari.SQLExceptionOverride;
+
+import java.sql.SQLException;
+
+/**
+ * Keeps a connection in the pool when one of its statements timed out waiting for a row lock. Hikari
+ * evicts the connection on any {@link java.sql.SQLTimeoutException}, which H2 throws for lock timeouts;
+ * the transaction could then not even be rolled back, turning the conflict into a server error.
+ * Set as {@code spring.datasource.hikari.exception-override-class-name}.
+ */
+public class LockTimeoutExceptionOverride implements SQLExceptionOverride {
+
+    //org.h2.api.ErrorCode.LOCK_TIMEOUT_1; H2 is only on the runtime classpath
+    static final int H2_LOCK_TIMEOUT = 50200;
+
+    @java.lang.Override
+    public Override adjudicate(SQLException sqlException) {
+        return sqlException.getErrorCode() == H2_LOCK_TIMEOUT ? Override.DO_NOT_EVICT : Override.CONTINUE_EVICT;
+    }
+}
@@ -1,7 +1,12 @@
 package com.rabobank.bankservice.config;
 
+import com.rabobank.bankservice.security.AuthenticationCache;
+import com.rabobank.bankservice.security.CachingAuthenticationProvider;
+import com.rabobank.bankservice.service.CustomUserAuthService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -12,19 +17,30 @@ import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
 @EnableWebSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   CustomUserAuthService customUserAuthService,
+                                                   PasswordEncoder passwordEncoder,
+                                                   AuthenticationCache authenticationCache) throws Exception {
+        //the only provider: without this, failed logins go on to the global manager built from the
+        //UserDetailsService bean and are BCrypt-checked a second time
+        http.getSharedObject(AuthenticationManagerBuilder.class).parentAuthenticationManager(null);
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .headers(headers -> headers.frameOptions(HeadersConfigurer.FrameOptionsConfig::disable))
                 .authorizeHttpRequests((authz) -> authz
                         .requestMatchers("/h2-console/**").permitAll()
+                        //scraped by Prometheus without credentials, on the loopback-bound management port only
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 )
                 .httpBasic(basic -> {
-                });
+                })
+                .authenticationProvider(new CachingAuthenticationProvider(
+                        customUserAuthService, passwordEncoder, authenticationCache));
 
         return http.build();
     }
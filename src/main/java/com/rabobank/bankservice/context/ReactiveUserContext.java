@@ -0,0 +1,35 @@
+package com.rabobank.bankservice.context;
+
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.error.UnauthorizedException;
+import com.rabobank.bankservice.security.AuthenticatedUser;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux counterpart of {@link UserContext}: the current user comes from the reactive security
+ * context instead of a request attribute, since no thread is bound to the request.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserContext {
+
+    public Mono<User> getCurrentUser() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(authentication -> authentication.getPrincipal() instanceof AuthenticatedUser)
+                .map(authentication -> ((AuthenticatedUser) authentication.getPrincipal()).toUser())
+                .switchIfEmpty(Mono.error(() -> new UnauthorizedException("User not found in context")));
+    }
+
+    public Mono<Account> isAuthorized(Account account) {
+        return getCurrentUser().map(user -> {
+            UserContext.checkOwner(user, account);
+            return account;
+        });
+    }
+}
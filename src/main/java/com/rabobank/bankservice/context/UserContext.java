@@ -5,9 +5,11 @@ import com.rabobank.bankservice.entity.User;
 import com.rabobank.bankservice.error.UnauthorizedException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Component;
 
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserContext {
 
     private final HttpServletRequest request;
@@ -26,7 +28,13 @@ public class UserContext {
     }
 
     public void isAuthorized(Account account) {
-        User user = this.getCurrentUser();
+        checkOwner(this.getCurrentUser(), account);
+    }
+
+    /**
+     * Ownership rule shared with {@link ReactiveUserContext}.
+     */
+    static void checkOwner(User user, Account account) {
         if (!user.getId().equals(account.getUser().getId())) {
             throw new UnauthorizedException("User id and account ID mismatch");
         }
@@ -1,47 +1,127 @@
 package com.rabobank.bankservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabobank.bankservice.entity.Account;
 import com.rabobank.bankservice.model.AccountToUserAccountMapper;
+import com.rabobank.bankservice.model.BulkTransferResult;
+import com.rabobank.bankservice.model.DailyTotal;
+import com.rabobank.bankservice.model.TransactionDetail;
+import com.rabobank.bankservice.model.TransactionHistoryPage;
 import com.rabobank.bankservice.model.UserAccount;
+import com.rabobank.bankservice.model.request.BulkTransferMode;
+import com.rabobank.bankservice.model.request.BulkTransferRequest;
 import com.rabobank.bankservice.model.request.TransferTransaction;
 import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.service.AccountDailyTotalsService;
+import com.rabobank.bankservice.service.AccountOverviewService;
 import com.rabobank.bankservice.service.AccountService;
+import com.rabobank.bankservice.service.BulkTransferService;
+import com.rabobank.bankservice.service.TransactionHistoryService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/accounts")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AccountController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final AccountService accountService;
+    private final AccountOverviewService accountOverviewService;
+    private final BulkTransferService bulkTransferService;
+    private final TransactionHistoryService transactionHistoryService;
+    private final AccountDailyTotalsService dailyTotalsService;
     private final AccountToUserAccountMapper mapper;
+    private final ObjectMapper objectMapper;
 
     @Autowired
     AccountController(AccountService accountService,
-                      AccountToUserAccountMapper accountToUserAccountMapper) {
+                      AccountOverviewService accountOverviewService,
+                      BulkTransferService bulkTransferService,
+                      TransactionHistoryService transactionHistoryService,
+                      AccountDailyTotalsService dailyTotalsService,
+                      AccountToUserAccountMapper accountToUserAccountMapper,
+                      ObjectMapper objectMapper) {
         this.accountService = accountService;
+        this.accountOverviewService = accountOverviewService;
+        this.bulkTransferService = bulkTransferService;
+        this.transactionHistoryService = transactionHistoryService;
+        this.dailyTotalsService = dailyTotalsService;
         this.mapper = accountToUserAccountMapper;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/")
     public ResponseEntity<UserAccount> getAccounts() {
-        List<Account> accountList = accountService.getAccountList();
-        return ResponseEntity.ok(mapper.accountsToUserAccount(accountList));
+        return ResponseEntity.ok(accountOverviewService.getUserAccount());
+    }
+
+    @GetMapping(value = "/{accountId}/transactions", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TransactionHistoryPage> getTransactions(@PathVariable Long accountId,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(transactionHistoryService.getPage(accountId, cursor, limit));
+    }
+
+    @GetMapping(value = "/{accountId}/transactions", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTransactions(@PathVariable Long accountId) {
+        Consumer<Consumer<TransactionDetail>> export = transactionHistoryService.prepareStream(accountId);
+        StreamingResponseBody body = outputStream -> export.accept(transaction -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(transaction));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/{accountId}/daily-totals")
+    public ResponseEntity<List<DailyTotal>> getDailyTotals(@PathVariable Long accountId,
+                                                           @RequestParam(required = false)
+                                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(dailyTotalsService.getDailyTotals(accountId, date == null ? LocalDate.now() : date));
     }
 
     @PostMapping("/withdraw")
-    public ResponseEntity<UserAccount> withdraw(@Valid @RequestBody WithdrawTransaction withdrawTransaction) {
-        Account account = accountService.withdraw(withdrawTransaction);
+    public ResponseEntity<UserAccount> withdraw(@Valid @RequestBody WithdrawTransaction withdrawTransaction,
+                                                @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                @Size(max = 64) String idempotencyKey) {
+        Account account = accountService.withdraw(withdrawTransaction, idempotencyKey);
         return ResponseEntity.ok(mapper.accountsToUserAccount(List.of(account)));
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<UserAccount> transfer(@Valid @RequestBody TransferTransaction transferTransaction) {
-        Account account = accountService.transfer(transferTransaction);
+    public ResponseEntity<UserAccount> transfer(@Valid @RequestBody TransferTransaction transferTransaction,
+                                                @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                @Size(max = 64) String idempotencyKey) {
+        Account account = accountService.transfer(transferTransaction, idempotencyKey);
         return ResponseEntity.ok(mapper.accountsToUserAccount(List.of(account)));
     }
+
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<BulkTransferResult> transferBatch(@Valid @RequestBody BulkTransferRequest bulkTransferRequest) {
+        BulkTransferResult result = bulkTransferService.transfer(bulkTransferRequest);
+        if (result.getMode() == BulkTransferMode.ALL_OR_NOTHING && result.getApplied() == 0) {
+            return ResponseEntity.unprocessableEntity().body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
 }
@@ -0,0 +1,58 @@
+package com.rabobank.bankservice.controller;
+
+import com.rabobank.bankservice.model.AccountToUserAccountMapper;
+import com.rabobank.bankservice.model.UserAccount;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.service.ReactiveAccountService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * WebFlux variant of the {@link AccountController} endpoints used by the mobile gateway,
+ * active with the {@code reactive} profile.
+ */
+@RestController
+@RequestMapping("/api/accounts")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountController {
+
+    private final ReactiveAccountService accountService;
+    private final AccountToUserAccountMapper mapper;
+
+    @Autowired
+    public ReactiveAccountController(ReactiveAccountService accountService,
+                                     AccountToUserAccountMapper accountToUserAccountMapper) {
+        this.accountService = accountService;
+        this.mapper = accountToUserAccountMapper;
+    }
+
+    @GetMapping("/")
+    public Mono<ResponseEntity<UserAccount>> getAccounts() {
+        return accountService.getAccountOverview()
+                .map(mapper::overviewToUserAccount)
+                .map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/withdraw")
+    public Mono<ResponseEntity<UserAccount>> withdraw(@Valid @RequestBody WithdrawTransaction withdrawTransaction) {
+        return accountService.withdraw(withdrawTransaction)
+                .map(account -> ResponseEntity.ok(mapper.accountsToUserAccount(List.of(account))));
+    }
+
+    @PostMapping("/transfer")
+    public Mono<ResponseEntity<UserAccount>> transfer(@Valid @RequestBody TransferTransaction transferTransaction) {
+        return accountService.transfer(transferTransaction)
+                .map(account -> ResponseEntity.ok(mapper.accountsToUserAccount(List.of(account))));
+    }
+}
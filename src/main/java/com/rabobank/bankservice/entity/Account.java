@@ -1,8 +1,15 @@
 package com.rabobank.bankservice.entity;
 
 import com.rabobank.bankservice.error.InsufficientBalanceException;
+import com.rabobank.bankservice.model.Money;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
@@ -14,26 +21,66 @@ public class Account {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
 
-    private BigDecimal balance;
+    //cents in a long, so balance arithmetic on the write path doesn't allocate BigDecimals
+    @Convert(converter = MoneyConverter.class)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Money balance;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Card card;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    /**
+     * Balance as a decimal with two digits, for the API and the mappers.
+     */
+    public BigDecimal getBalance() {
+        return balance == null ? null : balance.toBigDecimal();
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance == null ? null : Money.of(balance);
+    }
+
+    public Money balance() {
+        return balance;
+    }
+
+    public void setBalance(Money balance) {
+        this.balance = balance;
+    }
+
     public void subtractBalance(BigDecimal amount) {
-        BigDecimal newBalance = this.balance.subtract(amount);
+        subtractBalance(Money.of(amount));
+    }
 
-        if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-            throw new InsufficientBalanceException(String.format("Cannot subtract %s. Current balance: %s. Resulting balance would be negative.", amount, this.balance));
+    public void subtractBalance(Money amount) {
+        Money newBalance = this.balance.minus(amount);
+
+        if (newBalance.isNegative()) {
+            throw new InsufficientBalanceException(amount.toBigDecimal(), this.balance.toBigDecimal());
         }
 
         this.balance = newBalance;
     }
 
     public void addBalance(BigDecimal amount) {
-        this.balance = this.balance.add(amount);
+        addBalance(Money.of(amount));
+    }
+
+    public void addBalance(Money amount) {
+        this.balance = this.balance.plus(amount);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.rabobank.bankservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a withdraw or transfer sent with an {@code Idempotency-Key}, written in the same
+ * transaction as the balance change so a retry can be answered without applying it twice.
+ */
+@Data
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_keys_user_key", columnNames = {"user_id", "idempotency_key"}))
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    //plain ids rather than associations, so purging expired keys never touches users or accounts
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 64)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String requestHash;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private BigDecimal balance;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public static IdempotencyRecord of(Long userId, String idempotencyKey, String requestHash, Account account) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setUserId(userId);
+        record.setIdempotencyKey(idempotencyKey);
+        record.setRequestHash(requestHash);
+        record.setAccountId(account.getId());
+        record.setBalance(account.getBalance());
+        record.setCreatedAt(LocalDateTime.now());
+        return record;
+    }
+}
@@ -0,0 +1,53 @@
+package com.rabobank.bankservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only journal of ledger writes in write-behind mode: one row per withdrawal or transfer,
+ * committed with the balance change and turned into {@link Transaction} rows later by
+ * {@code LedgerJournalWriter}. No foreign keys or secondary indexes, so the insert stays cheap.
+ */
+@Data
+@Entity
+@Table(name = "ledger_journal")
+public class LedgerJournalEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_journal_seq")
+    @SequenceGenerator(name = "ledger_journal_seq", sequenceName = "ledger_journal_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType type;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    //only set for transfers, which materialize into a row for each account
+    private Long targetAccountId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private BigDecimal fee;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    public static LedgerJournalEntry of(TransactionType type, Long accountId, Long targetAccountId,
+                                        BigDecimal amount, BigDecimal fee) {
+        LedgerJournalEntry entry = new LedgerJournalEntry();
+        entry.setType(type);
+        entry.setAccountId(accountId);
+        entry.setTargetAccountId(targetAccountId);
+        entry.setAmount(amount);
+        entry.setFee(fee);
+        entry.setTimestamp(LocalDateTime.now());
+        return entry;
+    }
+}
@@ -0,0 +1,60 @@
+package com.rabobank.bankservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Compact record of a completed withdrawal or transfer, written in the transaction that changed the
+ * balances and deleted by {@code OutboxRelay} once every sink has accepted it.
+ */
+@Data
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    //pooled sequence so the bulk transfer endpoint can JDBC-batch its events like its ledger rows
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType type;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    //only set for transfers
+    private Long targetAccountId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private BigDecimal fee;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public static OutboxEvent withdrawal(Long accountId, BigDecimal amount, BigDecimal fee) {
+        return of(TransactionType.WITHDRAWAL, accountId, null, amount, fee);
+    }
+
+    public static OutboxEvent transfer(Long sourceAccountId, Long targetAccountId, BigDecimal amount, BigDecimal fee) {
+        return of(TransactionType.TRANSFER, sourceAccountId, targetAccountId, amount, fee);
+    }
+
+    private static OutboxEvent of(TransactionType type, Long accountId, Long targetAccountId, BigDecimal amount, BigDecimal fee) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setAccountId(accountId);
+        event.setTargetAccountId(targetAccountId);
+        event.setAmount(amount);
+        event.setFee(fee);
+        event.setCreatedAt(LocalDateTime.now());
+        return event;
+    }
+}
@@ -1,25 +1,44 @@
 package com.rabobank.bankservice.entity;
 
+import com.rabobank.bankservice.model.Money;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
 @Entity
 @Table(name = "transactions")
 public class Transaction {
+    //pooled sequence instead of IDENTITY so Hibernate can assign ids up front and JDBC-batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Account account;
 
-    private BigDecimal amount;
-    private BigDecimal calculatedFee;
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
+    @Convert(converter = MoneyConverter.class)
+    private Money calculatedFee;
+    @Enumerated(EnumType.STRING)
     private TransactionType type;
     private LocalDateTime timestamp;
-}
\ No newline at end of file
+
+    public static Transaction of(Account account, Money amount, Money calculatedFee, TransactionType type) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setAmount(amount);
+        transaction.setCalculatedFee(calculatedFee);
+        transaction.setType(type);
+        transaction.setTimestamp(LocalDateTime.now());
+        return transaction;
+    }
+}
@@ -1,11 +1,13 @@
 package com.rabobank.bankservice.entity;
 
+import com.rabobank.bankservice.security.UserCredentialsListener;
 import jakarta.persistence.*;
 import lombok.Data;
 
 @Data
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCredentialsListener.class)
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
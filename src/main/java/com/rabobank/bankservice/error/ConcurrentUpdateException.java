@@ -0,0 +1,7 @@
+package com.rabobank.bankservice.error;
+
+public class ConcurrentUpdateException extends RuntimeException {
+    public ConcurrentUpdateException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
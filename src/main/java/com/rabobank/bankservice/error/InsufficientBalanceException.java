@@ -1,7 +1,13 @@
 package com.rabobank.bankservice.error;
 
+import java.math.BigDecimal;
+
 public class InsufficientBalanceException extends RuntimeException {
     public InsufficientBalanceException(String message) {
         super(message);
     }
+
+    public InsufficientBalanceException(BigDecimal amount, BigDecimal currentBalance) {
+        this(String.format("Cannot subtract %s. Current balance: %s. Resulting balance would be negative.", amount, currentBalance));
+    }
 }
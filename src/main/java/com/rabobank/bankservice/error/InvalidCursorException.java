@@ -0,0 +1,7 @@
+package com.rabobank.bankservice.error;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.rabobank.bankservice.error;
+
+public class WithdrawalLimitExceededException extends RuntimeException {
+    public WithdrawalLimitExceededException(String message) {
+        super(message);
+    }
+}
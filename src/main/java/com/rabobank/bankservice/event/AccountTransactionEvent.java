@@ -0,0 +1,27 @@
+package com.rabobank.bankservice.event;
+
+import com.rabobank.bankservice.entity.OutboxEvent;
+import com.rabobank.bankservice.entity.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A committed withdrawal or transfer as handed to outbox sinks. Delivery is at-least-once, so
+ * consumers deduplicate on {@code id}.
+ *
+ * @param targetAccountId {@code null} for withdrawals
+ */
+public record AccountTransactionEvent(Long id,
+                                      TransactionType type,
+                                      Long accountId,
+                                      Long targetAccountId,
+                                      BigDecimal amount,
+                                      BigDecimal fee,
+                                      LocalDateTime createdAt) {
+
+    public static AccountTransactionEvent from(OutboxEvent event) {
+        return new AccountTransactionEvent(event.getId(), event.getType(), event.getAccountId(),
+                event.getTargetAccountId(), event.getAmount(), event.getFee(), event.getCreatedAt());
+    }
+}
@@ -0,0 +1,17 @@
+package com.rabobank.bankservice.event;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Published inside the transaction that changed balances; listeners that must only see committed
+ * changes use {@code @TransactionalEventListener(phase = AFTER_COMMIT)}.
+ *
+ * @param userIds owners of every account whose balance changed
+ */
+public record BalanceChangedEvent(Set<Long> userIds) {
+
+    public static BalanceChangedEvent forUsers(Long... userIds) {
+        return new BalanceChangedEvent(Set.copyOf(Arrays.asList(userIds)));
+    }
+}
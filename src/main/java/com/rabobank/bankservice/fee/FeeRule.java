@@ -0,0 +1,27 @@
+package com.rabobank.bankservice.fee;
+
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.TransactionType;
+
+import java.math.BigDecimal;
+
+/**
+ * One tier of the fee for a card type and transaction type: from {@code amountFrom} up to the next tier's
+ * {@code amountFrom}, the fee is {@code flatFee + rate * amount}, at least {@code minimumFee} and at most
+ * {@code maximumFee} ({@code null} for no cap). The tier an amount falls in prices the whole amount.
+ */
+public record FeeRule(CardType cardType,
+                      TransactionType transactionType,
+                      BigDecimal amountFrom,
+                      BigDecimal flatFee,
+                      BigDecimal rate,
+                      BigDecimal minimumFee,
+                      BigDecimal maximumFee) {
+
+    /**
+     * A plain percentage of every amount, e.g. {@code 0.01} for one percent.
+     */
+    public static FeeRule percentage(CardType cardType, TransactionType transactionType, BigDecimal rate) {
+        return new FeeRule(cardType, transactionType, BigDecimal.ZERO, BigDecimal.ZERO, rate, BigDecimal.ZERO, null);
+    }
+}
@@ -0,0 +1,134 @@
+package com.rabobank.bankservice.fee;
+
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.model.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@link FeeRule}s compiled into one immutable table of longs: amounts in cents, rates in millionths. A fee is
+ * an index computation, a scan over the few tiers of one card type and transaction type and integer math, so
+ * {@link #feeCents} allocates nothing. A card type and transaction type without rules, or an amount below the
+ * first tier, has no fee.
+ */
+public final class FeeSchedule {
+
+    //rates in millionths, so a fee is computed on the cents without a BigDecimal
+    private static final long RATE_SCALE = 1_000_000;
+    private static final int RATE_DECIMALS = 6;
+
+    private static final int TRANSACTION_TYPES = TransactionType.values().length;
+    private static final int KEYS = CardType.values().length * TRANSACTION_TYPES;
+
+    //one row per tier, ordered by key and then by amount_from
+    private static final int FROM = 0;
+    private static final int FLAT = 1;
+    private static final int RATE = 2;
+    private static final int MINIMUM = 3;
+    private static final int MAXIMUM = 4;
+    private static final int STRIDE = 5;
+
+    //tiers of key k are the rows offsets[k] until offsets[k + 1]
+    private final int[] offsets;
+    private final long[] tiers;
+
+    private FeeSchedule(int[] offsets, long[] tiers) {
+        this.offsets = offsets;
+        this.tiers = tiers;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a rule is incomplete, negative, has more decimals than the columns
+     *                                  (two, six for the rate), a minimum above its maximum, or shares its tier
+     */
+    public static FeeSchedule compile(Collection<FeeRule> rules) {
+        List<FeeRule> sorted = new ArrayList<>(rules);
+        sorted.forEach(FeeSchedule::validate);
+        sorted.sort(Comparator.comparingInt((FeeRule rule) -> key(rule)).thenComparing(FeeRule::amountFrom));
+
+        int[] offsets = new int[KEYS + 1];
+        long[] tiers = new long[sorted.size() * STRIDE];
+        for (int row = 0; row < sorted.size(); row++) {
+            FeeRule rule = sorted.get(row);
+            if (row > 0 && key(sorted.get(row - 1)) == key(rule)
+                    && sorted.get(row - 1).amountFrom().compareTo(rule.amountFrom()) == 0) {
+                throw new IllegalArgumentException("Two fee rules for " + rule.cardType() + " "
+                        + rule.transactionType() + " from " + rule.amountFrom());
+            }
+            int base = row * STRIDE;
+            tiers[base + FROM] = cents(rule.amountFrom(), "amountFrom");
+            tiers[base + FLAT] = cents(rule.flatFee(), "flatFee");
+            tiers[base + RATE] = exact(rule.rate(), RATE_DECIMALS, "rate");
+            tiers[base + MINIMUM] = cents(rule.minimumFee(), "minimumFee");
+            tiers[base + MAXIMUM] = rule.maximumFee() == null ? Long.MAX_VALUE : cents(rule.maximumFee(), "maximumFee");
+            offsets[key(rule) + 1]++;
+        }
+        for (int key = 0; key < KEYS; key++) {
+            offsets[key + 1] += offsets[key];
+        }
+        return new FeeSchedule(offsets, tiers);
+    }
+
+    public Money fee(Money amount, CardType cardType, TransactionType transactionType) {
+        return Money.ofCents(feeCents(amount.cents(), cardType, transactionType));
+    }
+
+    public long feeCents(long amountCents, CardType cardType, TransactionType transactionType) {
+        int key = key(cardType, transactionType);
+        int first = offsets[key];
+        //tiers are few, so a backwards scan beats a binary search
+        for (int row = offsets[key + 1] - 1; row >= first; row--) {
+            int base = row * STRIDE;
+            if (amountCents >= tiers[base + FROM]) {
+                long fee = Math.addExact(tiers[base + FLAT],
+                        Money.multiplyCents(amountCents, tiers[base + RATE], RATE_SCALE, RoundingMode.HALF_UP));
+                return Math.min(Math.max(fee, tiers[base + MINIMUM]), tiers[base + MAXIMUM]);
+            }
+        }
+        return 0;
+    }
+
+    public int size() {
+        return tiers.length / STRIDE;
+    }
+
+    private static int key(FeeRule rule) {
+        return key(rule.cardType(), rule.transactionType());
+    }
+
+    private static int key(CardType cardType, TransactionType transactionType) {
+        return cardType.ordinal() * TRANSACTION_TYPES + transactionType.ordinal();
+    }
+
+    private static void validate(FeeRule rule) {
+        if (rule.cardType() == null || rule.transactionType() == null || rule.amountFrom() == null
+                || rule.flatFee() == null || rule.rate() == null || rule.minimumFee() == null) {
+            throw new IllegalArgumentException("Incomplete fee rule: " + rule);
+        }
+        if (rule.maximumFee() != null && rule.maximumFee().compareTo(rule.minimumFee()) < 0) {
+            throw new IllegalArgumentException("Fee rule has a maximum below its minimum: " + rule);
+        }
+    }
+
+    private static long cents(BigDecimal amount, String name) {
+        return exact(amount, Money.SCALE, name);
+    }
+
+    private static long exact(BigDecimal value, int decimals, String name) {
+        if (value.signum() < 0) {
+            throw new IllegalArgumentException("Fee rule " + name + " must not be negative: " + value);
+        }
+        try {
+            return value.movePointRight(decimals).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(
+                    "Fee rule " + name + " can have at most " + decimals + " decimals: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.rabobank.bankservice.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.ratelimit.RateLimitPolicy;
+import com.rabobank.bankservice.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket per authenticated user and endpoint, so one client can't hold all database connections
+ * with a flood of requests. Runs after Spring Security, like {@link UserContextFilter}; requests without
+ * a user (actuator, h2-console) aren't limited. GET and HEAD requests take from the {@code read} buckets,
+ * all others from the stricter {@code write} buckets. A request over the limit is answered with
+ * {@code 429 Too Many Requests} and a {@code Retry-After} header.
+ * <p>
+ * Endpoints are the API's {@link #ROUTES}; requests to any other path share one {@link #OTHER} bucket per
+ * user with the {@code write} limits, so made-up paths can't grow the buckets or the metric's tags.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true")
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String REJECTED_METRIC = "http.rate_limit.rejected";
+    static final String OTHER = "other";
+    static final Set<String> ROUTES = Set.of(
+            "GET /api/accounts/",
+            "GET /api/accounts/{id}/transactions",
+            "GET /api/accounts/{id}/daily-totals",
+            "POST /api/accounts/withdraw",
+            "POST /api/accounts/transfer",
+            "POST /api/accounts/transfers/batch");
+    private static final String ID_SEGMENT = "{id}";
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitPolicy readPolicy;
+    private final RateLimitPolicy writePolicy;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    RateLimitFilter(ObjectMapper objectMapper,
+                    MeterRegistry meterRegistry,
+                    @Value("${rate-limit.read.capacity:100}") int readCapacity,
+                    @Value("${rate-limit.read.refill-per-second:50}") double readRefillPerSecond,
+                    @Value("${rate-limit.write.capacity:20}") int writeCapacity,
+                    @Value("${rate-limit.write.refill-per-second:10}") double writeRefillPerSecond,
+                    @Value("${rate-limit.max-buckets:100000}") int maxBuckets) {
+        this(new RateLimiter(maxBuckets, System::nanoTime), new RateLimitPolicy(readCapacity, readRefillPerSecond),
+                new RateLimitPolicy(writeCapacity, writeRefillPerSecond), objectMapper, meterRegistry);
+    }
+
+    RateLimitFilter(RateLimiter rateLimiter,
+                    RateLimitPolicy readPolicy,
+                    RateLimitPolicy writePolicy,
+                    ObjectMapper objectMapper,
+                    MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.readPolicy = readPolicy;
+        this.writePolicy = writePolicy;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String method = request.getMethod();
+        String endpoint = endpoint(method, request.getRequestURI());
+        RateLimitPolicy policy = !OTHER.equals(endpoint) && ("GET".equals(method) || "HEAD".equals(method))
+                ? readPolicy : writePolicy;
+        long waitNanos = rateLimiter.tryAcquire(authentication.getName(), endpoint, policy);
+        if (waitNanos > 0) {
+            reject(response, endpoint, waitNanos);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval:PT1M}")
+    public void evictIdle() {
+        rateLimiter.evictIdle();
+    }
+
+    private void reject(HttpServletResponse response, String endpoint, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        Counter.builder(REJECTED_METRIC)
+                .description("Requests rejected by the per-user rate limit")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .increment();
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("timestamp", Instant.now());
+        errorResponse.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        errorResponse.put("error", "Too Many Requests");
+        errorResponse.put("message", (OTHER.equals(endpoint) ? "Rate limit" : "Rate limit of " + endpoint)
+                + " exceeded, retry after " + retryAfterSeconds + "s");
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    /**
+     * The route of the request, {@link #OTHER} if it matches none. Numeric path segments match {@code {id}},
+     * so all accounts share one bucket per route instead of every id getting a fresh one.
+     */
+    static String endpoint(String method, String path) {
+        //HEAD is served by the GET mappings
+        String endpoint = withIdSegments("HEAD".equals(method) ? "GET" : method, path);
+        return ROUTES.contains(endpoint) ? endpoint : OTHER;
+    }
+
+    private static String withIdSegments(String method, String path) {
+        StringBuilder endpoint = new StringBuilder(method.length() + 1 + path.length()).append(method).append(' ');
+        int start = 0;
+        while (start < path.length()) {
+            int end = path.indexOf('/', start + 1);
+            if (end < 0) {
+                end = path.length();
+            }
+            //segment is path[start..end), starting with its slash
+            if (end - start > 1 && isDigits(path, start + 1, end)) {
+                endpoint.append('/').append(ID_SEGMENT);
+            } else {
+                endpoint.append(path, start, end);
+            }
+            start = end;
+        }
+        return endpoint.toString();
+    }
+
+    private static boolean isDigits(String path, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isDigit(path.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,11 +2,14 @@ package com.rabobank.bankservice.filter;
 
 import com.rabobank.bankservice.entity.User;
 import com.rabobank.bankservice.repository.UserRepository;
+import com.rabobank.bankservice.security.AuthenticatedUser;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -15,6 +18,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserContextFilter extends OncePerRequestFilter {
 
     private final UserRepository userRepository;
@@ -32,10 +36,18 @@ public class UserContextFilter extends OncePerRequestFilter {
 
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-        if (authentication != null && authentication.isAuthenticated()) {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+        //permitAll endpoints (h2-console, actuator) run with an anonymous token that has no backing user
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            User user;
+            if (authentication.getPrincipal() instanceof AuthenticatedUser authenticatedUser) {
+                //identity was already loaded during authentication, no need to query again
+                user = authenticatedUser.toUser();
+            } else {
+                String email = authentication.getName();
+                user = userRepository.findByEmail(email)
+                        .orElseThrow(() -> new RuntimeException("User not found"));
+            }
 
             request.setAttribute("currentUser", user);
         }
@@ -0,0 +1,262 @@
+package com.rabobank.bankservice.limit;
+
+import com.rabobank.bankservice.error.WithdrawalLimitExceededException;
+import com.rabobank.bankservice.model.Money;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory withdrawal usage per account: the amount withdrawn on the current day and the times of the
+ * latest withdrawals, at most as many as the velocity limit allows. Accounts are spread over striped
+ * maps, each guarded by its own lock, so a check is a constant-time update under a lock that only
+ * accounts of the same stripe share.
+ * <p>
+ * A withdrawal is counted when it is reserved, before it commits, so parallel withdrawals can't pass a
+ * limit together; one that doesn't commit has to {@link #release(Reservation)} its reservation.
+ */
+public class WithdrawalCounters {
+
+    private final Stripe[] stripes;
+    private final Clock clock;
+    private volatile Day currentDay;
+
+    public WithdrawalCounters(int stripeCount, Clock clock) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive: " + stripeCount);
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.clock = clock;
+    }
+
+    /**
+     * Counts the withdrawal if it stays within the policy.
+     *
+     * @param seed loads the usage of an account that has no counters yet; called without a lock held, so it
+     *             may run for the same account on several threads at once, and only the first result is kept
+     * @throws WithdrawalLimitExceededException if the withdrawal would exceed a limit, leaving the counters as they were
+     */
+    public Reservation reserve(Long accountId, long cents, WithdrawalLimitPolicy policy, Seed seed) {
+        long now = clock.millis();
+        LocalDate today = today(now);
+        long windowMillis = policy.window().toMillis();
+        Stripe stripe = stripe(accountId);
+        SeedUsage seeded = null;
+        while (true) {
+            synchronized (stripe) {
+                Usage usage = stripe.usages.get(accountId);
+                if (usage == null && seeded != null) {
+                    usage = new Usage(today, policy.maxPerWindow(), windowMillis);
+                    seeded.applyTo(usage);
+                    stripe.usages.put(accountId, usage);
+                }
+                if (usage != null) {
+                    count(usage, today, now, cents, policy);
+                    return new Reservation(accountId, today, now, cents);
+                }
+            }
+            //the queries run outside the lock, so the stripe's other accounts don't wait on them
+            seeded = seed.load(accountId, today, now - windowMillis);
+        }
+    }
+
+    /**
+     * Takes back a reservation of a withdrawal that didn't happen. Releasing twice has no effect.
+     */
+    public void release(Reservation reservation) {
+        Stripe stripe = stripe(reservation.accountId);
+        synchronized (stripe) {
+            if (reservation.released) {
+                return;
+            }
+            reservation.released = true;
+            Usage usage = stripe.usages.get(reservation.accountId);
+            if (usage == null) {
+                return;
+            }
+            if (usage.day.equals(reservation.day)) {
+                usage.dailyCents -= reservation.cents;
+            }
+            usage.remove(reservation.time);
+        }
+    }
+
+    /**
+     * Drops the usage of accounts without withdrawals today or within their window; they are seeded again on
+     * their next withdrawal.
+     *
+     * @return number of accounts dropped
+     */
+    public int evictIdle() {
+        long now = clock.millis();
+        LocalDate today = today(now);
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                int before = stripe.usages.size();
+                stripe.usages.values().removeIf(usage -> !usage.day.equals(today) && usage.isIdle(now));
+                evicted += before - stripe.usages.size();
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.usages.size();
+            }
+        }
+        return size;
+    }
+
+    private static void count(Usage usage, LocalDate today, long now, long cents, WithdrawalLimitPolicy policy) {
+        if (!usage.day.equals(today)) {
+            usage.day = today;
+            usage.dailyCents = 0;
+        }
+        usage.expire(now - policy.window().toMillis());
+        if (usage.size >= policy.maxPerWindow()) {
+            throw new WithdrawalLimitExceededException(String.format(
+                    "Withdrawal limit of %d per %s reached", policy.maxPerWindow(), policy.window()));
+        }
+        if (usage.dailyCents + cents > policy.dailyCents()) {
+            throw new WithdrawalLimitExceededException(String.format(
+                    "Daily withdrawal limit of %s exceeded. Already withdrawn today: %s",
+                    Money.ofCents(policy.dailyCents()).toBigDecimal(), Money.ofCents(usage.dailyCents).toBigDecimal()));
+        }
+        usage.dailyCents += cents;
+        usage.append(now);
+    }
+
+    /**
+     * Resolving the date through the zone rules costs more than the rest of a check, so it's done once a day.
+     */
+    private LocalDate today(long now) {
+        Day day = currentDay;
+        if (day == null || now < day.startMillis || now >= day.endMillis) {
+            LocalDate date = Instant.ofEpochMilli(now).atZone(clock.getZone()).toLocalDate();
+            day = new Day(date, date.atStartOfDay(clock.getZone()).toInstant().toEpochMilli(),
+                    date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli());
+            currentDay = day;
+        }
+        return day.date;
+    }
+
+    private Stripe stripe(Long accountId) {
+        //spread sequential ids over the stripes
+        int hash = Long.hashCode(accountId) * 0x9E3779B9;
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+
+    private record Day(LocalDate date, long startMillis, long endMillis) {
+    }
+
+    private static final class Stripe {
+        private final Map<Long, Usage> usages = new HashMap<>();
+    }
+
+    /**
+     * Usage of one account. {@code times} is a ring of the latest withdrawal times, oldest at {@code head}.
+     */
+    private static final class Usage {
+        private LocalDate day;
+        private long dailyCents;
+        private final long[] times;
+        private final long windowMillis;
+        private int head;
+        private int size;
+
+        private Usage(LocalDate day, int capacity, long windowMillis) {
+            this.day = day;
+            this.times = new long[capacity];
+            this.windowMillis = windowMillis;
+        }
+
+        private void expire(long cutoff) {
+            while (size > 0 && times[head] <= cutoff) {
+                head = (head + 1) % times.length;
+                size--;
+            }
+        }
+
+        private void append(long time) {
+            if (size == times.length) {
+                //only the latest capacity times can still decide the limit
+                head = (head + 1) % times.length;
+                size--;
+            }
+            times[(head + size) % times.length] = time;
+            size++;
+        }
+
+        private void remove(long time) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (times[(head + i) % times.length] == time) {
+                    for (int j = i; j < size - 1; j++) {
+                        times[(head + j) % times.length] = times[(head + j + 1) % times.length];
+                    }
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        private boolean isIdle(long now) {
+            return size == 0 || times[(head + size - 1) % times.length] <= now - windowMillis;
+        }
+    }
+
+    /**
+     * A counted withdrawal, to be released if it doesn't commit.
+     */
+    public static final class Reservation {
+        private final Long accountId;
+        private final LocalDate day;
+        private final long time;
+        private final long cents;
+        //guarded by the account's stripe
+        private boolean released;
+
+        private Reservation(Long accountId, LocalDate day, long time, long cents) {
+            this.accountId = accountId;
+            this.day = day;
+            this.time = time;
+            this.cents = cents;
+        }
+    }
+
+    /**
+     * Usage recorded before the account got counters.
+     *
+     * @param dailyCents amount withdrawn on the current day
+     * @param times      epoch milliseconds of the withdrawals within the window, oldest first
+     */
+    public record SeedUsage(long dailyCents, long[] times) {
+
+        public static final SeedUsage NONE = new SeedUsage(0, new long[0]);
+
+        private void applyTo(Usage usage) {
+            usage.dailyCents = dailyCents;
+            for (long time : times) {
+                usage.append(time);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Seed {
+
+        /**
+         * @param since epoch milliseconds; withdrawals after it count towards the velocity limit
+         */
+        SeedUsage load(Long accountId, LocalDate day, long since);
+    }
+}
@@ -0,0 +1,17 @@
+package com.rabobank.bankservice.limit;
+
+import java.time.Duration;
+
+/**
+ * Withdrawal limits of one card type: at most {@code dailyCents} withdrawn per calendar day, and at most
+ * {@code maxPerWindow} withdrawals within any {@code window}.
+ */
+public record WithdrawalLimitPolicy(long dailyCents, int maxPerWindow, Duration window) {
+
+    public WithdrawalLimitPolicy {
+        if (dailyCents <= 0 || maxPerWindow <= 0 || window == null || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Withdrawal limits must be positive: " + dailyCents + " cents, "
+                    + maxPerWindow + " per " + window);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.rabobank.bankservice.model;
+
+import com.rabobank.bankservice.entity.CardType;
+
+import java.math.BigDecimal;
+
+/**
+ * Interface projection for the account overview, one row per account of the user.
+ */
+public interface AccountOverview {
+
+    Long getAccountId();
+
+    String getUserName();
+
+    String getUserEmail();
+
+    String getCardNumber();
+
+    CardType getCardType();
+
+    BigDecimal getBalance();
+}
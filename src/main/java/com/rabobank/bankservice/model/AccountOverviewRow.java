@@ -0,0 +1,36 @@
+package com.rabobank.bankservice.model;
+
+import com.rabobank.bankservice.entity.CardType;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * {@link AccountOverview} built in code rather than by a JPA projection, e.g. from an R2DBC row.
+ */
+@Data
+@Builder
+public class AccountOverviewRow implements AccountOverview {
+
+    private Long accountId;
+    private String userName;
+    private String userEmail;
+    private String cardNumber;
+    private CardType cardType;
+    private BigDecimal balance;
+
+    /**
+     * Copy of the row with another balance, e.g. the one held by the balance engine.
+     */
+    public static AccountOverviewRow withBalance(AccountOverview row, BigDecimal balance) {
+        return AccountOverviewRow.builder()
+                .accountId(row.getAccountId())
+                .userName(row.getUserName())
+                .userEmail(row.getUserEmail())
+                .cardNumber(row.getCardNumber())
+                .cardType(row.getCardType())
+                .balance(balance)
+                .build();
+    }
+}
@@ -27,6 +27,26 @@ public interface AccountToUserAccountMapper {
                 .build();
     }
 
+    @Named("overviewToUserAccount")
+    default UserAccount overviewToUserAccount(List<AccountOverview> accounts) {
+        if (accounts == null || accounts.isEmpty()) {
+            return null;
+        }
+
+        AccountOverview firstAccount = accounts.get(0);
+
+        return UserAccount.builder()
+                .userName(firstAccount.getUserName())
+                .userEmail(firstAccount.getUserEmail())
+                .accountDetails(accounts.stream()
+                        .map(this::overviewToAccountDetail)
+                        .toList())
+                .build();
+    }
+
+    @Mapping(source = "balance", target = "currentBalance")
+    AccountDetail overviewToAccountDetail(AccountOverview account);
+
     @Mapping(source = "balance", target = "currentBalance")
     @Mapping(source = "card.cardNumber", target = "cardNumber")
     @Mapping(source = "card.cardType", target = "cardType")
@@ -0,0 +1,15 @@
+package com.rabobank.bankservice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkTransferItemResult {
+
+    private int index;
+    private BulkTransferItemStatus status;
+    private String message;
+}
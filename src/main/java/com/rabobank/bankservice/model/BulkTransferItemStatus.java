@@ -0,0 +1,10 @@
+package com.rabobank.bankservice.model;
+
+public enum BulkTransferItemStatus {
+    APPLIED,
+    REJECTED,
+    /**
+     * Valid on its own, but not settled because the batch or its chunk was rolled back.
+     */
+    NOT_APPLIED
+}
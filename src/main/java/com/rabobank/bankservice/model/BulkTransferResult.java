@@ -0,0 +1,19 @@
+package com.rabobank.bankservice.model;
+
+import com.rabobank.bankservice.model.request.BulkTransferMode;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkTransferResult {
+
+    private BulkTransferMode mode;
+    private long applied;
+    private long rejected;
+    private long notApplied;
+
+    private List<BulkTransferItemResult> results;
+}
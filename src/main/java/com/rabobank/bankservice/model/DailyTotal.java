@@ -0,0 +1,34 @@
+package com.rabobank.bankservice.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.serializer.BigDecimalSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ledger rows of one account, day and type: how many, and the sums of their amounts and fees.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class DailyTotal {
+
+    private LocalDate date;
+    private TransactionType type;
+    private long count;
+
+    @JsonSerialize(using = BigDecimalSerializer.class)
+    private BigDecimal amount;
+
+    @JsonSerialize(using = BigDecimalSerializer.class)
+    private BigDecimal fee;
+
+    public static DailyTotal empty(LocalDate date, TransactionType type) {
+        return new DailyTotal(date, type, 0, BigDecimal.ZERO.setScale(Money.SCALE), BigDecimal.ZERO.setScale(Money.SCALE));
+    }
+}
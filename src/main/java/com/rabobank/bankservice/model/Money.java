@@ -0,0 +1,132 @@
+package com.rabobank.bankservice.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money as a {@code long} of cents, the scale of the {@code DECIMAL(19,2)} columns. Arithmetic
+ * is exact and throws {@link ArithmeticException} on overflow instead of wrapping; the only rounding is in
+ * {@link #of(BigDecimal)} and {@link #multiply(long, long, RoundingMode)}, and it is always explicit.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private static final long CENTS_PER_UNIT = 100;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Amounts with more than two decimals, e.g. from a request body, are rounded half-up to the cent, the
+     * same as the {@code DECIMAL(19,2)} columns and {@code BigDecimalSerializer} do.
+     */
+    public static Money of(BigDecimal amount) {
+        return ofCents(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    public long cents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    /**
+     * This amount times {@code numerator / denominator}, rounded to the cent with the given mode, without
+     * an intermediate {@link BigDecimal}. Used for fee rates, e.g. {@code multiply(10_000, 1_000_000, HALF_UP)}
+     * for one percent.
+     *
+     * @throws ArithmeticException on overflow, or if the mode is {@code UNNECESSARY} and rounding is needed
+     */
+    public Money multiply(long numerator, long denominator, RoundingMode roundingMode) {
+        return ofCents(multiplyCents(cents, numerator, denominator, roundingMode));
+    }
+
+    /**
+     * {@link #multiply(long, long, RoundingMode)} on a plain count of cents, for callers that must not allocate.
+     */
+    public static long multiplyCents(long cents, long numerator, long denominator, RoundingMode roundingMode) {
+        if (denominator <= 0) {
+            throw new IllegalArgumentException("Denominator must be positive: " + denominator);
+        }
+        long product = Math.multiplyExact(cents, numerator);
+        long quotient = product / denominator;
+        long remainder = Math.abs(product % denominator);
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = product < 0 ? -1 : 1;
+        //compares the remainder with half the denominator without overflowing
+        int half = Long.compare(remainder, denominator - remainder);
+        boolean awayFromZero = switch (roundingMode) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> sign > 0;
+            case FLOOR -> sign < 0;
+            case HALF_UP -> half >= 0;
+            case HALF_DOWN -> half > 0;
+            case HALF_EVEN -> half > 0 || (half == 0 && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+        return awayFromZero ? quotient + sign : quotient;
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money money && money.cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * Plain decimal with two digits, e.g. {@code -12.05}, the same text as {@link #toBigDecimal()}.
+     */
+    @Override
+    public String toString() {
+        long units = Math.abs(cents / CENTS_PER_UNIT);
+        long fraction = Math.abs(cents % CENTS_PER_UNIT);
+        return (cents < 0 ? "-" : "") + units + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
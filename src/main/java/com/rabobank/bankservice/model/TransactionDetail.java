@@ -0,0 +1,35 @@
+package com.rabobank.bankservice.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.serializer.BigDecimalSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class TransactionDetail {
+
+    private Long id;
+    private TransactionType type;
+
+    @JsonSerialize(using = BigDecimalSerializer.class)
+    private BigDecimal amount;
+
+    @JsonSerialize(using = BigDecimalSerializer.class)
+    private BigDecimal calculatedFee;
+
+    private LocalDateTime timestamp;
+
+    /**
+     * Constructor expression of the history queries, which read the ledger columns as {@link Money}.
+     */
+    public TransactionDetail(Long id, TransactionType type, Money amount, Money calculatedFee, LocalDateTime timestamp) {
+        this(id, type, amount.toBigDecimal(), calculatedFee.toBigDecimal(), timestamp);
+    }
+}
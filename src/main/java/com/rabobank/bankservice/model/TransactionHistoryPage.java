@@ -0,0 +1,18 @@
+package com.rabobank.bankservice.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class TransactionHistoryPage {
+
+    private List<TransactionDetail> transactions;
+
+    /**
+     * Opaque cursor for the next page, {@code null} on the last page.
+     */
+    private String nextCursor;
+}
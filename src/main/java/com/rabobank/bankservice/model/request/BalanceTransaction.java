@@ -1,9 +1,14 @@
 package com.rabobank.bankservice.model.request;
 
+import com.rabobank.bankservice.entity.TransactionType;
+
 import java.math.BigDecimal;
 
 public interface BalanceTransaction {
 
     BigDecimal getAmount();
 
+    //not a bean property, so it stays out of the JSON body
+    TransactionType transactionType();
+
 }
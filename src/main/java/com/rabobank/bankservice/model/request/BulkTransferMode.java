@@ -0,0 +1,12 @@
+package com.rabobank.bankservice.model.request;
+
+public enum BulkTransferMode {
+    /**
+     * Any rejected transfer rolls back the whole batch.
+     */
+    ALL_OR_NOTHING,
+    /**
+     * Rejected transfers are skipped, the rest are settled.
+     */
+    BEST_EFFORT
+}
@@ -0,0 +1,22 @@
+package com.rabobank.bankservice.model.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkTransferRequest {
+
+    public static final int MAX_TRANSFERS = 10_000;
+
+    @NotEmpty(message = "At least one transfer is required")
+    @Size(max = MAX_TRANSFERS, message = "At most " + MAX_TRANSFERS + " transfers per batch")
+    private List<@Valid @NotNull TransferTransaction> transfers;
+
+    @NotNull(message = "Mode is required")
+    private BulkTransferMode mode = BulkTransferMode.ALL_OR_NOTHING;
+}
@@ -1,5 +1,7 @@
 package com.rabobank.bankservice.model.request;
 
+import com.rabobank.bankservice.entity.TransactionType;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.Data;
@@ -17,5 +19,12 @@ public class TransferTransaction implements BalanceTransaction {
 
     @NotNull(message = "Amount is required")
     @Positive(message = "Transfer amount must be positive")
+    //whole cents that fit the long of Money and the DECIMAL(19,2) columns
+    @Digits(integer = 16, fraction = 2, message = "Amount must have at most 16 digits and 2 decimals")
     private BigDecimal amount;
+
+    @Override
+    public TransactionType transactionType() {
+        return TransactionType.TRANSFER;
+    }
 }
@@ -0,0 +1,35 @@
+package com.rabobank.bankservice.outbox;
+
+import com.rabobank.bankservice.event.AccountTransactionEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes each event as a Spring application event. Listeners run on the relay thread, so a slow
+ * listener slows the relay down instead of events piling up in memory.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink.in-process.enabled", havingValue = "true", matchIfMissing = true)
+public class InProcessOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    InProcessOutboxSink(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public String name() {
+        return "in-process";
+    }
+
+    @Override
+    public void publish(List<AccountTransactionEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,142 @@
+package com.rabobank.bankservice.outbox;
+
+import com.rabobank.bankservice.entity.OutboxEvent;
+import com.rabobank.bankservice.event.AccountTransactionEvent;
+import com.rabobank.bankservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Drains the outbox to every {@link OutboxSink}, oldest events first. Events are deleted only after all
+ * sinks accepted them, which makes delivery at-least-once. The relay pulls at most
+ * {@code max-batches-per-run} batches per run and sinks are called synchronously, so a slow sink slows
+ * the drain down and events wait in the table rather than in memory; a failing sink is retried with
+ * exponential backoff.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    static final String PUBLISHED_METRIC = "outbox.published";
+    static final String FAILURES_METRIC = "outbox.delivery.failures";
+    static final String LAG_METRIC = "outbox.lag";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final MeterRegistry meterRegistry;
+
+    private int consecutiveFailures;
+    private long retryAtNanos;
+    private volatile double lagSeconds;
+
+    @Autowired
+    OutboxRelay(OutboxEventRepository outboxEventRepository,
+                ObjectProvider<OutboxSink> sinks,
+                PlatformTransactionManager transactionManager,
+                @Value("${outbox.relay.batch-size:500}") int batchSize,
+                @Value("${outbox.relay.max-batches-per-run:20}") int maxBatchesPerRun,
+                @Value("${outbox.relay.initial-backoff:1s}") Duration initialBackoff,
+                @Value("${outbox.relay.max-backoff:60s}") Duration maxBackoff,
+                MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sinks = sinks.orderedStream().toList();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder(LAG_METRIC, this, relay -> relay.lagSeconds)
+                .description("Age of the oldest event not yet delivered to every sink")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval:500ms}")
+    public void relay() {
+        drain();
+    }
+
+    /**
+     * @return number of events delivered to every sink and removed from the outbox
+     */
+    public synchronized int drain() {
+        if (consecutiveFailures > 0 && System.nanoTime() - retryAtNanos < 0) {
+            return 0;
+        }
+        int delivered = 0;
+        try {
+            for (int run = 0; run < maxBatchesPerRun; run++) {
+                List<OutboxEvent> batch = outboxEventRepository.findAllByOrderByIdAsc(Limit.of(batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                List<AccountTransactionEvent> events = batch.stream().map(AccountTransactionEvent::from).toList();
+                if (!publish(events)) {
+                    return delivered;
+                }
+                List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+                transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteByIdIn(ids));
+                delivered += batch.size();
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+            consecutiveFailures = 0;
+            return delivered;
+        } finally {
+            updateLag();
+        }
+    }
+
+    private boolean publish(List<AccountTransactionEvent> events) {
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.publish(events);
+            } catch (Exception e) {
+                meterRegistry.counter(FAILURES_METRIC, "sink", sink.name()).increment();
+                scheduleRetry();
+                log.warn("Outbox sink {} failed, retrying {} events in {} ms",
+                        sink.name(), events.size(), (retryAtNanos - System.nanoTime()) / 1_000_000, e);
+                return false;
+            }
+            meterRegistry.counter(PUBLISHED_METRIC, "sink", sink.name()).increment(events.size());
+        }
+        return true;
+    }
+
+    private void scheduleRetry() {
+        consecutiveFailures++;
+        long backoff = initialBackoffNanos << Math.min(consecutiveFailures - 1, 20);
+        retryAtNanos = System.nanoTime() + Math.min(backoff, maxBackoffNanos);
+    }
+
+    private void updateLag() {
+        lagSeconds = outboxEventRepository.findOldestCreatedAt()
+                .map(oldest -> Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0)
+                .orElse(0.0);
+    }
+}
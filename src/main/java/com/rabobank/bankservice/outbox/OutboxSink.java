@@ -0,0 +1,19 @@
+package com.rabobank.bankservice.outbox;
+
+import com.rabobank.bankservice.event.AccountTransactionEvent;
+
+import java.util.List;
+
+/**
+ * Destination for outbox events. {@link OutboxRelay} hands every sink the same batch and only deletes
+ * the events once all sinks returned normally, so a sink may see a batch again after a failure.
+ */
+public interface OutboxSink {
+
+    String name();
+
+    /**
+     * Delivers the batch, in id order. Throwing makes the relay back off and retry the whole batch.
+     */
+    void publish(List<AccountTransactionEvent> events) throws Exception;
+}
@@ -0,0 +1,21 @@
+package com.rabobank.bankservice.ratelimit;
+
+/**
+ * Token bucket of {@code capacity} tokens, refilled at {@code refillPerSecond}; a request takes one token.
+ */
+public record RateLimitPolicy(int capacity, double refillPerSecond) {
+
+    public RateLimitPolicy {
+        if (capacity <= 0 || !(refillPerSecond > 0)) {
+            throw new IllegalArgumentException("Rate limit must be positive: " + capacity + " tokens, "
+                    + refillPerSecond + " per second");
+        }
+    }
+
+    /**
+     * Time in which one token is refilled.
+     */
+    long intervalNanos() {
+        return Math.max(1, Math.round(1_000_000_000d / refillPerSecond));
+    }
+}
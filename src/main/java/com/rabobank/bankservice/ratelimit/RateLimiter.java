@@ -0,0 +1,89 @@
+package com.rabobank.bankservice.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per client and endpoint. A bucket is a single {@link AtomicLong} holding the time at which
+ * it will be full again (the GCRA form of a token bucket): taking a token moves that time one refill
+ * interval ahead, which is allowed while it stays within {@code capacity} intervals of now. A request is
+ * one lookup and one compare-and-set, without locks.
+ * <p>
+ * A bucket whose full time has passed holds nothing a new bucket wouldn't, so {@link #evictIdle()} drops
+ * those. Besides on a schedule it runs before a bucket is added to {@code maxBuckets} existing ones, so
+ * only clients that are actually being throttled can keep the map above that size.
+ */
+public class RateLimiter {
+
+    private final Map<Key, Bucket> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+    private final int maxBuckets;
+
+    public RateLimiter(int maxBuckets, LongSupplier nanoClock) {
+        this.maxBuckets = maxBuckets;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes a token from the client's bucket of the endpoint.
+     *
+     * @return 0 if the request may go on, otherwise the nanoseconds until the bucket has a token again
+     */
+    public long tryAcquire(String client, String endpoint, RateLimitPolicy policy) {
+        long now = nanoClock.getAsLong();
+        Key key = new Key(client, endpoint);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = newBucket(key, now);
+        }
+        long interval = policy.intervalNanos();
+        long tolerance = interval * policy.capacity();
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops the buckets that are full again.
+     *
+     * @return number of buckets dropped
+     */
+    public int evictIdle() {
+        long now = nanoClock.getAsLong();
+        int before = buckets.size();
+        //a token taken between the check and the removal is forgotten, which at most grants one request more
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private Bucket newBucket(Key key, long now) {
+        if (buckets.size() >= maxBuckets) {
+            evictIdle();
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket(now));
+    }
+
+    private record Key(String client, String endpoint) {
+    }
+
+    private static final class Bucket extends AtomicLong {
+
+        private Bucket(long fullAt) {
+            super(fullAt);
+        }
+    }
+}
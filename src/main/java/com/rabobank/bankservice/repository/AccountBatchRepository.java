@@ -0,0 +1,28 @@
+package com.rabobank.bankservice.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+public interface AccountBatchRepository {
+
+    /**
+     * Reads current balances straight from the table, bypassing any stale entities in the persistence context.
+     */
+    Map<Long, BigDecimal> findBalancesByIdIn(Collection<Long> ids);
+
+    /**
+     * Adds each delta to its account in one JDBC batch. A delta that would take the balance below zero
+     * is not applied; the ids of those accounts (or of missing accounts) are returned.
+     */
+    List<Long> applyBalanceDeltas(SortedMap<Long, BigDecimal> deltas);
+
+    /**
+     * Adds each delta to its account in one JDBC batch, without any balance check.
+     *
+     * @return the ids of accounts that do not exist
+     */
+    List<Long> addBalanceDeltas(SortedMap<Long, BigDecimal> deltas);
+}
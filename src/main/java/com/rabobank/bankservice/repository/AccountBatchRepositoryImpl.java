@@ -0,0 +1,73 @@
+package com.rabobank.bankservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.BiFunction;
+
+class AccountBatchRepositoryImpl implements AccountBatchRepository {
+
+    private static final String SELECT_BALANCES = "select id, balance from accounts where id in (:ids)";
+    private static final String APPLY_DELTA =
+            "update accounts set balance = balance + ?, version = version + 1 where id = ? and balance + ? >= 0";
+    private static final String ADD_DELTA = "update accounts set balance = balance + ?, version = version + 1 where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    AccountBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    public Map<Long, BigDecimal> findBalancesByIdIn(Collection<Long> ids) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_BALANCES, new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    balances.put(rs.getLong("id"), rs.getBigDecimal("balance"));
+                });
+        return balances;
+    }
+
+    @Override
+    public List<Long> applyBalanceDeltas(SortedMap<Long, BigDecimal> deltas) {
+        //ascending id order, same as single transfers, so concurrent batches can't deadlock each other
+        return batchUpdate(APPLY_DELTA, deltas, (id, delta) -> new Object[]{delta, id, delta});
+    }
+
+    @Override
+    public List<Long> addBalanceDeltas(SortedMap<Long, BigDecimal> deltas) {
+        return batchUpdate(ADD_DELTA, deltas, (id, delta) -> new Object[]{delta, id});
+    }
+
+    /**
+     * @return the ids whose update matched no row
+     */
+    private List<Long> batchUpdate(String sql, SortedMap<Long, BigDecimal> deltas,
+                                   BiFunction<Long, BigDecimal, Object[]> toArguments) {
+        List<Long> ids = new ArrayList<>(deltas.keySet());
+        List<Object[]> arguments = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            arguments.add(toArguments.apply(id, deltas.get(id)));
+        }
+
+        int[] updateCounts = jdbcTemplate.batchUpdate(sql, arguments);
+
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                rejected.add(ids.get(i));
+            }
+        }
+        return rejected;
+    }
+}
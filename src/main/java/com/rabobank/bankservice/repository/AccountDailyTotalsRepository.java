@@ -0,0 +1,116 @@
+package com.rabobank.bankservice.repository;
+
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.model.DailyTotal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.BatchUpdateException;
+import java.sql.Date;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The {@code account_daily_totals} rollup. Rows are only ever incremented, by one batched MERGE per ledger write.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AccountDailyTotalsRepository {
+
+    private static final String MERGE_DELTA = "merge into account_daily_totals t " +
+            "using (values (cast(? as bigint), cast(? as date), cast(? as varchar(20)), cast(? as bigint), " +
+            "cast(? as decimal(19,2)), cast(? as decimal(19,2)))) " +
+            "s (account_id, ledger_date, type, transaction_count, amount, fee) " +
+            "on t.account_id = s.account_id and t.ledger_date = s.ledger_date and t.type = s.type " +
+            "when matched then update set transaction_count = t.transaction_count + s.transaction_count, " +
+            "amount = t.amount + s.amount, fee = t.fee + s.fee " +
+            "when not matched then insert (account_id, ledger_date, type, transaction_count, amount, fee) " +
+            "values (s.account_id, s.ledger_date, s.type, s.transaction_count, s.amount, s.fee)";
+    private static final String SELECT_DAY = "select ledger_date, type, transaction_count, amount, fee " +
+            "from account_daily_totals where account_id = ? and ledger_date = ?";
+    private static final String SELECT_ACCOUNT_IDS = "select id from accounts where id > ? order by id limit ?";
+    private static final String LOCK_ACCOUNT = "select id from accounts where id = ? for update";
+    private static final String DELETE_ACCOUNT = "delete from account_daily_totals where account_id = ?";
+    private static final String INSERT_FROM_LEDGER = "insert into account_daily_totals " +
+            "(account_id, ledger_date, type, transaction_count, amount, fee) " +
+            "select account_id, cast(timestamp as date), type, count(*), sum(amount), sum(calculated_fee) " +
+            "from transactions where account_id = ? group by account_id, cast(timestamp as date), type";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    AccountDailyTotalsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void add(Collection<Delta> deltas) {
+        List<Object[]> rows = deltas.stream()
+                .map(delta -> new Object[]{delta.accountId(), Date.valueOf(delta.date()), delta.type().name(),
+                        delta.count(), delta.amount(), delta.fee()})
+                .toList();
+        try {
+            jdbcTemplate.batchUpdate(MERGE_DELTA, rows);
+        } catch (DuplicateKeyException e) {
+            //a concurrent transaction inserted the same first row of the day and has committed by now, so the
+            //failed rows match this time; only the failed statements were rolled back, not the transaction
+            jdbcTemplate.batchUpdate(MERGE_DELTA, failedRows(rows, e));
+        }
+    }
+
+    private static List<Object[]> failedRows(List<Object[]> rows, DuplicateKeyException e) {
+        if (!(e.getCause() instanceof BatchUpdateException batch)) {
+            if (rows.size() == 1) {
+                return rows;
+            }
+            throw e;
+        }
+        //drivers either stop at the first failure or mark each failed statement
+        int[] updateCounts = batch.getUpdateCounts();
+        List<Object[]> failed = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (i >= updateCounts.length || updateCounts[i] == Statement.EXECUTE_FAILED) {
+                failed.add(rows.get(i));
+            }
+        }
+        return failed;
+    }
+
+    public List<DailyTotal> findByAccountIdAndDate(Long accountId, LocalDate date) {
+        return jdbcTemplate.query(SELECT_DAY, (rs, rowNum) -> new DailyTotal(
+                rs.getDate("ledger_date").toLocalDate(),
+                TransactionType.valueOf(rs.getString("type")),
+                rs.getLong("transaction_count"),
+                rs.getBigDecimal("amount"),
+                rs.getBigDecimal("fee")), accountId, Date.valueOf(date));
+    }
+
+    public List<Long> findAccountIdsAfter(long afterId, int limit) {
+        return jdbcTemplate.queryForList(SELECT_ACCOUNT_IDS, Long.class, afterId, limit);
+    }
+
+    /**
+     * Recomputes the account's rows from {@code transactions}. Must run in a transaction; the account row is
+     * locked first, so balance changes of the account, and with them its ledger inserts, wait until it commits.
+     *
+     * @return number of rows written
+     */
+    public int rebuild(Long accountId) {
+        jdbcTemplate.queryForList(LOCK_ACCOUNT, Long.class, accountId);
+        jdbcTemplate.update(DELETE_ACCOUNT, accountId);
+        return jdbcTemplate.update(INSERT_FROM_LEDGER, accountId);
+    }
+
+    /**
+     * Change of one rollup row, summed over the ledger rows of a write.
+     */
+    public record Delta(Long accountId, LocalDate date, TransactionType type, long count, BigDecimal amount,
+                        BigDecimal fee) {
+    }
+}
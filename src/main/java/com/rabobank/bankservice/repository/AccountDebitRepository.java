@@ -0,0 +1,19 @@
+package com.rabobank.bankservice.repository;
+
+import com.rabobank.bankservice.model.Money;
+
+import java.util.Optional;
+
+public interface AccountDebitRepository {
+
+    /**
+     * Subtracts the amount only if the balance covers it, reading the new balance back from the same UPDATE.
+     * <p>
+     * The statement uses H2's {@code FINAL TABLE}, so this only runs on H2, the application's only database.
+     * Pending changes are flushed first and the account, with its card, is detached afterwards, as its loaded
+     * balance and version are stale; other entities of the persistence context stay managed.
+     *
+     * @return the balance after the debit, empty if the account does not exist or the balance is insufficient
+     */
+    Optional<Money> debit(Long id, Money amount);
+}
@@ -0,0 +1,33 @@
+package com.rabobank.bankservice.repository;
+
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.model.Money;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+class AccountDebitRepositoryImpl implements AccountDebitRepository {
+
+    //H2 data change delta table: the rows as the UPDATE left them, so no second select for the balance
+    private static final String DEBIT = "select balance from final table (update accounts " +
+            "set balance = balance - ?1, version = version + 1 where id = ?2 and balance >= ?1)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Money> debit(Long id, Money amount) {
+        //pending writes go first, as with @Modifying(flushAutomatically = true)
+        entityManager.flush();
+        List<?> balances = entityManager.createNativeQuery(DEBIT, BigDecimal.class)
+                .setParameter(1, amount.toBigDecimal())
+                .setParameter(2, id)
+                .getResultList();
+        //only the debited account is stale now; a reference doesn't load it if it isn't managed
+        entityManager.detach(entityManager.getReference(Account.class, id));
+        return balances.stream().findFirst().map(BigDecimal.class::cast).map(Money::of);
+    }
+}
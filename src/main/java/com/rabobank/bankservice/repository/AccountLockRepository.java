@@ -0,0 +1,14 @@
+package com.rabobank.bankservice.repository;
+
+import com.rabobank.bankservice.entity.Account;
+
+import java.util.Optional;
+
+public interface AccountLockRepository {
+
+    /**
+     * Loads the account with {@code SELECT ... FOR UPDATE}, waiting at most the configured lock timeout.
+     * The user and card are fetched in the same statement.
+     */
+    Optional<Account> findByIdForUpdate(Long id);
+}
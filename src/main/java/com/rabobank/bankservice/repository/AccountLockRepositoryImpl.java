@@ -0,0 +1,71 @@
+package com.rabobank.bankservice.repository;
+
+import com.rabobank.bankservice.entity.Account;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+class AccountLockRepositoryImpl implements AccountLockRepository {
+
+    private static final String FETCH_GRAPH_HINT = "jakarta.persistence.fetchgraph";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final long lockTimeoutMillis;
+
+    AccountLockRepositoryImpl(@Value("${account.concurrency.lock-timeout:5s}") Duration lockTimeout) {
+        this.lockTimeoutMillis = lockTimeout.toMillis();
+    }
+
+    @Override
+    public Optional<Account> findByIdForUpdate(Long id) {
+        EntityGraph<Account> userAndCard = entityManager.createEntityGraph(Account.class);
+        userAndCard.addAttributeNodes("user", "card");
+        //H2 ignores jakarta.persistence.lock.timeout, so the session's LOCK_TIMEOUT is set for this select only
+        long previousTimeout = setLockTimeout(lockTimeoutMillis);
+        Account account;
+        try {
+            account = entityManager.find(Account.class, id, LockModeType.PESSIMISTIC_WRITE,
+                    Map.of(FETCH_GRAPH_HINT, userAndCard));
+        } catch (RuntimeException e) {
+            //after a lock timeout the pool has already closed the connection, so this may fail too
+            try {
+                setLockTimeout(previousTimeout);
+            } catch (RuntimeException restoreFailure) {
+                e.addSuppressed(restoreFailure);
+            }
+            throw e;
+        }
+        setLockTimeout(previousTimeout);
+        return Optional.ofNullable(account);
+    }
+
+    /**
+     * @return the lock timeout the session had before
+     */
+    private long setLockTimeout(long millis) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                long previous;
+                try (ResultSet resultSet = statement.executeQuery("call lock_timeout()")) {
+                    resultSet.next();
+                    previous = resultSet.getLong(1);
+                }
+                if (previous != millis) {
+                    statement.execute("set lock_timeout " + millis);
+                }
+                return previous;
+            }
+        });
+    }
+}
@@ -1,14 +1,49 @@
 package com.rabobank.bankservice.repository;
 
 import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.model.AccountOverview;
+import com.rabobank.bankservice.model.Money;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountLockRepository,
+        AccountBatchRepository, AccountDebitRepository {
 
-    Optional<List<Account>> findAllByUserId(Long userId);
+    /**
+     * Write paths read the user (ownership check) and card (fee) of the account, so fetch both in the same select.
+     */
+    @Override
+    @EntityGraph(attributePaths = {"user", "card"})
+    Optional<Account> findById(Long id);
+
+    /**
+     * Read-only overview rows straight from one join; no entities are hydrated. The balance is cast so the
+     * row carries the column's {@code BigDecimal} rather than the converted {@link Money}.
+     */
+    @Query("select a.id as accountId, u.name as userName, u.email as userEmail, c.cardNumber as cardNumber, " +
+            "c.cardType as cardType, cast(a.balance as BigDecimal) as balance " +
+            "from Account a join a.user u join a.card c where u.id = :userId order by a.id")
+    List<AccountOverview> findOverviewByUserId(@Param("userId") Long userId);
+
+    @EntityGraph(attributePaths = {"user", "card"})
+    List<Account> findAllByIdIn(Collection<Long> ids);
+
+    @Query("select a.balance from Account a where a.id = :id")
+    Optional<Money> findBalanceById(@Param("id") Long id);
+
+    /**
+     * @return 1 if the account was credited, 0 if it does not exist
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1 where a.id = :id")
+    int credit(@Param("id") Long id, @Param("amount") Money amount);
 }
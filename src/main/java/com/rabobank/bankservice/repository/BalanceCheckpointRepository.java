@@ -0,0 +1,59 @@
+package com.rabobank.bankservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * LSN of the last balance mutation log frame whose deltas are in the {@code accounts} table, and the
+ * LSNs of the committed frames after it.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BalanceCheckpointRepository {
+
+    private static final String SELECT_LSN = "select lsn from balance_engine_checkpoint where id = 1";
+    private static final String MERGE_LSN = "merge into balance_engine_checkpoint (id, lsn) key (id) values (1, ?)";
+    private static final String INSERT_COMMITTED_LSN = "insert into balance_engine_commits (lsn) values (?)";
+    private static final String SELECT_COMMITTED_LSNS = "select lsn from balance_engine_commits where lsn > ?";
+    private static final String DELETE_COMMITTED_LSNS = "delete from balance_engine_commits where lsn <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    BalanceCheckpointRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the checkpointed LSN, 0 if nothing was checkpointed yet
+     */
+    public long findLsn() {
+        return jdbcTemplate.query(SELECT_LSN, (rs, rowNum) -> rs.getLong("lsn")).stream()
+                .findFirst()
+                .orElse(0L);
+    }
+
+    /**
+     * Also forgets the committed LSNs up to it, which the checkpoint covers.
+     */
+    public void saveLsn(long lsn) {
+        jdbcTemplate.update(MERGE_LSN, lsn);
+        jdbcTemplate.update(DELETE_COMMITTED_LSNS, lsn);
+    }
+
+    /**
+     * Records that the frame's transaction commits; call it inside that transaction.
+     */
+    public void saveCommittedLsn(long lsn) {
+        jdbcTemplate.update(INSERT_COMMITTED_LSN, lsn);
+    }
+
+    public Set<Long> findCommittedLsnsAfter(long lsn) {
+        return new HashSet<>(jdbcTemplate.queryForList(SELECT_COMMITTED_LSNS, Long.class, lsn));
+    }
+}
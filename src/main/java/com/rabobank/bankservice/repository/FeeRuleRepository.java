@@ -0,0 +1,40 @@
+package com.rabobank.bankservice.repository;
+
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.fee.FeeRule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * The {@code fee_rules} table, read as a whole whenever the fee schedule is (re)compiled.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class FeeRuleRepository {
+
+    private static final String SELECT_RULES = "select card_type, transaction_type, amount_from, flat_fee, rate, " +
+            "min_fee, max_fee from fee_rules order by card_type, transaction_type, amount_from";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    FeeRuleRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<FeeRule> findAll() {
+        return jdbcTemplate.query(SELECT_RULES, (rs, rowNum) -> new FeeRule(
+                CardType.valueOf(rs.getString("card_type")),
+                TransactionType.valueOf(rs.getString("transaction_type")),
+                rs.getBigDecimal("amount_from"),
+                rs.getBigDecimal("flat_fee"),
+                rs.getBigDecimal("rate"),
+                rs.getBigDecimal("min_fee"),
+                rs.getBigDecimal("max_fee")));
+    }
+}
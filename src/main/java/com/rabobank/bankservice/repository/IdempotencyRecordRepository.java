@@ -0,0 +1,28 @@
+package com.rabobank.bankservice.repository;
+
+import com.rabobank.bankservice.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKeyAndCreatedAtAfter(Long userId,
+                                                                               String idempotencyKey,
+                                                                               LocalDateTime createdAfter);
+
+    /**
+     * Bulk delete without loading the rows first.
+     *
+     * @return number of expired keys removed
+     */
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
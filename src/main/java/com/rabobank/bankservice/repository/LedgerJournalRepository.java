@@ -0,0 +1,25 @@
+package com.rabobank.bankservice.repository;
+
+import com.rabobank.bankservice.entity.LedgerJournalEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LedgerJournalRepository extends JpaRepository<LedgerJournalEntry, Long> {
+
+    List<LedgerJournalEntry> findAllByOrderByIdAsc(Limit limit);
+
+    /**
+     * Bulk delete of materialized entries, without loading them again.
+     */
+    @Modifying
+    @Query("delete from LedgerJournalEntry e where e.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,159 @@
+package com.rabobank.bankservice.repository;
+
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.Card;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.AccountOverview;
+import com.rabobank.bankservice.model.AccountOverviewRow;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC queries for the reactive account API. Mirrors the JPA queries of {@link AccountRepository}
+ * that the servlet stack runs in atomic mode, mapped onto the same entity classes.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountRepository {
+
+    private static final String SELECT_ACCOUNT = "select a.id, a.balance, a.version, " +
+            "u.id as user_id, u.name as user_name, u.email as user_email, " +
+            "c.id as card_id, c.card_type, c.card_number " +
+            "from accounts a join users u on u.id = a.user_id join cards c on c.id = a.card_id ";
+
+    //same MERGE as AccountDailyTotalsRepository, with named parameters for the DatabaseClient
+    private static final String MERGE_DAILY_TOTAL = "merge into account_daily_totals t " +
+            "using (values (cast(:accountId as bigint), cast(:ledgerDate as date), cast(:type as varchar(20)), " +
+            "cast(1 as bigint), cast(:amount as decimal(19,2)), cast(:fee as decimal(19,2)))) " +
+            "s (account_id, ledger_date, type, transaction_count, amount, fee) " +
+            "on t.account_id = s.account_id and t.ledger_date = s.ledger_date and t.type = s.type " +
+            "when matched then update set transaction_count = t.transaction_count + s.transaction_count, " +
+            "amount = t.amount + s.amount, fee = t.fee + s.fee " +
+            "when not matched then insert (account_id, ledger_date, type, transaction_count, amount, fee) " +
+            "values (s.account_id, s.ledger_date, s.type, s.transaction_count, s.amount, s.fee)";
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    ReactiveAccountRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Account> findById(Long id) {
+        return databaseClient.sql(SELECT_ACCOUNT + "where a.id = :id")
+                .bind("id", id)
+                .map(ReactiveAccountRepository::toAccount)
+                .one();
+    }
+
+    public Flux<AccountOverview> findOverviewByUserId(Long userId) {
+        return databaseClient.sql(SELECT_ACCOUNT + "where u.id = :userId order by a.id")
+                .bind("userId", userId)
+                .map(row -> (AccountOverview) AccountOverviewRow.builder()
+                        .accountId(row.get("id", Long.class))
+                        .userName(row.get("user_name", String.class))
+                        .userEmail(row.get("user_email", String.class))
+                        .cardNumber(row.get("card_number", String.class))
+                        .cardType(CardType.valueOf(row.get("card_type", String.class)))
+                        .balance(row.get("balance", BigDecimal.class))
+                        .build())
+                .all();
+    }
+
+    public Mono<BigDecimal> findBalanceById(Long id) {
+        return databaseClient.sql("select balance from accounts where id = :id")
+                .bind("id", id)
+                .map(row -> row.get("balance", BigDecimal.class))
+                .one();
+    }
+
+    /**
+     * Subtracts the amount only if the balance covers it.
+     *
+     * @return 1 if the account was debited, 0 if it does not exist or the balance is insufficient
+     */
+    public Mono<Long> debit(Long id, BigDecimal amount) {
+        return databaseClient.sql("update accounts set balance = balance - :amount, version = version + 1 " +
+                        "where id = :id and balance >= :amount")
+                .bind("id", id)
+                .bind("amount", amount)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * @return 1 if the account was credited, 0 if it does not exist
+     */
+    public Mono<Long> credit(Long id, BigDecimal amount) {
+        return databaseClient.sql("update accounts set balance = balance + :amount, version = version + 1 where id = :id")
+                .bind("id", id)
+                .bind("amount", amount)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Each row takes its own value of {@code transactions_seq}. Hibernate's pooled optimizer treats
+     * every value as the top of a block of 50, so these ids never collide with the JPA ledger writes.
+     * The row is also added to {@code account_daily_totals}, which the servlet stack reads instead of
+     * scanning the ledger, so both stacks can share one database.
+     */
+    public Mono<Void> saveTransaction(Long accountId, BigDecimal amount, BigDecimal calculatedFee, TransactionType type) {
+        LocalDateTime timestamp = LocalDateTime.now();
+        return databaseClient.sql("insert into transactions (id, account_id, amount, calculated_fee, type, timestamp) " +
+                        "values (next value for transactions_seq, :accountId, :amount, :calculatedFee, :type, :timestamp)")
+                .bind("accountId", accountId)
+                .bind("amount", amount)
+                .bind("calculatedFee", calculatedFee)
+                .bind("type", type.name())
+                .bind("timestamp", timestamp)
+                .then()
+                .then(addToDailyTotals(accountId, timestamp.toLocalDate(), type, amount, calculatedFee));
+    }
+
+    private Mono<Void> addToDailyTotals(Long accountId, LocalDate ledgerDate, TransactionType type,
+                                        BigDecimal amount, BigDecimal fee) {
+        Mono<Void> merge = databaseClient.sql(MERGE_DAILY_TOTAL)
+                .bind("accountId", accountId)
+                .bind("ledgerDate", ledgerDate)
+                .bind("type", type.name())
+                .bind("amount", amount)
+                .bind("fee", fee)
+                .then();
+        //another transaction inserted the day's row first and has committed it, so the retry matches it
+        return merge.onErrorResume(DuplicateKeyException.class, e -> merge);
+    }
+
+    private static Account toAccount(Readable row) {
+        User user = new User();
+        user.setId(row.get("user_id", Long.class));
+        user.setName(row.get("user_name", String.class));
+        user.setEmail(row.get("user_email", String.class));
+
+        Card card = new Card();
+        card.setId(row.get("card_id", Long.class));
+        card.setCardType(CardType.valueOf(row.get("card_type", String.class)));
+        card.setCardNumber(row.get("card_number", String.class));
+
+        Account account = new Account();
+        account.setId(row.get("id", Long.class));
+        account.setBalance(row.get("balance", BigDecimal.class));
+        account.setVersion(row.get("version", Long.class));
+        account.setUser(user);
+        account.setCard(card);
+        return account;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.rabobank.bankservice.repository;
+
+import com.rabobank.bankservice.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    ReactiveUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<User> findByEmail(String email) {
+        return databaseClient.sql("select id, name, email, password from users where email = :email")
+                .bind("email", email)
+                .map(row -> {
+                    User user = new User();
+                    user.setId(row.get("id", Long.class));
+                    user.setName(row.get("name", String.class));
+                    user.setEmail(row.get("email", String.class));
+                    user.setPassword(row.get("password", String.class));
+                    return user;
+                })
+                .one();
+    }
+}
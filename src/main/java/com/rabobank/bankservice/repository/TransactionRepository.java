@@ -1,14 +1,43 @@
 package com.rabobank.bankservice.repository;
 
 import com.rabobank.bankservice.entity.Transaction;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.model.TransactionDetail;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionStreamRepository {
 
     Optional<List<Transaction>> findAllByAccountId(Long accountId);
+
+    @Query("select new com.rabobank.bankservice.model.TransactionDetail(t.id, t.type, t.amount, t.calculatedFee, t.timestamp) " +
+            "from Transaction t where t.account.id = :accountId " +
+            "order by t.timestamp desc, t.id desc")
+    List<TransactionDetail> findFirstPage(@Param("accountId") Long accountId, Limit limit);
+
+    /**
+     * Keyset page: rows strictly older than the {@code (timestamp, id)} of the last row already returned.
+     */
+    @Query("select new com.rabobank.bankservice.model.TransactionDetail(t.id, t.type, t.amount, t.calculatedFee, t.timestamp) " +
+            "from Transaction t where t.account.id = :accountId " +
+            "and (t.timestamp < :timestamp or (t.timestamp = :timestamp and t.id < :id)) " +
+            "order by t.timestamp desc, t.id desc")
+    List<TransactionDetail> findPageBefore(@Param("accountId") Long accountId,
+                                           @Param("timestamp") LocalDateTime timestamp,
+                                           @Param("id") Long id,
+                                           Limit limit);
+
+    @Query("select t.timestamp from Transaction t where t.account.id = :accountId and t.type = :type " +
+            "and t.timestamp > :since order by t.timestamp")
+    List<LocalDateTime> findTimestampsAfter(@Param("accountId") Long accountId,
+                                            @Param("type") TransactionType type,
+                                            @Param("since") LocalDateTime since);
 }
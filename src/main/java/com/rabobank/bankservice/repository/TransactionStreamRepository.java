@@ -0,0 +1,14 @@
+package com.rabobank.bankservice.repository;
+
+import com.rabobank.bankservice.model.TransactionDetail;
+
+import java.util.function.Consumer;
+
+public interface TransactionStreamRepository {
+
+    /**
+     * Hands every ledger row of the account to the consumer, newest first, while reading from a JDBC cursor,
+     * so the history is never held in memory as a whole.
+     */
+    void streamByAccountId(Long accountId, Consumer<TransactionDetail> consumer);
+}
@@ -0,0 +1,35 @@
+package com.rabobank.bankservice.repository;
+
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.model.TransactionDetail;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.function.Consumer;
+
+class TransactionStreamRepositoryImpl implements TransactionStreamRepository {
+
+    private static final String SELECT_BY_ACCOUNT = "select id, type, amount, calculated_fee, timestamp " +
+            "from transactions where account_id = ? order by timestamp desc, id desc";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    TransactionStreamRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                    @Value("${transaction.history.fetch-size:500}") int fetchSize) {
+        //own template so the fetch size doesn't leak into other JdbcTemplate users
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Override
+    public void streamByAccountId(Long accountId, Consumer<TransactionDetail> consumer) {
+        jdbcTemplate.query(SELECT_BY_ACCOUNT, rs -> {
+            consumer.accept(new TransactionDetail(
+                    rs.getLong("id"),
+                    TransactionType.valueOf(rs.getString("type")),
+                    rs.getBigDecimal("amount"),
+                    rs.getBigDecimal("calculated_fee"),
+                    rs.getTimestamp("timestamp").toLocalDateTime()));
+        }, accountId);
+    }
+}
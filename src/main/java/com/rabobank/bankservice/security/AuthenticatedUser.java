@@ -0,0 +1,38 @@
+package com.rabobank.bankservice.security;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal produced by {@code CustomUserAuthService}; carries the user identity loaded during
+ * authentication so the rest of the request doesn't have to look the user up again.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class AuthenticatedUser extends User {
+
+    private final Long id;
+    private final String name;
+
+    public AuthenticatedUser(Long id,
+                             String name,
+                             String email,
+                             String password,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, authorities);
+        this.id = id;
+        this.name = name;
+    }
+
+    public com.rabobank.bankservice.entity.User toUser() {
+        com.rabobank.bankservice.entity.User user = new com.rabobank.bankservice.entity.User();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(getUsername());
+        return user;
+    }
+}
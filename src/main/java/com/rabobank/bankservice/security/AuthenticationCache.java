@@ -0,0 +1,90 @@
+package com.rabobank.bankservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Remembers successful password verifications so HTTP Basic requests don't pay a BCrypt round each time.
+ * Entries are keyed by an HMAC of the credentials with a per-process secret, so raw passwords never
+ * end up in memory longer than the request, and are only honoured while the stored hash is unchanged.
+ */
+@Component
+public class AuthenticationCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+    private final SecretKeySpec secretKey;
+    private final Cache<String, CachedCredential> cache;
+
+    @Autowired
+    AuthenticationCache(@Value("${auth.cache.enabled:true}") boolean enabled,
+                        @Value("${auth.cache.ttl:PT5M}") Duration ttl,
+                        @Value("${auth.cache.max-size:10000}") long maxSize,
+                        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.secretKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "authentication");
+    }
+
+    public boolean isVerified(String username, String rawPassword, String encodedPassword) {
+        if (!enabled) {
+            return false;
+        }
+        CachedCredential cached = cache.getIfPresent(credentialKey(username, rawPassword));
+        return cached != null && cached.encodedPassword().equals(encodedPassword);
+    }
+
+    public void put(String username, String rawPassword, String encodedPassword) {
+        if (enabled) {
+            cache.put(credentialKey(username, rawPassword), new CachedCredential(username, encodedPassword));
+        }
+    }
+
+    public void invalidate(String username) {
+        cache.asMap().values().removeIf(cached -> cached.username().equals(username));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private String credentialKey(String username, String rawPassword) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(rawPassword.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to hash credentials", e);
+        }
+    }
+
+    private record CachedCredential(String username, String encodedPassword) {
+    }
+}
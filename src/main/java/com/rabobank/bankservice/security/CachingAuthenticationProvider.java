@@ -0,0 +1,34 @@
+package com.rabobank.bankservice.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+public class CachingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final AuthenticationCache authenticationCache;
+
+    public CachingAuthenticationProvider(UserDetailsService userDetailsService,
+                                         PasswordEncoder passwordEncoder,
+                                         AuthenticationCache authenticationCache) {
+        super(passwordEncoder);
+        setUserDetailsService(userDetailsService);
+        this.authenticationCache = authenticationCache;
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+                                                  UsernamePasswordAuthenticationToken authentication) {
+        Object credentials = authentication.getCredentials();
+        if (credentials != null && authenticationCache.isVerified(
+                userDetails.getUsername(), credentials.toString(), userDetails.getPassword())) {
+            return;
+        }
+
+        //only reached on a cache miss: full BCrypt verification
+        super.additionalAuthenticationChecks(userDetails, authentication);
+        authenticationCache.put(userDetails.getUsername(), credentials.toString(), userDetails.getPassword());
+    }
+}
@@ -0,0 +1,62 @@
+package com.rabobank.bankservice.security;
+
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive counterpart of {@link CachingAuthenticationProvider}. On a cache miss BCrypt runs on the
+ * bounded elastic scheduler, never on the event loop.
+ */
+public class CachingReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private final ReactiveUserDetailsService userDetailsService;
+    private final PasswordEncoder passwordEncoder;
+    private final AuthenticationCache authenticationCache;
+    private final AccountStatusUserDetailsChecker userDetailsChecker = new AccountStatusUserDetailsChecker();
+
+    public CachingReactiveAuthenticationManager(ReactiveUserDetailsService userDetailsService,
+                                                PasswordEncoder passwordEncoder,
+                                                AuthenticationCache authenticationCache) {
+        this.userDetailsService = userDetailsService;
+        this.passwordEncoder = passwordEncoder;
+        this.authenticationCache = authenticationCache;
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        String username = authentication.getName();
+        String presentedPassword = String.valueOf(authentication.getCredentials());
+
+        return userDetailsService.findByUsername(username)
+                .filterWhen(userDetails -> verify(userDetails, presentedPassword))
+                .switchIfEmpty(Mono.error(() -> new BadCredentialsException("Invalid Credentials")))
+                .map(userDetails -> {
+                    userDetailsChecker.check(userDetails);
+                    return (Authentication) UsernamePasswordAuthenticationToken.authenticated(
+                            userDetails, userDetails.getPassword(), userDetails.getAuthorities());
+                });
+    }
+
+    private Mono<Boolean> verify(UserDetails userDetails, String presentedPassword) {
+        if (authenticationCache.isVerified(userDetails.getUsername(), presentedPassword, userDetails.getPassword())) {
+            return Mono.just(true);
+        }
+        //only reached on a cache miss: full BCrypt verification
+        return Mono.fromCallable(() -> {
+                    boolean matches = passwordEncoder.matches(presentedPassword, userDetails.getPassword());
+                    if (matches) {
+                        authenticationCache.put(userDetails.getUsername(), presentedPassword, userDetails.getPassword());
+                    }
+                    return matches;
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,24 @@
+package com.rabobank.bankservice.security;
+
+import com.rabobank.bankservice.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserCredentialsListener {
+
+    private final AuthenticationCache authenticationCache;
+
+    @Autowired
+    public UserCredentialsListener(AuthenticationCache authenticationCache) {
+        this.authenticationCache = authenticationCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    void onUserChanged(User user) {
+        authenticationCache.invalidate(user.getEmail());
+    }
+}
@@ -0,0 +1,161 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.Transaction;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.error.AccountNotFoundException;
+import com.rabobank.bankservice.model.DailyTotal;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.repository.AccountDailyTotalsRepository;
+import com.rabobank.bankservice.repository.AccountDailyTotalsRepository.Delta;
+import com.rabobank.bankservice.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per account, day and {@link TransactionType} totals of the ledger, so "withdrawn today" is one primary-key
+ * read instead of a scan of {@code transactions}. Every ledger insert adds its rows to the totals in the same
+ * database transaction; in the write-behind ledger mode that is the materializing transaction, so the totals
+ * trail the balance exactly as the history does.
+ * <p>
+ * {@link #rebuildAll()} recomputes the totals from the ledger, e.g. to backfill them for existing rows,
+ * and runs on startup when {@code account.daily-totals.rebuild-on-startup} is set.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AccountDailyTotalsService implements InitializingBean {
+
+    private static final int REBUILD_ACCOUNTS_PER_QUERY = 500;
+
+    private final AccountDailyTotalsRepository dailyTotalsRepository;
+    private final AccountRepository accountRepository;
+    private final UserContext userContext;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean rebuildOnStartup;
+
+    @Autowired
+    AccountDailyTotalsService(AccountDailyTotalsRepository dailyTotalsRepository,
+                              AccountRepository accountRepository,
+                              UserContext userContext,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${account.daily-totals.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.dailyTotalsRepository = dailyTotalsRepository;
+        this.accountRepository = accountRepository;
+        this.userContext = userContext;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (rebuildOnStartup) {
+            int accounts = rebuildAll();
+            log.info("Rebuilt the daily totals of {} accounts from the ledger", accounts);
+        }
+    }
+
+    /**
+     * Adds ledger rows to the totals, summed per account, day and type first, so a batch of rows costs one
+     * statement per key. Must run in the transaction that inserts the rows.
+     */
+    public void record(Collection<Transaction> transactions) {
+        Map<Key, long[]> sums = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            Key key = new Key(transaction.getAccount().getId(), transaction.getTimestamp().toLocalDate(),
+                    transaction.getType());
+            //count, amount cents, fee cents
+            long[] sum = sums.computeIfAbsent(key, k -> new long[3]);
+            sum[0]++;
+            sum[1] = Math.addExact(sum[1], transaction.getAmount().cents());
+            sum[2] = Math.addExact(sum[2], transaction.getCalculatedFee().cents());
+        }
+        if (sums.isEmpty()) {
+            return;
+        }
+        List<Delta> deltas = sums.entrySet().stream()
+                .map(entry -> new Delta(entry.getKey().accountId(), entry.getKey().date(), entry.getKey().type(),
+                        entry.getValue()[0], Money.ofCents(entry.getValue()[1]).toBigDecimal(),
+                        Money.ofCents(entry.getValue()[2]).toBigDecimal()))
+                .toList();
+        dailyTotalsRepository.add(deltas);
+    }
+
+    /**
+     * @return the totals of the day for every transaction type, zero where the account had none
+     */
+    public List<DailyTotal> getDailyTotals(Long accountId, LocalDate date) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found"));
+
+        //check if currentUser is the owner of the account
+        userContext.isAuthorized(account);
+
+        return findDailyTotals(accountId, date);
+    }
+
+    /**
+     * Unchecked read for internal callers such as limit checks.
+     */
+    public DailyTotal findDailyTotal(Long accountId, LocalDate date, TransactionType type) {
+        return findDailyTotals(accountId, date).stream()
+                .filter(total -> total.getType() == type)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private List<DailyTotal> findDailyTotals(Long accountId, LocalDate date) {
+        Map<TransactionType, DailyTotal> totals = new EnumMap<>(TransactionType.class);
+        for (TransactionType type : TransactionType.values()) {
+            totals.put(type, DailyTotal.empty(date, type));
+        }
+        for (DailyTotal total : dailyTotalsRepository.findByAccountIdAndDate(accountId, date)) {
+            totals.put(total.getType(), total);
+        }
+        return List.copyOf(totals.values());
+    }
+
+    /**
+     * Recomputes the totals of one account from its ledger rows, in one transaction that holds the account row.
+     */
+    public void rebuild(Long accountId) {
+        transactionTemplate.executeWithoutResult(status -> dailyTotalsRepository.rebuild(accountId));
+    }
+
+    /**
+     * Rebuilds every account, one transaction per account, so writers are only ever held up by one of them.
+     *
+     * @return number of accounts rebuilt
+     */
+    public int rebuildAll() {
+        int rebuilt = 0;
+        long afterId = 0;
+        List<Long> accountIds;
+        do {
+            accountIds = dailyTotalsRepository.findAccountIdsAfter(afterId, REBUILD_ACCOUNTS_PER_QUERY);
+            for (Long accountId : accountIds) {
+                rebuild(accountId);
+                afterId = accountId;
+                rebuilt++;
+            }
+        } while (accountIds.size() == REBUILD_ACCOUNTS_PER_QUERY);
+        return rebuilt;
+    }
+
+    private record Key(Long accountId, LocalDate date, TransactionType type) {
+    }
+}
@@ -0,0 +1,99 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.error.AccountNotFoundException;
+import com.rabobank.bankservice.error.ConcurrentUpdateException;
+import com.rabobank.bankservice.error.IdempotencyKeyReusedException;
+import com.rabobank.bankservice.error.InsufficientBalanceException;
+import com.rabobank.bankservice.error.UnauthorizedException;
+import com.rabobank.bankservice.error.WithdrawalLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+/**
+ * Service-level meters for balance operations. Repository time ({@code spring.data.repository.invocations})
+ * and connection-pool wait ({@code hikaricp.connections.acquire}) come from Spring Boot's own binders.
+ */
+@Component
+public class AccountMetrics {
+
+    static final String OPERATION_METRIC = "account.operation";
+    static final String FEES_METRIC = "account.fees";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    AccountMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Times the operation, tagged with the outcome that {@code GlobalExceptionHandler} would map it to.
+     */
+    public <T> T record(String operation, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(OPERATION_METRIC)
+                    .description("Latency of balance operations, including retries and commit")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    //buckets rather than client-side percentiles, so p95/p99 can be aggregated across instances
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Adds the fee to the per-card-type total once the surrounding transaction commits.
+     */
+    public void recordFee(CardType cardType, BigDecimal fee) {
+        if (fee.signum() == 0) {
+            return;
+        }
+        Counter counter = Counter.builder(FEES_METRIC)
+                .description("Total fees charged")
+                .tag("card.type", cardType.name())
+                .register(meterRegistry);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.increment(fee.doubleValue());
+                }
+            });
+        } else {
+            counter.increment(fee.doubleValue());
+        }
+    }
+
+    private static String outcome(RuntimeException e) {
+        if (e instanceof InsufficientBalanceException) {
+            return "insufficient_balance";
+        } else if (e instanceof UnauthorizedException) {
+            return "unauthorized";
+        } else if (e instanceof AccountNotFoundException) {
+            return "not_found";
+        } else if (e instanceof ConcurrentUpdateException) {
+            return "conflict";
+        } else if (e instanceof IdempotencyKeyReusedException) {
+            return "idempotency_key_reused";
+        } else if (e instanceof WithdrawalLimitExceededException) {
+            return "limit_exceeded";
+        }
+        return "error";
+    }
+}
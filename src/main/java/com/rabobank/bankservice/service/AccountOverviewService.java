@@ -0,0 +1,95 @@
+package com.rabobank.bankservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.event.BalanceChangedEvent;
+import com.rabobank.bankservice.model.AccountToUserAccountMapper;
+import com.rabobank.bankservice.model.UserAccount;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Read-through cache of the mapped account overview per user. Entries are dropped once a balance
+ * change commits, including a load that is still in flight, so a read that starts after a write has
+ * returned never sees the old balance. Concurrent reads of the same user share one load, which runs
+ * outside the cache's map lock: a virtual thread blocking on JDBC inside it would pin its carrier.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AccountOverviewService {
+
+    private final AccountService accountService;
+    private final AccountToUserAccountMapper mapper;
+    private final UserContext userContext;
+    private final boolean enabled;
+    private final AsyncCache<Long, UserAccount> cache;
+
+    @Autowired
+    AccountOverviewService(AccountService accountService,
+                           AccountToUserAccountMapper accountToUserAccountMapper,
+                           UserContext userContext,
+                           @Value("${account.overview.cache.enabled:true}") boolean enabled,
+                           @Value("${account.overview.cache.ttl:PT30S}") Duration ttl,
+                           @Value("${account.overview.cache.max-size:10000}") long maxSize,
+                           MeterRegistry meterRegistry) {
+        this.accountService = accountService;
+        this.mapper = accountToUserAccountMapper;
+        this.userContext = userContext;
+        this.enabled = enabled;
+
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "accountOverview");
+    }
+
+    public UserAccount getUserAccount() {
+        if (!enabled) {
+            return load();
+        }
+        CompletableFuture<UserAccount> loading = new CompletableFuture<>();
+        CompletableFuture<UserAccount> cached = cache.get(userContext.getCurrentUser().getId(), (userId, executor) -> loading);
+        if (cached == loading) {
+            try {
+                loading.complete(load());
+            } catch (Throwable e) {
+                //failed futures are removed by the cache, the next read loads again. Errors too, or readers
+                //already waiting for this load would wait forever
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        cache.synchronous().invalidateAll(event.userIds());
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    private UserAccount load() {
+        return mapper.overviewToUserAccount(accountService.getAccountOverview());
+    }
+}
@@ -1,88 +1,304 @@
 package com.rabobank.bankservice.service;
 
+import com.rabobank.bankservice.balance.BalanceEngine;
 import com.rabobank.bankservice.context.UserContext;
 import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.IdempotencyRecord;
+import com.rabobank.bankservice.entity.OutboxEvent;
 import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.event.BalanceChangedEvent;
 import com.rabobank.bankservice.error.AccountNotFoundException;
+import com.rabobank.bankservice.error.ConcurrentUpdateException;
+import com.rabobank.bankservice.error.IdempotencyKeyReusedException;
+import com.rabobank.bankservice.model.AccountOverview;
+import com.rabobank.bankservice.model.AccountOverviewRow;
+import com.rabobank.bankservice.model.Money;
 import com.rabobank.bankservice.model.request.TransferTransaction;
 import com.rabobank.bankservice.model.request.WithdrawTransaction;
 import com.rabobank.bankservice.repository.AccountRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AccountService {
 
     private final AccountRepository accountRepository;
     private final TransactionService transactionService;
     private final TransactionFeeService transactionFeeService;
     private final UserContext userContext;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final ConcurrencyMode concurrencyMode;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AccountMetrics accountMetrics;
+    private final IdempotencyService idempotencyService;
+    private final OutboxService outboxService;
+    private final BalanceEngine balanceEngine;
+    private final BalanceGroupCommitter groupCommitter;
+    private final WithdrawalLimitService withdrawalLimitService;
 
     @Autowired
     AccountService(AccountRepository accountRepository,
                    TransactionService transactionService,
                    TransactionFeeService transactionFeeService,
-                   UserContext userContext) {
+                   UserContext userContext,
+                   PlatformTransactionManager transactionManager,
+                   OptimisticRetryExecutor optimisticRetryExecutor,
+                   @Value("${account.concurrency.mode:atomic}") ConcurrencyMode concurrencyMode,
+                   ApplicationEventPublisher eventPublisher,
+                   AccountMetrics accountMetrics,
+                   IdempotencyService idempotencyService,
+                   OutboxService outboxService,
+                   BalanceEngine balanceEngine,
+                   BalanceGroupCommitter groupCommitter,
+                   WithdrawalLimitService withdrawalLimitService) {
+        if (balanceEngine.isInMemory() && concurrencyMode != ConcurrencyMode.ATOMIC) {
+            throw new IllegalStateException("An in-memory balance engine requires account.concurrency.mode=atomic");
+        }
+        if (groupCommitter.isEnabled() && (concurrencyMode != ConcurrencyMode.ATOMIC || balanceEngine.isInMemory())) {
+            //savepoints can't undo row locks held across the batch, retries of it, or an in-memory balance
+            throw new IllegalStateException("Group commit requires account.concurrency.mode=atomic and the database balance engine");
+        }
         this.accountRepository = accountRepository;
         this.transactionService = transactionService;
         this.transactionFeeService = transactionFeeService;
         this.userContext = userContext;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.optimisticRetryExecutor = optimisticRetryExecutor;
+        this.concurrencyMode = concurrencyMode;
+        this.eventPublisher = eventPublisher;
+        this.accountMetrics = accountMetrics;
+        this.idempotencyService = idempotencyService;
+        this.outboxService = outboxService;
+        this.balanceEngine = balanceEngine;
+        this.groupCommitter = groupCommitter;
+        this.withdrawalLimitService = withdrawalLimitService;
     }
 
     @Transactional(readOnly = true)
-    public List<Account> getAccountList() {
+    public List<AccountOverview> getAccountOverview() {
         Long userId = userContext.getCurrentUser().getId();
-        return accountRepository.findAllByUserId(userId)
-                .filter(list -> !list.isEmpty())
-                .orElseThrow(() -> new AccountNotFoundException("Account not found with user id: " + userId));
+        List<AccountOverview> accounts = accountRepository.findOverviewByUserId(userId);
+        if (accounts.isEmpty()) {
+            throw new AccountNotFoundException("Account not found with user id: " + userId);
+        }
+        if (!balanceEngine.isInMemory()) {
+            return accounts;
+        }
+        return accounts.stream()
+                .map(account -> balanceEngine.findBalance(account.getAccountId())
+                        .<AccountOverview>map(balance -> AccountOverviewRow.withBalance(account, balance.toBigDecimal()))
+                        .orElse(account))
+                .toList();
     }
 
-    @Transactional
     public Account withdraw(WithdrawTransaction withdrawTransaction) {
-        Account account = accountRepository.findById(withdrawTransaction.getAccount())
+        return withdraw(withdrawTransaction, null);
+    }
+
+    /**
+     * @param idempotencyKey client-chosen key; a retry with the same key returns the first outcome
+     *                       instead of debiting again. {@code null} disables deduplication
+     */
+    public Account withdraw(WithdrawTransaction withdrawTransaction, String idempotencyKey) {
+        String requestHash = "withdraw:" + withdrawTransaction.getAccount() + ":" + amountKey(withdrawTransaction.getAmount());
+        return accountMetrics.record("withdraw", () -> idempotent(idempotencyKey, requestHash,
+                withdrawTransaction.getAccount(), () -> doWithdraw(withdrawTransaction)));
+    }
+
+    public Account transfer(TransferTransaction transferTransaction) {
+        return transfer(transferTransaction, null);
+    }
+
+    /**
+     * @param idempotencyKey client-chosen key; a retry with the same key returns the first outcome
+     *                       instead of transferring again. {@code null} disables deduplication
+     */
+    public Account transfer(TransferTransaction transferTransaction, String idempotencyKey) {
+        String requestHash = "transfer:" + transferTransaction.getSourceAccountId() + ":"
+                + transferTransaction.getTargetAccountId() + ":" + amountKey(transferTransaction.getAmount());
+        return accountMetrics.record("transfer", () -> idempotent(idempotencyKey, requestHash,
+                transferTransaction.getSourceAccountId(), () -> doTransfer(transferTransaction)));
+    }
+
+    /**
+     * Answers a repeated key from the dedupe store, otherwise runs the operation and records the key
+     * in its transaction. If a concurrent request with the same key commits first, our insert fails,
+     * our balance change rolls back and the winner's outcome is returned instead.
+     */
+    private Account idempotent(String idempotencyKey, String requestHash, Long accountId, Supplier<Account> unitOfWork) {
+        if (idempotencyKey == null) {
+            return inTransaction(accountId, unitOfWork);
+        }
+        Long userId = userContext.getCurrentUser().getId();
+        Optional<IdempotencyRecord> previous = idempotencyService.find(userId, idempotencyKey);
+        if (previous.isPresent()) {
+            return replay(previous.get(), requestHash);
+        }
+        try {
+            return inTransaction(accountId, () -> {
+                Account account = unitOfWork.get();
+                idempotencyService.record(userId, idempotencyKey, requestHash, account);
+                return account;
+            });
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyRecord winner = idempotencyService.find(userId, idempotencyKey).orElseThrow(() -> e);
+            return replay(winner, requestHash);
+        }
+    }
+
+    private Account replay(IdempotencyRecord record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException("Idempotency key was already used for a different request");
+        }
+        Account account = accountRepository.findById(record.getAccountId())
+                .orElseThrow(() -> new AccountNotFoundException("Account not found"));
+
+        //the balance as returned by the first request, not the current one
+        return withBalance(account, Money.of(record.getBalance()));
+    }
+
+    /**
+     * Copy of the account with another balance, leaving the (possibly managed) entity untouched.
+     */
+    private static Account withBalance(Account account, Money balance) {
+        Account copy = new Account();
+        copy.setId(account.getId());
+        copy.setUser(account.getUser());
+        copy.setCard(account.getCard());
+        copy.setVersion(account.getVersion());
+        copy.setBalance(balance);
+        return copy;
+    }
+
+    /**
+     * The database engine's UPDATEs have already detached the entity. An in-memory engine's table trails
+     * it, so the balance goes on a copy; on the managed entity it would be flushed over the table.
+     */
+    private Account withEngineBalance(Account account, Money balance) {
+        if (balanceEngine.isInMemory()) {
+            return withBalance(account, balance);
+        }
+        account.setBalance(balance);
+        return account;
+    }
+
+    private static String amountKey(BigDecimal amount) {
+        return amount == null ? "null" : amount.stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Runs the unit of work in its own transaction, or with group commit in a batch shared with concurrent
+     * ones. In optimistic mode the whole transaction is replayed on a version conflict, which is why
+     * withdraw/transfer are not {@code @Transactional}.
+     */
+    private Account inTransaction(Long accountId, Supplier<Account> unitOfWork) {
+        if (groupCommitter.isEnabled()) {
+            return groupCommitter.execute(unitOfWork);
+        }
+        if (concurrencyMode == ConcurrencyMode.OPTIMISTIC) {
+            return optimisticRetryExecutor.execute(accountId, () -> transactionTemplate.execute(status -> unitOfWork.get()));
+        }
+        return transactionTemplate.execute(status -> unitOfWork.get());
+    }
+
+    private Account doWithdraw(WithdrawTransaction withdrawTransaction) {
+        Account account = findAccount(withdrawTransaction.getAccount())
                 .orElseThrow(() -> new AccountNotFoundException("Account not found"));
 
         //check if currentUser is the owner of the account
         userContext.isAuthorized(account);
 
-        BigDecimal totalFee = transactionFeeService.calculateFee(withdrawTransaction, account);
-        BigDecimal totalAmount = withdrawTransaction.getAmount().add(totalFee);
-        account.subtractBalance(totalAmount);
+        Money amount = Money.of(withdrawTransaction.getAmount());
+        Money totalFee = transactionFeeService.calculateFee(amount, account.getCard().getCardType(),
+                TransactionType.WITHDRAWAL);
+
+        //counted before the debit, so parallel withdrawals can't pass a limit together. Released if the
+        //unit of work fails, also after this method, e.g. on the idempotency key or the batch's flush
+        withdrawalLimitService.reserve(account, amount);
+        if (concurrencyMode == ConcurrencyMode.ATOMIC) {
+            account = withEngineBalance(account, balanceEngine.debit(account.getId(), amount, totalFee));
+        } else {
+            account.subtractBalance(amount.plus(totalFee));
+            accountRepository.save(account);
+        }
 
-        accountRepository.save(account);
-        transactionService.saveTransaction(account, withdrawTransaction.getAmount(), totalFee, TransactionType.WITHDRAWAL);
+        transactionService.saveTransaction(account, amount, totalFee, TransactionType.WITHDRAWAL);
+        outboxService.append(OutboxEvent.withdrawal(account.getId(), amount.toBigDecimal(), totalFee.toBigDecimal()));
+        accountMetrics.recordFee(account.getCard().getCardType(), totalFee.toBigDecimal());
+        eventPublisher.publishEvent(BalanceChangedEvent.forUsers(account.getUser().getId()));
 
         return account;
     }
 
-    @Transactional
-    public Account transfer(TransferTransaction transferTransaction) {
-        Account sourceAccount = accountRepository.findById(transferTransaction.getSourceAccountId())
+    private Account doTransfer(TransferTransaction transferTransaction) {
+        Long sourceAccountId = transferTransaction.getSourceAccountId();
+        Long targetAccountId = transferTransaction.getTargetAccountId();
+
+        Optional<Account> lockedTarget = Optional.empty();
+        if (concurrencyMode == ConcurrencyMode.PESSIMISTIC && targetAccountId < sourceAccountId) {
+            //lock rows in ascending id order so crossing transfers queue up instead of deadlocking
+            lockedTarget = findAccount(targetAccountId);
+        }
+
+        Account sourceAccount = findAccount(sourceAccountId)
                 .orElseThrow(() -> new AccountNotFoundException("Source account not found"));
 
         //check if currentUser is the owner of the sourceAccount
         userContext.isAuthorized(sourceAccount);
 
-        Account targetAccount = accountRepository.findById(transferTransaction.getTargetAccountId())
-                .orElseThrow(() -> new AccountNotFoundException("Target account not found"));
+        Money amount = Money.of(transferTransaction.getAmount());
+        Money totalFee = transactionFeeService.calculateFee(amount, sourceAccount.getCard().getCardType(),
+                TransactionType.TRANSFER);
 
-        BigDecimal totalFee = transactionFeeService.calculateFee(transferTransaction, sourceAccount);
-        BigDecimal totalAmount = transferTransaction.getAmount().add(totalFee);
+        Account targetAccount;
+        if (concurrencyMode == ConcurrencyMode.ATOMIC) {
+            sourceAccount = withEngineBalance(sourceAccount, balanceEngine.transfer(
+                    sourceAccountId, targetAccountId, amount, totalFee));
+            targetAccount = accountRepository.getReferenceById(targetAccountId);
+        } else {
+            targetAccount = (lockedTarget.isPresent() ? lockedTarget : findAccount(targetAccountId))
+                    .orElseThrow(() -> new AccountNotFoundException("Target account not found"));
 
-        sourceAccount.subtractBalance(totalAmount);
-        targetAccount.addBalance(transferTransaction.getAmount());
+            sourceAccount.subtractBalance(amount.plus(totalFee));
+            targetAccount.addBalance(amount);
 
-        accountRepository.save(sourceAccount);
-        accountRepository.save(targetAccount);
+            accountRepository.save(sourceAccount);
+            accountRepository.save(targetAccount);
+        }
 
-        transactionService.saveTransaction(sourceAccount, transferTransaction.getAmount(), totalFee, TransactionType.TRANSFER);
-        transactionService.saveTransaction(targetAccount, transferTransaction.getAmount(), totalFee, TransactionType.TRANSFER);
+        transactionService.saveTransfer(sourceAccount, targetAccount, amount, totalFee);
+        outboxService.append(OutboxEvent.transfer(sourceAccountId, targetAccountId, amount.toBigDecimal(), totalFee.toBigDecimal()));
+        accountMetrics.recordFee(sourceAccount.getCard().getCardType(), totalFee.toBigDecimal());
+        eventPublisher.publishEvent(BalanceChangedEvent.forUsers(
+                sourceAccount.getUser().getId(), targetAccount.getUser().getId()));
 
         return sourceAccount;
     }
 
+    private Optional<Account> findAccount(Long accountId) {
+        if (concurrencyMode != ConcurrencyMode.PESSIMISTIC) {
+            return accountRepository.findById(accountId);
+        }
+        try {
+            return accountRepository.findByIdForUpdate(accountId);
+        } catch (PessimisticLockingFailureException e) {
+            throw new ConcurrentUpdateException("Timed out waiting for the lock on account " + accountId, e);
+        }
+    }
+
 }
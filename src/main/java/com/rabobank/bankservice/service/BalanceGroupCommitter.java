@@ -0,0 +1,292 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.entity.Account;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs concurrent withdraw/transfer units of work in shared database transactions, so under load one
+ * commit (and one log flush) covers a whole batch instead of a single request. A worker thread takes
+ * the first queued operation, collects more for up to {@code window} or until {@code max-batch-size},
+ * and runs them one after another in one transaction.
+ * <p>
+ * Every operation gets its own savepoint: one that throws, e.g. on an insufficient balance, is rolled
+ * back to it and fails alone while the others go on; transaction callbacks it registered are completed
+ * as rolled back. Callers are only answered once the batch has ended. If the commit itself fails, the
+ * operations that hadn't failed on their own are run again, each in its own transaction. Batches run
+ * one at a time, so two batches never wait on each other's row locks.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BalanceGroupCommitter implements InitializingBean, DisposableBean {
+
+    static final String BATCH_SIZE_METRIC = "account.group_commit.batch.size";
+
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+    private final BlockingQueue<Operation> queue = new LinkedBlockingQueue<>();
+
+    private volatile Thread worker;
+
+    @Autowired
+    BalanceGroupCommitter(PlatformTransactionManager transactionManager,
+                          EntityManager entityManager,
+                          DataSource dataSource,
+                          MeterRegistry meterRegistry,
+                          @Value("${account.group-commit.enabled:false}") boolean enabled,
+                          @Value("${account.group-commit.window:2ms}") Duration window,
+                          @Value("${account.group-commit.max-batch-size:50}") int maxBatchSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE_METRIC)
+                .description("Withdrawals and transfers committed by one group-commit transaction")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            worker = new Thread(this::run, "balance-group-commit");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Queues the unit of work for the next batch and waits until that batch has committed.
+     * Exceptions thrown by the unit of work are rethrown to the caller as they are.
+     */
+    public Account execute(Supplier<Account> unitOfWork) {
+        if (worker == null) {
+            throw new IllegalStateException("Group commit is not running");
+        }
+        //the unit of work reads the current user through the request scope
+        Operation operation = new Operation(unitOfWork, RequestContextHolder.getRequestAttributes());
+        queue.add(operation);
+        try {
+            return operation.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        Thread current = worker;
+        if (current != null) {
+            worker = null;
+            current.interrupt();
+            current.join();
+        }
+        Operation operation;
+        while ((operation = queue.poll()) != null) {
+            operation.result.completeExceptionally(new IllegalStateException("Group commit was shut down"));
+        }
+    }
+
+    private void run() {
+        List<Operation> batch = new ArrayList<>(maxBatchSize);
+        while (worker != null) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    Operation next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                batch.forEach(operation -> operation.result.completeExceptionally(
+                        new IllegalStateException("Group commit was shut down")));
+                return;
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<Operation> batch) {
+        batchSizes.record(batch.size());
+        List<Operation> succeeded = new ArrayList<>(batch.size());
+        List<Account> results = new ArrayList<>(batch.size());
+        Map<Operation, RuntimeException> failures = new IdentityHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Operation operation : batch) {
+                    //e.g. after a constraint violation; the commit fails anyway, the rest is run alone then
+                    if (status.isRollbackOnly()) {
+                        break;
+                    }
+                    runIsolated(operation, failures).ifPresent(account -> {
+                        succeeded.add(operation);
+                        results.add(account);
+                    });
+                }
+            });
+            for (int i = 0; i < succeeded.size(); i++) {
+                succeeded.get(i).result.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} operations failed, running them one by one", batch.size(), e);
+            for (Operation operation : batch) {
+                //operations that failed on their own keep that outcome
+                if (!failures.containsKey(operation)) {
+                    commitAlone(operation);
+                }
+            }
+        }
+        //only now, so e.g. the loser of an idempotency key race finds the winner's record committed
+        failures.forEach((operation, failure) -> operation.result.completeExceptionally(failure));
+    }
+
+    /**
+     * Runs one operation behind a JDBC savepoint on the batch's connection. JPA has no savepoints, but the
+     * balance UPDATEs flush and clear the persistence context, so only the database needs rolling back.
+     */
+    private Optional<Account> runIsolated(Operation operation, Map<Operation, RuntimeException> failures) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        Savepoint savepoint = savepoint(connection);
+        List<TransactionSynchronization> registeredBefore = TransactionSynchronizationManager.getSynchronizations();
+        try {
+            Account account = operation.runInRequestScope();
+            //flushed now, so a constraint violation is charged to this operation rather than the batch
+            entityManager.flush();
+            return Optional.of(account);
+        } catch (RuntimeException e) {
+            //drops whatever the failed operation left in the persistence context
+            entityManager.clear();
+            rollbackTo(connection, savepoint);
+            rollBackSynchronizationsSince(registeredBefore);
+            failures.put(operation, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Callbacks registered by an operation rolled back to its savepoint would otherwise fire with the batch's
+     * commit, e.g. count the fee of a withdrawal that didn't happen. They are unregistered and completed as
+     * rolled back instead, as they would be if the operation had run in its own transaction.
+     */
+    private static void rollBackSynchronizationsSince(List<TransactionSynchronization> registeredBefore) {
+        List<TransactionSynchronization> registered = TransactionSynchronizationManager.getSynchronizations();
+        if (registered.size() == registeredBefore.size()) {
+            return;
+        }
+        Set<TransactionSynchronization> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        kept.addAll(registeredBefore);
+        //there is no way to unregister a single synchronization, so the kept ones are registered again
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> discarded = new ArrayList<>();
+        for (TransactionSynchronization synchronization : registered) {
+            if (kept.contains(synchronization)) {
+                TransactionSynchronizationManager.registerSynchronization(synchronization);
+            } else {
+                discarded.add(synchronization);
+            }
+        }
+        for (TransactionSynchronization synchronization : discarded) {
+            try {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            } catch (RuntimeException e) {
+                log.error("Synchronization of a rolled back group-commit operation failed", e);
+            }
+        }
+    }
+
+    private static Savepoint savepoint(Connection connection) {
+        try {
+            return connection.setSavepoint();
+        } catch (SQLException e) {
+            throw new CannotCreateTransactionException("Could not create a savepoint for a group-commit operation", e);
+        }
+    }
+
+    private static void rollbackTo(Connection connection, Savepoint savepoint) {
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            throw new TransactionSystemException("Could not roll back a failed group-commit operation", e);
+        }
+    }
+
+    private void commitAlone(Operation operation) {
+        try {
+            operation.result.complete(transactionTemplate.execute(status -> operation.runInRequestScope()));
+        } catch (RuntimeException e) {
+            operation.result.completeExceptionally(e);
+        }
+    }
+
+    private record Operation(Supplier<Account> unitOfWork, RequestAttributes requestAttributes,
+                             CompletableFuture<Account> result) {
+
+        Operation(Supplier<Account> unitOfWork, RequestAttributes requestAttributes) {
+            this(unitOfWork, requestAttributes, new CompletableFuture<>());
+        }
+
+        Account runInRequestScope() {
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                return unitOfWork.get();
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.balance.BalanceEngine;
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.OutboxEvent;
+import com.rabobank.bankservice.entity.Transaction;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.event.BalanceChangedEvent;
+import com.rabobank.bankservice.error.ConcurrentUpdateException;
+import com.rabobank.bankservice.error.InsufficientBalanceException;
+import com.rabobank.bankservice.error.UnauthorizedException;
+import com.rabobank.bankservice.model.BulkTransferItemResult;
+import com.rabobank.bankservice.model.BulkTransferItemStatus;
+import com.rabobank.bankservice.model.BulkTransferResult;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.model.request.BulkTransferMode;
+import com.rabobank.bankservice.model.request.BulkTransferRequest;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Settles many transfers per request. Each chunk nets the transfers down to one balance delta per
+ * account, applies the deltas as a single JDBC batch of conditional UPDATEs and writes the ledger
+ * rows in one flush.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BulkTransferService {
+
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+    private final AccountRepository accountRepository;
+    private final TransactionService transactionService;
+    private final TransactionFeeService transactionFeeService;
+    private final UserContext userContext;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AccountMetrics accountMetrics;
+    private final OutboxService outboxService;
+    private final BalanceEngine balanceEngine;
+
+    @Autowired
+    BulkTransferService(AccountRepository accountRepository,
+                        TransactionService transactionService,
+                        TransactionFeeService transactionFeeService,
+                        UserContext userContext,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${account.bulk-transfer.chunk-size:500}") int chunkSize,
+                        ApplicationEventPublisher eventPublisher,
+                        AccountMetrics accountMetrics,
+                        OutboxService outboxService,
+                        BalanceEngine balanceEngine) {
+        this.accountRepository = accountRepository;
+        this.transactionService = transactionService;
+        this.transactionFeeService = transactionFeeService;
+        this.userContext = userContext;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.eventPublisher = eventPublisher;
+        this.accountMetrics = accountMetrics;
+        this.outboxService = outboxService;
+        this.balanceEngine = balanceEngine;
+    }
+
+    public BulkTransferResult transfer(BulkTransferRequest request) {
+        return accountMetrics.record("bulk_transfer", () -> settle(request));
+    }
+
+    private BulkTransferResult settle(BulkTransferRequest request) {
+        List<TransferTransaction> transfers = request.getTransfers();
+        BulkTransferItemResult[] results = new BulkTransferItemResult[transfers.size()];
+
+        if (request.getMode() == BulkTransferMode.ALL_OR_NOTHING) {
+            settleAllOrNothing(transfers, results);
+        } else {
+            settleBestEffort(transfers, results);
+        }
+
+        return toResult(request.getMode(), results);
+    }
+
+    /**
+     * One transaction around all chunks; the first rejected transfer rolls everything back.
+     */
+    private void settleAllOrNothing(List<TransferTransaction> transfers, BulkTransferItemResult[] results) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int from = 0; from < transfers.size(); from += chunkSize) {
+                    int to = Math.min(from + chunkSize, transfers.size());
+                    if (!settleChunk(transfers, from, to, results, true)) {
+                        throw new BatchRejectedException();
+                    }
+                }
+            });
+        } catch (BatchRejectedException e) {
+            markNotApplied(results, 0, results.length, "Batch rolled back because another transfer was rejected");
+        }
+    }
+
+    /**
+     * One transaction per chunk; rejected transfers are skipped and a chunk that loses a race with a
+     * concurrent update is replanned against fresh balances.
+     */
+    private void settleBestEffort(List<TransferTransaction> transfers, BulkTransferItemResult[] results) {
+        for (int from = 0; from < transfers.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, transfers.size());
+            int chunkStart = from;
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> settleChunk(transfers, chunkStart, to, results, false));
+                    break;
+                } catch (ConcurrentUpdateException e) {
+                    if (attempt == MAX_CHUNK_ATTEMPTS) {
+                        markNotApplied(results, chunkStart, to, e.getMessage());
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Plans the chunk against current balances and, unless a transfer was rejected in all-or-nothing
+     * mode, applies it.
+     *
+     * @return false if a transfer was rejected and nothing was applied
+     */
+    private boolean settleChunk(List<TransferTransaction> transfers, int from, int to,
+                                BulkTransferItemResult[] results, boolean stopOnRejection) {
+        Set<Long> accountIds = new HashSet<>();
+        for (TransferTransaction transfer : transfers.subList(from, to)) {
+            accountIds.add(transfer.getSourceAccountId());
+            accountIds.add(transfer.getTargetAccountId());
+        }
+        Map<Long, Account> accounts = accountRepository.findAllByIdIn(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+        Map<Long, BigDecimal> balances = accountRepository.findBalancesByIdIn(accountIds);
+        if (balanceEngine.isInMemory()) {
+            balances.replaceAll((accountId, balance) -> balanceEngine.findBalance(accountId).map(Money::toBigDecimal).orElse(balance));
+        }
+
+        SortedMap<Long, BigDecimal> deltas = new TreeMap<>();
+        List<Transaction> ledger = new ArrayList<>();
+        List<OutboxEvent> outboxEvents = new ArrayList<>();
+        Set<Long> affectedUserIds = new HashSet<>();
+        List<ChargedFee> fees = new ArrayList<>();
+        List<PlannedTransfer> planned = new ArrayList<>();
+        boolean rejected = false;
+
+        for (int index = from; index < to; index++) {
+            TransferTransaction transfer = transfers.get(index);
+            Account sourceAccount = accounts.get(transfer.getSourceAccountId());
+            Account targetAccount = accounts.get(transfer.getTargetAccountId());
+
+            String rejection = validate(transfer, sourceAccount, targetAccount);
+            BigDecimal fee = BigDecimal.ZERO;
+            if (rejection == null) {
+                fee = transactionFeeService.calculateFee(transfer, sourceAccount).toBigDecimal();
+                BigDecimal total = transfer.getAmount().add(fee);
+                BigDecimal available = balances.get(sourceAccount.getId());
+                if (available.compareTo(total) < 0) {
+                    rejection = new InsufficientBalanceException(total, available).getMessage();
+                }
+            }
+
+            if (rejection != null) {
+                results[index] = item(index, BulkTransferItemStatus.REJECTED, rejection);
+                rejected = true;
+                continue;
+            }
+
+            BigDecimal total = transfer.getAmount().add(fee);
+            balances.merge(sourceAccount.getId(), total.negate(), BigDecimal::add);
+            balances.merge(targetAccount.getId(), transfer.getAmount(), BigDecimal::add);
+            deltas.merge(sourceAccount.getId(), total.negate(), BigDecimal::add);
+            deltas.merge(targetAccount.getId(), transfer.getAmount(), BigDecimal::add);
+            Money ledgerAmount = Money.of(transfer.getAmount());
+            Money ledgerFee = Money.of(fee);
+            planned.add(new PlannedTransfer(sourceAccount.getId(), targetAccount.getId(), ledgerAmount, ledgerFee));
+
+            ledger.add(Transaction.of(sourceAccount, ledgerAmount, ledgerFee, TransactionType.TRANSFER));
+            ledger.add(Transaction.of(targetAccount, ledgerAmount, ledgerFee, TransactionType.TRANSFER));
+            outboxEvents.add(OutboxEvent.transfer(sourceAccount.getId(), targetAccount.getId(), transfer.getAmount(), fee));
+            fees.add(new ChargedFee(sourceAccount.getCard().getCardType(), fee));
+            affectedUserIds.add(sourceAccount.getUser().getId());
+            affectedUserIds.add(targetAccount.getUser().getId());
+            results[index] = item(index, BulkTransferItemStatus.APPLIED, null);
+        }
+
+        if (rejected && stopOnRejection) {
+            return false;
+        }
+
+        applyBalances(deltas, planned);
+        if (!ledger.isEmpty()) {
+            transactionService.saveTransactions(ledger);
+            outboxService.appendAll(outboxEvents);
+            fees.forEach(charged -> accountMetrics.recordFee(charged.cardType(), charged.fee()));
+            eventPublisher.publishEvent(new BalanceChangedEvent(affectedUserIds));
+        }
+        return true;
+    }
+
+    private void applyBalances(SortedMap<Long, BigDecimal> deltas, List<PlannedTransfer> planned) {
+        if (balanceEngine.isInMemory()) {
+            //the engine owns the balances, so each transfer goes through it and a rollback undoes them there
+            for (PlannedTransfer transfer : planned) {
+                try {
+                    balanceEngine.transfer(transfer.sourceAccountId(), transfer.targetAccountId(),
+                            transfer.amount(), transfer.fee());
+                } catch (InsufficientBalanceException e) {
+                    throw new ConcurrentUpdateException(
+                            "Balance of account " + transfer.sourceAccountId() + " changed during the batch", e);
+                }
+            }
+            return;
+        }
+
+        deltas.values().removeIf(delta -> delta.signum() == 0);
+        if (!deltas.isEmpty()) {
+            List<Long> conflicting = accountRepository.applyBalanceDeltas(deltas);
+            if (!conflicting.isEmpty()) {
+                throw new ConcurrentUpdateException("Balance of accounts " + conflicting + " changed during the batch", null);
+            }
+        }
+    }
+
+    private String validate(TransferTransaction transfer, Account sourceAccount, Account targetAccount) {
+        if (sourceAccount == null) {
+            return "Source account not found";
+        }
+        try {
+            userContext.isAuthorized(sourceAccount);
+        } catch (UnauthorizedException e) {
+            return e.getMessage();
+        }
+        if (targetAccount == null) {
+            return "Target account not found";
+        }
+        return null;
+    }
+
+    private static void markNotApplied(BulkTransferItemResult[] results, int from, int to, String message) {
+        for (int index = from; index < to; index++) {
+            if (results[index] == null || results[index].getStatus() == BulkTransferItemStatus.APPLIED) {
+                results[index] = item(index, BulkTransferItemStatus.NOT_APPLIED, message);
+            }
+        }
+    }
+
+    private static BulkTransferItemResult item(int index, BulkTransferItemStatus status, String message) {
+        return BulkTransferItemResult.builder()
+                .index(index)
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    private static BulkTransferResult toResult(BulkTransferMode mode, BulkTransferItemResult[] results) {
+        Map<BulkTransferItemStatus, Long> counts = Arrays.stream(results)
+                .collect(Collectors.groupingBy(BulkTransferItemResult::getStatus, Collectors.counting()));
+        return BulkTransferResult.builder()
+                .mode(mode)
+                .applied(counts.getOrDefault(BulkTransferItemStatus.APPLIED, 0L))
+                .rejected(counts.getOrDefault(BulkTransferItemStatus.REJECTED, 0L))
+                .notApplied(counts.getOrDefault(BulkTransferItemStatus.NOT_APPLIED, 0L))
+                .results(List.of(results))
+                .build();
+    }
+
+    private record ChargedFee(CardType cardType, BigDecimal fee) {
+    }
+
+    private record PlannedTransfer(Long sourceAccountId, Long targetAccountId, Money amount, Money fee) {
+    }
+
+    /**
+     * Rolls the all-or-nothing transaction back once a transfer has been rejected.
+     */
+    private static class BatchRejectedException extends RuntimeException {
+        BatchRejectedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.rabobank.bankservice.service;
+
+/**
+ * How {@link AccountService} protects balance updates against concurrent requests.
+ */
+public enum ConcurrencyMode {
+    /**
+     * Conditional UPDATE statements; the database enforces the balance check.
+     */
+    ATOMIC,
+    /**
+     * Version-checked entity updates, replayed on conflict by {@link OptimisticRetryExecutor}.
+     */
+    OPTIMISTIC,
+    /**
+     * {@code SELECT ... FOR UPDATE} row locks, always acquired in ascending account id order.
+     */
+    PESSIMISTIC
+}
@@ -0,0 +1,63 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.fee.FeeRule;
+import com.rabobank.bankservice.repository.FeeRuleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Compiles the {@code fee_rules} table into the {@link TransactionFeeService} schedule at startup, where invalid
+ * rules fail the start, and again whenever the table has changed, where invalid rules are logged and the
+ * current schedule is kept.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class FeeRuleLoader implements InitializingBean {
+
+    private final FeeRuleRepository feeRuleRepository;
+    private final TransactionFeeService transactionFeeService;
+
+    private List<FeeRule> loadedRules;
+
+    @Autowired
+    FeeRuleLoader(FeeRuleRepository feeRuleRepository, TransactionFeeService transactionFeeService) {
+        this.feeRuleRepository = feeRuleRepository;
+        this.transactionFeeService = transactionFeeService;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${fee.rules.refresh-interval:PT1M}",
+            initialDelayString = "${fee.rules.refresh-interval:PT1M}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.error("Could not reload the fee rules, keeping the current ones", e);
+        }
+    }
+
+    /**
+     * @return whether the rules had changed and were swapped in
+     */
+    public synchronized boolean reload() {
+        List<FeeRule> rules = feeRuleRepository.findAll();
+        if (rules.equals(loadedRules)) {
+            return false;
+        }
+        transactionFeeService.replaceRules(rules);
+        loadedRules = rules;
+        log.info("Loaded {} fee rules", rules.size());
+        return true;
+    }
+}
@@ -0,0 +1,99 @@
+package com.rabobank.bankservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.IdempotencyRecord;
+import com.rabobank.bankservice.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Dedupe store for {@code Idempotency-Key} requests. The table is the source of truth and is written
+ * inside the balance transaction; recently committed keys are also kept in a bounded in-memory cache,
+ * so a client retry is answered with one map lookup. Keys are honoured for the TTL and purged afterwards.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class IdempotencyService {
+
+    private final IdempotencyRecordRepository repository;
+    private final Duration ttl;
+    private final Cache<CacheKey, IdempotencyRecord> cache;
+
+    @Autowired
+    IdempotencyService(IdempotencyRecordRepository repository,
+                       @Value("${account.idempotency.ttl:PT24H}") Duration ttl,
+                       @Value("${account.idempotency.cache.max-size:10000}") long maxSize,
+                       MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.ttl = ttl;
+
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency");
+    }
+
+    /**
+     * @return the committed outcome of an earlier request with this key, if it has not expired yet
+     */
+    public Optional<IdempotencyRecord> find(Long userId, String idempotencyKey) {
+        CacheKey cacheKey = new CacheKey(userId, idempotencyKey);
+        IdempotencyRecord cached = cache.getIfPresent(cacheKey);
+        if (cached != null && cached.getCreatedAt().isAfter(cutoff())) {
+            return Optional.of(cached);
+        }
+        Optional<IdempotencyRecord> stored =
+                repository.findByUserIdAndIdempotencyKeyAndCreatedAtAfter(userId, idempotencyKey, cutoff());
+        stored.ifPresent(record -> cache.put(cacheKey, record));
+        return stored;
+    }
+
+    /**
+     * Inserts the key in the caller's transaction. A concurrent request that already holds the same key
+     * makes the insert fail with a {@link org.springframework.dao.DataIntegrityViolationException},
+     * rolling back that request's balance change with it.
+     */
+    public void record(Long userId, String idempotencyKey, String requestHash, Account account) {
+        IdempotencyRecord record = repository.saveAndFlush(IdempotencyRecord.of(userId, idempotencyKey, requestHash, account));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.put(new CacheKey(userId, idempotencyKey), record);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${account.idempotency.cleanup-interval:PT10M}")
+    @Transactional
+    public int purgeExpired() {
+        return repository.deleteCreatedBefore(cutoff());
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minus(ttl);
+    }
+
+    private record CacheKey(Long userId, String idempotencyKey) {
+    }
+}
@@ -0,0 +1,179 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.entity.LedgerJournalEntry;
+import com.rabobank.bankservice.entity.Transaction;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.LedgerJournalRepository;
+import com.rabobank.bankservice.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns {@link LedgerJournalEntry} rows into {@code transactions} rows on a dedicated thread. It is woken
+ * after every commit that journaled something and moves up to {@code batch-size} entries per database
+ * transaction, inserting the ledger rows as JDBC batches, adding them to the daily totals and deleting
+ * the entries in the same transaction, so each entry is materialized exactly once. Entries left behind
+ * by a crash are replayed while the application starts, whatever the configured {@link LedgerMode}.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class LedgerJournalWriter implements InitializingBean, DisposableBean {
+
+    private final LedgerJournalRepository ledgerJournalRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final AccountDailyTotalsService dailyTotalsService;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerMode ledgerMode;
+    private final int batchSize;
+    private final long pollIntervalNanos;
+    private final long lingerNanos;
+    private final Semaphore wakeUp = new Semaphore(0);
+
+    private volatile Thread worker;
+
+    @Autowired
+    LedgerJournalWriter(LedgerJournalRepository ledgerJournalRepository,
+                        TransactionRepository transactionRepository,
+                        AccountRepository accountRepository,
+                        AccountDailyTotalsService dailyTotalsService,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${transaction.ledger.mode:sync}") LedgerMode ledgerMode,
+                        @Value("${transaction.ledger.write-behind.batch-size:500}") int batchSize,
+                        @Value("${transaction.ledger.write-behind.poll-interval:1s}") Duration pollInterval,
+                        @Value("${transaction.ledger.write-behind.linger:10ms}") Duration linger) {
+        this.ledgerJournalRepository = ledgerJournalRepository;
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.dailyTotalsService = dailyTotalsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ledgerMode = ledgerMode;
+        this.batchSize = batchSize;
+        this.pollIntervalNanos = pollInterval.toNanos();
+        this.lingerNanos = linger.toNanos();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        int replayed = drain();
+        if (replayed > 0) {
+            log.info("Replayed {} ledger journal entries left from a previous run", replayed);
+        }
+        if (ledgerMode == LedgerMode.WRITE_BEHIND) {
+            worker = new Thread(this::run, "ledger-journal-writer");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Wakes the writer once the current transaction commits, or right away outside of one.
+     */
+    public void wakeUpAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp.release();
+                }
+            });
+        } else {
+            wakeUp.release();
+        }
+    }
+
+    /**
+     * Materializes every pending entry.
+     *
+     * @return number of journal entries materialized
+     */
+    public synchronized int drain() {
+        int materialized = 0;
+        while (true) {
+            Integer batch = transactionTemplate.execute(status -> materializeBatch());
+            materialized += batch;
+            if (batch < batchSize) {
+                return materialized;
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        Thread current = worker;
+        if (current != null) {
+            worker = null;
+            current.interrupt();
+            current.join();
+        }
+        //whatever is left is replayed on the next start anyway, this just keeps the history current
+        drain();
+    }
+
+    private void run() {
+        while (worker != null) {
+            try {
+                if (wakeUp.tryAcquire(pollIntervalNanos, TimeUnit.NANOSECONDS)) {
+                    //let commits from concurrent requests accumulate, so under load a batch holds more than one entry
+                    TimeUnit.NANOSECONDS.sleep(lingerNanos);
+                }
+                //one drain covers every commit signalled so far
+                wakeUp.drainPermits();
+                drain();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Materializing the ledger journal failed, retrying", e);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(pollIntervalNanos);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private int materializeBatch() {
+        List<LedgerJournalEntry> entries = ledgerJournalRepository.findAllByOrderByIdAsc(Limit.of(batchSize));
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        List<Transaction> ledger = new ArrayList<>(entries.size() * 2);
+        for (LedgerJournalEntry entry : entries) {
+            ledger.add(toTransaction(entry, entry.getAccountId()));
+            if (entry.getTargetAccountId() != null) {
+                ledger.add(toTransaction(entry, entry.getTargetAccountId()));
+            }
+        }
+        transactionRepository.saveAll(ledger);
+        dailyTotalsService.record(ledger);
+        ledgerJournalRepository.deleteByIdIn(entries.stream().map(LedgerJournalEntry::getId).toList());
+        return entries.size();
+    }
+
+    private Transaction toTransaction(LedgerJournalEntry entry, Long accountId) {
+        //reference only, the account row is never read
+        Transaction transaction = Transaction.of(accountRepository.getReferenceById(accountId),
+                Money.of(entry.getAmount()), Money.of(entry.getFee()), entry.getType());
+        transaction.setTimestamp(entry.getTimestamp());
+        return transaction;
+    }
+}
@@ -0,0 +1,16 @@
+package com.rabobank.bankservice.service;
+
+/**
+ * When {@link TransactionService} writes the {@code transactions} rows of a balance change.
+ */
+public enum LedgerMode {
+    /**
+     * In the balance transaction, one row per account.
+     */
+    SYNC,
+    /**
+     * A single journal entry in the balance transaction; {@link LedgerJournalWriter} materializes the
+     * rows shortly after commit, so the history endpoints may trail the balance by a few milliseconds.
+     */
+    WRITE_BEHIND
+}
@@ -0,0 +1,74 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.error.ConcurrentUpdateException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Replays a unit of work that failed on an optimistic lock conflict, waiting a random ("full jitter")
+ * backoff between attempts so that competing requests don't collide again in lockstep.
+ * The unit of work must open and commit its own transaction, otherwise the conflict surfaces
+ * outside of this executor.
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+    static final String RETRIES_METRIC = "account.optimistic.retries";
+    static final String CONFLICTS_METRIC = "account.optimistic.conflicts";
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    OptimisticRetryExecutor(@Value("${account.concurrency.retry.max-attempts:5}") int maxAttempts,
+                            @Value("${account.concurrency.retry.initial-backoff:5ms}") Duration initialBackoff,
+                            @Value("${account.concurrency.retry.max-backoff:100ms}") Duration maxBackoff,
+                            MeterRegistry meterRegistry) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T execute(Long accountId, Supplier<T> unitOfWork) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return unitOfWork.get();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                //tagged by account so hot accounts stand out
+                String account = String.valueOf(accountId);
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter(CONFLICTS_METRIC, "account", account).increment();
+                    throw new ConcurrentUpdateException(
+                            "Account " + accountId + " was updated concurrently, giving up after " + attempt + " attempts", e);
+                }
+                meterRegistry.counter(RETRIES_METRIC, "account", account).increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.entity.OutboxEvent;
+import com.rabobank.bankservice.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Writes outbox events in the caller's transaction, so an event exists if and only if the balance
+ * change it describes committed. {@code OutboxRelay} delivers them afterwards.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final boolean enabled;
+
+    @Autowired
+    OutboxService(OutboxEventRepository outboxEventRepository,
+                  @Value("${outbox.enabled:true}") boolean enabled) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.enabled = enabled;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(OutboxEvent event) {
+        if (enabled) {
+            outboxEventRepository.save(event);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<OutboxEvent> events) {
+        if (enabled && !events.isEmpty()) {
+            outboxEventRepository.saveAll(events);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.context.ReactiveUserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.error.AccountNotFoundException;
+import com.rabobank.bankservice.error.InsufficientBalanceException;
+import com.rabobank.bankservice.model.AccountOverview;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.repository.ReactiveAccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Non-blocking variant of {@link AccountService} for the WebFlux stack. Balances are changed with the
+ * same conditional UPDATEs as the servlet stack's atomic mode, and ownership is checked with the same
+ * rule, so both stacks can serve the same database.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountService {
+
+    private final ReactiveAccountRepository accountRepository;
+    private final TransactionFeeService transactionFeeService;
+    private final ReactiveUserContext userContext;
+    private final TransactionalOperator transactionalOperator;
+
+    @Autowired
+    ReactiveAccountService(ReactiveAccountRepository accountRepository,
+                           TransactionFeeService transactionFeeService,
+                           ReactiveUserContext userContext,
+                           ReactiveTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.transactionFeeService = transactionFeeService;
+        this.userContext = userContext;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+    }
+
+    public Mono<List<AccountOverview>> getAccountOverview() {
+        return userContext.getCurrentUser()
+                .flatMap(user -> accountRepository.findOverviewByUserId(user.getId())
+                        .collectList()
+                        .filter(accounts -> !accounts.isEmpty())
+                        .switchIfEmpty(Mono.error(() ->
+                                new AccountNotFoundException("Account not found with user id: " + user.getId()))));
+    }
+
+    public Mono<Account> withdraw(WithdrawTransaction withdrawTransaction) {
+        return accountRepository.findById(withdrawTransaction.getAccount())
+                .switchIfEmpty(Mono.error(() -> new AccountNotFoundException("Account not found")))
+                //check if currentUser is the owner of the account
+                .flatMap(userContext::isAuthorized)
+                .flatMap(account -> {
+                    BigDecimal totalFee = transactionFeeService.calculateFee(withdrawTransaction, account).toBigDecimal();
+                    BigDecimal totalAmount = withdrawTransaction.getAmount().add(totalFee);
+
+                    return debit(account, totalAmount)
+                            .then(Mono.defer(() -> accountRepository.saveTransaction(account.getId(),
+                                    withdrawTransaction.getAmount(), totalFee, TransactionType.WITHDRAWAL)))
+                            .thenReturn(account);
+                })
+                .as(transactionalOperator::transactional);
+    }
+
+    public Mono<Account> transfer(TransferTransaction transferTransaction) {
+        Long sourceAccountId = transferTransaction.getSourceAccountId();
+        Long targetAccountId = transferTransaction.getTargetAccountId();
+
+        return accountRepository.findById(sourceAccountId)
+                .switchIfEmpty(Mono.error(() -> new AccountNotFoundException("Source account not found")))
+                //check if currentUser is the owner of the sourceAccount
+                .flatMap(userContext::isAuthorized)
+                .flatMap(sourceAccount -> {
+                    BigDecimal totalFee = transactionFeeService.calculateFee(transferTransaction, sourceAccount).toBigDecimal();
+                    BigDecimal totalAmount = transferTransaction.getAmount().add(totalFee);
+
+                    //update rows in ascending id order so crossing transfers can't deadlock on the row locks
+                    Mono<Void> debit = Mono.defer(() -> debit(sourceAccount, totalAmount));
+                    Mono<Void> credit = Mono.defer(() -> credit(targetAccountId, transferTransaction.getAmount()));
+                    Mono<Void> balances = sourceAccountId <= targetAccountId ? debit.then(credit) : credit.then(debit);
+
+                    return balances
+                            .then(Mono.defer(() -> accountRepository.saveTransaction(sourceAccountId,
+                                    transferTransaction.getAmount(), totalFee, TransactionType.TRANSFER)))
+                            .then(Mono.defer(() -> accountRepository.saveTransaction(targetAccountId,
+                                    transferTransaction.getAmount(), totalFee, TransactionType.TRANSFER)))
+                            .thenReturn(sourceAccount);
+                })
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Debits the account with a single conditional UPDATE and refreshes the in-memory balance afterwards.
+     */
+    private Mono<Void> debit(Account account, BigDecimal amount) {
+        Mono<BigDecimal> currentBalance = Mono.defer(() -> accountRepository.findBalanceById(account.getId()))
+                .switchIfEmpty(Mono.error(() -> new AccountNotFoundException("Account not found")));
+
+        return accountRepository.debit(account.getId(), amount)
+                .flatMap(updated -> updated == 0
+                        ? currentBalance.flatMap(balance -> Mono.<BigDecimal>error(new InsufficientBalanceException(amount, balance)))
+                        : currentBalance)
+                .doOnNext(account::setBalance)
+                .then();
+    }
+
+    private Mono<Void> credit(Long accountId, BigDecimal amount) {
+        return accountRepository.credit(accountId, amount)
+                .filter(updated -> updated > 0)
+                .switchIfEmpty(Mono.error(() -> new AccountNotFoundException("Target account not found")))
+                .then();
+    }
+}
@@ -0,0 +1,35 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.repository.ReactiveUserRepository;
+import com.rabobank.bankservice.security.AuthenticatedUser;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+
+/**
+ * Reactive counterpart of {@link CustomUserAuthService}, producing the same {@link AuthenticatedUser} principal.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserAuthService implements ReactiveUserDetailsService {
+    private final ReactiveUserRepository userRepository;
+
+    public ReactiveUserAuthService(ReactiveUserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public Mono<UserDetails> findByUsername(String email) {
+        return userRepository.findByEmail(email)
+                .map(user -> new AuthenticatedUser(user.getId(),
+                        user.getName(),
+                        user.getEmail(),
+                        user.getPassword(),
+                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+}
@@ -2,26 +2,52 @@ package com.rabobank.bankservice.service;
 
 import com.rabobank.bankservice.entity.Account;
 import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.fee.FeeRule;
+import com.rabobank.bankservice.fee.FeeSchedule;
+import com.rabobank.bankservice.model.Money;
 import com.rabobank.bankservice.model.request.BalanceTransaction;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
 
+/**
+ * Fees come from a {@link FeeSchedule}, rounded half-up to the cent, so the fee charged is the fee shown.
+ * Until {@link FeeRuleLoader} loads the {@code fee_rules} table, and in the reactive profile, the schedule is
+ * {@code credit.card.fee} of every credit-card withdrawal and transfer.
+ * <p>
+ * The schedule is replaced as a whole, so readers never lock: a fee is computed against whichever schedule
+ * was current when the call started.
+ */
 @Service
 public class TransactionFeeService {
 
-    private final BigDecimal creditCardFee;
+    private volatile FeeSchedule schedule;
 
     TransactionFeeService(@Value("${credit.card.fee:0.01}") BigDecimal creditCardFee) {
-        this.creditCardFee = creditCardFee;
+        this.schedule = FeeSchedule.compile(Arrays.stream(TransactionType.values())
+                .map(type -> FeeRule.percentage(CardType.CREDIT, type, creditCardFee))
+                .toList());
     }
 
-    public BigDecimal calculateFee(BalanceTransaction balanceTransaction, Account account) {
-        if (CardType.CREDIT.equals(account.getCard().getCardType())) {
-            return balanceTransaction.getAmount().multiply(creditCardFee);
-        }
+    public Money calculateFee(BalanceTransaction balanceTransaction, Account account) {
+        return calculateFee(Money.of(balanceTransaction.getAmount()), account.getCard().getCardType(),
+                balanceTransaction.transactionType());
+    }
+
+    public Money calculateFee(Money amount, CardType cardType, TransactionType transactionType) {
+        return schedule.fee(amount, cardType, transactionType);
+    }
 
-        return BigDecimal.ZERO;
+    /**
+     * Compiles the rules and swaps them in; on invalid rules the current schedule stays.
+     *
+     * @throws IllegalArgumentException if a rule is invalid, see {@link FeeSchedule#compile}
+     */
+    public void replaceRules(Collection<FeeRule> rules) {
+        schedule = FeeSchedule.compile(rules);
     }
 }
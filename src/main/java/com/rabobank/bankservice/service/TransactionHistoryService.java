@@ -0,0 +1,116 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.error.AccountNotFoundException;
+import com.rabobank.bankservice.error.InvalidCursorException;
+import com.rabobank.bankservice.model.TransactionDetail;
+import com.rabobank.bankservice.model.TransactionHistoryPage;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TransactionHistoryService {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserContext userContext;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int maxPageSize;
+
+    @Autowired
+    TransactionHistoryService(AccountRepository accountRepository,
+                              TransactionRepository transactionRepository,
+                              UserContext userContext,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${transaction.history.max-page-size:500}") int maxPageSize) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.userContext = userContext;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Transactional(readOnly = true)
+    public TransactionHistoryPage getPage(Long accountId, String cursor, int limit) {
+        authorize(accountId);
+
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        //one extra row tells us whether there is a next page without a count query
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<TransactionDetail> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = transactionRepository.findFirstPage(accountId, fetchLimit);
+        } else {
+            Cursor position = Cursor.decode(cursor);
+            rows = transactionRepository.findPageBefore(accountId, position.timestamp(), position.id(), fetchLimit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            TransactionDetail last = rows.get(pageSize - 1);
+            nextCursor = new Cursor(last.getTimestamp(), last.getId()).encode();
+        }
+
+        return TransactionHistoryPage.builder()
+                .transactions(List.copyOf(rows))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Checks access up front and returns the export, to be run later, possibly on another thread
+     * once the request has been handed to async processing.
+     */
+    public Consumer<Consumer<TransactionDetail>> prepareStream(Long accountId) {
+        authorize(accountId);
+        return consumer -> readOnlyTransactionTemplate.executeWithoutResult(
+                status -> transactionRepository.streamByAccountId(accountId, consumer));
+    }
+
+    private void authorize(Long accountId) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found"));
+
+        //check if currentUser is the owner of the account
+        userContext.isAuthorized(account);
+    }
+
+    private record Cursor(LocalDateTime timestamp, Long id) {
+
+        private static final char SEPARATOR = '|';
+
+        String encode() {
+            String raw = timestamp.toString() + SEPARATOR + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf(SEPARATOR);
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), Long.valueOf(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -1,38 +1,84 @@
 package com.rabobank.bankservice.service;
 
 import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.LedgerJournalEntry;
 import com.rabobank.bankservice.entity.Transaction;
 import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.repository.LedgerJournalRepository;
 import com.rabobank.bankservice.repository.TransactionRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class TransactionService {
 
     private final TransactionRepository transactionRepository;
+    private final LedgerJournalRepository ledgerJournalRepository;
+    private final LedgerJournalWriter ledgerJournalWriter;
+    private final AccountDailyTotalsService dailyTotalsService;
+    private final LedgerMode ledgerMode;
 
     @Autowired
-    TransactionService(TransactionRepository transactionRepository) {
+    TransactionService(TransactionRepository transactionRepository,
+                       LedgerJournalRepository ledgerJournalRepository,
+                       LedgerJournalWriter ledgerJournalWriter,
+                       AccountDailyTotalsService dailyTotalsService,
+                       @Value("${transaction.ledger.mode:sync}") LedgerMode ledgerMode) {
         this.transactionRepository = transactionRepository;
+        this.ledgerJournalRepository = ledgerJournalRepository;
+        this.ledgerJournalWriter = ledgerJournalWriter;
+        this.dailyTotalsService = dailyTotalsService;
+        this.ledgerMode = ledgerMode;
     }
 
     @Transactional
     public void saveTransaction(Account account,
-                                BigDecimal txnAmount,
-                                BigDecimal calculatedFee,
+                                Money txnAmount,
+                                Money calculatedFee,
                                 TransactionType type) {
-        Transaction transaction = new Transaction();
-        transaction.setAccount(account);
-        transaction.setAmount(txnAmount);
-        transaction.setCalculatedFee(calculatedFee);
-        transaction.setType(type);
-        transaction.setTimestamp(LocalDateTime.now());
-
+        if (ledgerMode == LedgerMode.WRITE_BEHIND) {
+            journal(LedgerJournalEntry.of(type, account.getId(), null, txnAmount.toBigDecimal(), calculatedFee.toBigDecimal()));
+            return;
+        }
+        Transaction transaction = Transaction.of(account, txnAmount, calculatedFee, type);
         transactionRepository.save(transaction);
+        dailyTotalsService.record(List.of(transaction));
+    }
+
+    /**
+     * Ledger rows of a transfer, one per account; in write-behind mode a single journal entry instead.
+     */
+    @Transactional
+    public void saveTransfer(Account sourceAccount, Account targetAccount, Money txnAmount, Money calculatedFee) {
+        if (ledgerMode == LedgerMode.WRITE_BEHIND) {
+            journal(LedgerJournalEntry.of(TransactionType.TRANSFER, sourceAccount.getId(), targetAccount.getId(),
+                    txnAmount.toBigDecimal(), calculatedFee.toBigDecimal()));
+            return;
+        }
+        saveTransactions(List.of(
+                Transaction.of(sourceAccount, txnAmount, calculatedFee, TransactionType.TRANSFER),
+                Transaction.of(targetAccount, txnAmount, calculatedFee, TransactionType.TRANSFER)));
+    }
+
+    /**
+     * Persists all ledger rows in one flush, so they go out as a single JDBC batch, and adds them to the
+     * daily totals.
+     */
+    @Transactional
+    public void saveTransactions(List<Transaction> transactions) {
+        transactionRepository.saveAll(transactions);
+        dailyTotalsService.record(transactions);
+    }
+
+    private void journal(LedgerJournalEntry entry) {
+        ledgerJournalRepository.save(entry);
+        ledgerJournalWriter.wakeUpAfterCommit();
     }
 }
@@ -0,0 +1,139 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.limit.WithdrawalCounters;
+import com.rabobank.bankservice.limit.WithdrawalCounters.Reservation;
+import com.rabobank.bankservice.limit.WithdrawalCounters.SeedUsage;
+import com.rabobank.bankservice.limit.WithdrawalLimitPolicy;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enforces the per-card-type daily amount and velocity limits of withdrawals from in-memory
+ * {@link WithdrawalCounters}, so the check costs no query. An account's counters are seeded on its first
+ * withdrawal after startup, from its {@code account_daily_totals} row of the day and its latest ledger rows;
+ * those queries run outside the counters' locks, so they never hold up other accounts.
+ * A reservation is released again when the withdrawal doesn't commit, whichever step of it failed.
+ * <p>
+ * The counters only see withdrawals of this instance; with several instances each enforces the limits
+ * on its own share.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WithdrawalLimitService {
+
+    private final AccountDailyTotalsService dailyTotalsService;
+    private final TransactionRepository transactionRepository;
+    private final Map<CardType, WithdrawalLimitPolicy> policies;
+    private final WithdrawalCounters counters;
+    private final Clock clock;
+    private final boolean enabled;
+
+    @Autowired
+    WithdrawalLimitService(AccountDailyTotalsService dailyTotalsService,
+                           TransactionRepository transactionRepository,
+                           @Value("${account.withdrawal-limit.enabled:false}") boolean enabled,
+                           @Value("${account.withdrawal-limit.stripes:64}") int stripes,
+                           @Value("${account.withdrawal-limit.debit.daily-amount:5000.00}") BigDecimal debitDailyAmount,
+                           @Value("${account.withdrawal-limit.debit.max-per-window:10}") int debitMaxPerWindow,
+                           @Value("${account.withdrawal-limit.debit.window:PT1M}") Duration debitWindow,
+                           @Value("${account.withdrawal-limit.credit.daily-amount:2500.00}") BigDecimal creditDailyAmount,
+                           @Value("${account.withdrawal-limit.credit.max-per-window:5}") int creditMaxPerWindow,
+                           @Value("${account.withdrawal-limit.credit.window:PT1M}") Duration creditWindow) {
+        this(dailyTotalsService, transactionRepository, enabled, stripes, Map.of(
+                CardType.DEBIT, new WithdrawalLimitPolicy(Money.of(debitDailyAmount).cents(), debitMaxPerWindow, debitWindow),
+                CardType.CREDIT, new WithdrawalLimitPolicy(Money.of(creditDailyAmount).cents(), creditMaxPerWindow, creditWindow)),
+                Clock.systemDefaultZone());
+    }
+
+    WithdrawalLimitService(AccountDailyTotalsService dailyTotalsService,
+                           TransactionRepository transactionRepository,
+                           boolean enabled,
+                           int stripes,
+                           Map<CardType, WithdrawalLimitPolicy> policies,
+                           Clock clock) {
+        this.dailyTotalsService = dailyTotalsService;
+        this.transactionRepository = transactionRepository;
+        this.enabled = enabled;
+        this.policies = new EnumMap<>(policies);
+        this.counters = new WithdrawalCounters(stripes, clock);
+        this.clock = clock;
+        for (CardType cardType : CardType.values()) {
+            if (!this.policies.containsKey(cardType)) {
+                throw new IllegalArgumentException("No withdrawal limits for card type " + cardType);
+            }
+        }
+    }
+
+    /**
+     * Counts the withdrawal against the account's limits. Must run in the withdrawal's transaction: the
+     * reservation is released when that rolls back, or, within a group commit batch, when the withdrawal
+     * is rolled back to its savepoint.
+     *
+     * @return the reservation, {@code null} if limits are disabled
+     * @throws com.rabobank.bankservice.error.WithdrawalLimitExceededException if a limit would be exceeded
+     */
+    public Reservation reserve(Account account, Money amount) {
+        if (!enabled) {
+            return null;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Withdrawal limits can only be reserved in a transaction");
+        }
+        WithdrawalLimitPolicy policy = policies.get(account.getCard().getCardType());
+        Reservation reservation = counters.reserve(account.getId(), amount.cents(), policy, this::seed);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    counters.release(reservation);
+                }
+            }
+        });
+        return reservation;
+    }
+
+    @Scheduled(fixedDelayString = "${account.withdrawal-limit.eviction-interval:PT10M}")
+    public void evictIdle() {
+        int evicted = counters.evictIdle();
+        if (evicted > 0) {
+            log.debug("Evicted the withdrawal counters of {} idle accounts", evicted);
+        }
+    }
+
+    public int trackedAccounts() {
+        return counters.size();
+    }
+
+    private SeedUsage seed(Long accountId, LocalDate day, long since) {
+        BigDecimal withdrawnToday = dailyTotalsService.findDailyTotal(accountId, day, TransactionType.WITHDRAWAL)
+                .getAmount();
+        List<LocalDateTime> recent = transactionRepository.findTimestampsAfter(accountId, TransactionType.WITHDRAWAL,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(since), clock.getZone()));
+        long[] times = recent.stream()
+                .mapToLong(timestamp -> timestamp.atZone(clock.getZone()).toInstant().toEpochMilli())
+                .toArray();
+        return new SeedUsage(Money.of(withdrawnToday).cents(), times);
+    }
+}
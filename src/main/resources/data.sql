@@ -34,4 +34,9 @@ INSERT INTO accounts (user_id, card_id, balance)
 SELECT u.id, c.id, 2000.00
 FROM users u, cards c
 WHERE u.email = 'user.2@example.com'
-AND c.card_number = '5555555555554445';
\ No newline at end of file
+AND c.card_number = '5555555555554445';
+
+-- one percent of every credit-card withdrawal and transfer
+MERGE INTO fee_rules (card_type, transaction_type, amount_from, rate) KEY (card_type, transaction_type, amount_from) VALUES
+    ('CREDIT', 'WITHDRAWAL', 0.00, 0.010000),
+    ('CREDIT', 'TRANSFER', 0.00, 0.010000);
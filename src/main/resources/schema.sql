@@ -16,16 +16,99 @@ CREATE TABLE IF NOT EXISTS accounts (
     user_id BIGINT NOT NULL,
     card_id BIGINT NOT NULL,
     balance DECIMAL(19,2) NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
     FOREIGN KEY (user_id) REFERENCES users(id),
     FOREIGN KEY (card_id) REFERENCES cards(id)
 );
 
+CREATE SEQUENCE IF NOT EXISTS transactions_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS transactions (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     account_id BIGINT NOT NULL,
     amount DECIMAL(19,2) NOT NULL,
     calculated_fee DECIMAL(19,2) NOT NULL,
     type VARCHAR(20) NOT NULL,
     timestamp TIMESTAMP NOT NULL,
     FOREIGN KEY (account_id) REFERENCES accounts(id)
-);
\ No newline at end of file
+);
+
+-- keyset pagination of an account's history on (timestamp, id)
+CREATE INDEX IF NOT EXISTS idx_transactions_account_timestamp_id ON transactions (account_id, timestamp, id);
+
+-- per account, day and type rollup of transactions, kept in step with every ledger insert by AccountDailyTotalsService
+CREATE TABLE IF NOT EXISTS account_daily_totals (
+    account_id BIGINT NOT NULL,
+    ledger_date DATE NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    amount DECIMAL(19,2) NOT NULL,
+    fee DECIMAL(19,2) NOT NULL,
+    PRIMARY KEY (account_id, ledger_date, type)
+);
+
+-- write-behind ledger journal, materialized into transactions and deleted by LedgerJournalWriter
+CREATE SEQUENCE IF NOT EXISTS ledger_journal_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS ledger_journal (
+    id BIGINT PRIMARY KEY,
+    type VARCHAR(20) NOT NULL,
+    account_id BIGINT NOT NULL,
+    target_account_id BIGINT,
+    amount DECIMAL(19,2) NOT NULL,
+    fee DECIMAL(19,2) NOT NULL,
+    timestamp TIMESTAMP NOT NULL
+);
+
+-- LSN of the last balance mutation log frame applied to accounts by ShardedBalanceEngine
+CREATE TABLE IF NOT EXISTS balance_engine_checkpoint (
+    id INT PRIMARY KEY,
+    lsn BIGINT NOT NULL
+);
+
+-- LSNs of balance mutation log frames whose transaction committed, written in that transaction;
+-- frames after the checkpoint without a row here are not replayed
+CREATE TABLE IF NOT EXISTS balance_engine_commits (
+    lsn BIGINT PRIMARY KEY
+);
+
+-- transactional outbox, drained and deleted by OutboxRelay
+CREATE SEQUENCE IF NOT EXISTS outbox_events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT PRIMARY KEY,
+    type VARCHAR(20) NOT NULL,
+    account_id BIGINT NOT NULL,
+    target_account_id BIGINT,
+    amount DECIMAL(19,2) NOT NULL,
+    fee DECIMAL(19,2) NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+-- Idempotency-Key dedupe store for withdraw/transfer, purged by created_at once the TTL has passed
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    idempotency_key VARCHAR(64) NOT NULL,
+    request_hash VARCHAR(255) NOT NULL,
+    account_id BIGINT NOT NULL,
+    balance DECIMAL(19,2) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_idempotency_keys_user_key UNIQUE (user_id, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);
+
+-- fee tiers per card type and transaction type, compiled by FeeRuleLoader: from amount_from up to the next tier the
+-- fee is flat_fee + rate * amount, clamped to [min_fee, max_fee] (no cap when max_fee is null)
+CREATE TABLE IF NOT EXISTS fee_rules (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    card_type VARCHAR(20) NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    amount_from DECIMAL(19,2) NOT NULL DEFAULT 0,
+    flat_fee DECIMAL(19,2) NOT NULL DEFAULT 0,
+    rate DECIMAL(9,6) NOT NULL DEFAULT 0,
+    min_fee DECIMAL(19,2) NOT NULL DEFAULT 0,
+    max_fee DECIMAL(19,2),
+    CONSTRAINT uk_fee_rules_tier UNIQUE (card_type, transaction_type, amount_from)
+);
@@ -0,0 +1,69 @@
+package com.rabobank.bankservice;
+
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.Card;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.UserRepository;
+import com.rabobank.bankservice.service.AccountDailyTotalsService;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Saves users and accounts for integration tests, with a fresh email and card number each, as tests share
+ * the database with the rest of their context. Tests pull it in with {@code @Import(TestAccounts.class)}.
+ */
+@TestComponent
+public class TestAccounts {
+
+    public static final String PASSWORD = "123";
+
+    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
+    private final AccountDailyTotalsService dailyTotalsService;
+    private final PasswordEncoder passwordEncoder;
+
+    TestAccounts(UserRepository userRepository,
+                 AccountRepository accountRepository,
+                 AccountDailyTotalsService dailyTotalsService,
+                 PasswordEncoder passwordEncoder) {
+        this.userRepository = userRepository;
+        this.accountRepository = accountRepository;
+        this.dailyTotalsService = dailyTotalsService;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    /**
+     * Saves a user who logs in with {@link #PASSWORD}.
+     */
+    public User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        return userRepository.save(user);
+    }
+
+    public Account debitAccount(User user) {
+        return account(user, CardType.DEBIT, "1000.00");
+    }
+
+    public Account account(User user, CardType cardType, String balance) {
+        Card card = new Card();
+        card.setCardType(cardType);
+        card.setCardNumber(UUID.randomUUID().toString().substring(0, 16));
+
+        Account account = new Account();
+        account.setUser(user);
+        account.setCard(card);
+        account.setBalance(new BigDecimal(balance));
+        accountRepository.save(account);
+        //ids start over in every test context, but the rollup is shared with earlier contexts' accounts
+        dailyTotalsService.rebuild(account.getId());
+        return account;
+    }
+}
@@ -0,0 +1,89 @@
+package com.rabobank.bankservice.balance;
+
+import com.rabobank.bankservice.balance.BalanceMutationLog.Frame;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kills a journal writer process with SIGKILL while it appends and checks that recovery returns every
+ * frame it acknowledged, and no partial ones.
+ */
+class BalanceJournalCrashTest {
+
+    //an odd number of records, so frames of two never end exactly on a segment boundary
+    private static final DataSize SEGMENT_SIZE = DataSize.ofBytes(101L * BalanceJournal.RECORD_BYTES);
+    private static final long FEE_CENTS = 1;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void recover_AfterWriterWasKilledMidSegment_ShouldKeepEveryAcknowledgedFrame() throws Exception {
+        Process writer = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                Writer.class.getName(), directory.toString())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        long acknowledged = 0;
+        try (BufferedReader acknowledgements = new BufferedReader(
+                new InputStreamReader(writer.getInputStream(), StandardCharsets.US_ASCII))) {
+            while (acknowledged < 2_000) {
+                String line = acknowledgements.readLine();
+                assertNotNull(line, "writer exited before it was killed");
+                acknowledged = Long.parseLong(line);
+            }
+            writer.destroyForcibly();
+            assertTrue(writer.waitFor(30, TimeUnit.SECONDS));
+        }
+
+        List<Frame> frames = new ArrayList<>();
+        BalanceJournal journal = new BalanceJournal(directory, SEGMENT_SIZE, Duration.ZERO, new SimpleMeterRegistry());
+        journal.recover(0, frames::add);
+        journal.destroy();
+
+        assertTrue(frames.size() >= acknowledged, "lost acknowledged frames: " + frames.size() + " < " + acknowledged);
+        for (int i = 0; i < frames.size(); i++) {
+            Frame frame = frames.get(i);
+            assertEquals(i + 1, frame.lsn());
+            assertEquals(2, frame.deltas().size());
+            assertEquals(-FEE_CENTS, frame.deltas().get(0).cents() + frame.deltas().get(1).cents());
+        }
+    }
+
+    /**
+     * Appends transfers forever and prints each LSN once it is durable.
+     */
+    public static class Writer {
+
+        public static void main(String[] args) {
+            BalanceJournal journal = new BalanceJournal(Path.of(args[0]), SEGMENT_SIZE, Duration.ofMillis(1),
+                    new SimpleMeterRegistry());
+            journal.recover(0, frame -> {
+            });
+            for (long i = 1; ; i++) {
+                long lsn = journal.append(BalanceMutationType.TRANSFER, FEE_CENTS,
+                        List.of(new BalanceDelta(1, -100 - FEE_CENTS), new BalanceDelta(2, 100)));
+                journal.awaitDurable(lsn);
+                System.out.println(lsn);
+                System.out.flush();
+            }
+        }
+    }
+}
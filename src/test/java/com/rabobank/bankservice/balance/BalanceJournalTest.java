@@ -0,0 +1,146 @@
+package com.rabobank.bankservice.balance;
+
+import com.rabobank.bankservice.balance.BalanceMutationLog.Frame;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BalanceJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BalanceJournal open(int recordsPerSegment, Duration groupCommitWindow, List<Frame> recovered) {
+        BalanceJournal journal = new BalanceJournal(directory,
+                DataSize.ofBytes((long) recordsPerSegment * BalanceJournal.RECORD_BYTES), groupCommitWindow, meterRegistry);
+        journal.recover(0, recovered::add);
+        return journal;
+    }
+
+    @Test
+    void recover_ShouldReturnEveryFrameAcrossRolledSegments() throws Exception {
+        BalanceJournal journal = open(4, Duration.ZERO, new ArrayList<>());
+        for (int i = 1; i <= 5; i++) {
+            long lsn = journal.append(BalanceMutationType.TRANSFER, i,
+                    List.of(new BalanceDelta(1, -100 - i), new BalanceDelta(2, 100)));
+            journal.awaitDurable(lsn);
+        }
+        journal.append(BalanceMutationType.WITHDRAWAL, 0, List.of(new BalanceDelta(3, -50)));
+        journal.destroy();
+
+        List<Frame> frames = new ArrayList<>();
+        BalanceJournal reopened = open(4, Duration.ZERO, frames);
+
+        assertEquals(6, frames.size());
+        Frame third = frames.get(2);
+        assertEquals(3, third.lsn());
+        assertEquals(BalanceMutationType.TRANSFER, third.type());
+        assertEquals(3, third.feeCents());
+        assertEquals(List.of(new BalanceDelta(1, -103), new BalanceDelta(2, 100)), third.deltas());
+        assertEquals(BalanceMutationType.WITHDRAWAL, frames.get(5).type());
+        assertEquals(6, reopened.lastLsn());
+        //two frames per segment, plus the one started on recovery
+        assertEquals(4, segmentCount());
+        reopened.destroy();
+    }
+
+    @Test
+    void recover_ShouldDropFrameCutOffByCrash_AndContinueAfterIt() throws Exception {
+        BalanceJournal journal = open(100, Duration.ZERO, new ArrayList<>());
+        journal.append(BalanceMutationType.WITHDRAWAL, 0, List.of(new BalanceDelta(1, -10)));
+        journal.append(BalanceMutationType.WITHDRAWAL, 0, List.of(new BalanceDelta(1, -20)));
+        journal.append(BalanceMutationType.TRANSFER, 0, List.of(new BalanceDelta(1, -30), new BalanceDelta(2, 30)));
+        journal.destroy();
+        //the second record of the transfer never reached the disk
+        try (FileChannel segment = FileChannel.open(firstSegment(), StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.allocate(BalanceJournal.RECORD_BYTES), 3L * BalanceJournal.RECORD_BYTES);
+        }
+
+        List<Frame> frames = new ArrayList<>();
+        BalanceJournal reopened = open(100, Duration.ZERO, frames);
+        assertEquals(List.of(1L, 2L), frames.stream().map(Frame::lsn).toList());
+        assertEquals(3, reopened.append(BalanceMutationType.WITHDRAWAL, 0, List.of(new BalanceDelta(1, -5))));
+        reopened.destroy();
+
+        List<Frame> afterRestart = new ArrayList<>();
+        open(100, Duration.ZERO, afterRestart).destroy();
+        assertEquals(List.of(1L, 2L, 3L), afterRestart.stream().map(Frame::lsn).toList());
+        assertEquals(List.of(new BalanceDelta(1, -5)), afterRestart.get(2).deltas());
+    }
+
+    @Test
+    void awaitDurable_ShouldShareOneForceBetweenConcurrentAppends() throws Exception {
+        BalanceJournal journal = open(10_000, Duration.ofMillis(5), new ArrayList<>());
+        int threads = 8;
+        int appendsPerThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < appendsPerThread; j++) {
+                    journal.awaitDurable(journal.append(BalanceMutationType.WITHDRAWAL, 0, List.of(new BalanceDelta(1, -1))));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        journal.destroy();
+
+        double syncs = meterRegistry.get(BalanceJournal.SYNCS_METRIC).counter().count();
+        assertTrue(syncs < threads * appendsPerThread, "expected grouped forces, got " + syncs);
+        List<Frame> frames = new ArrayList<>();
+        open(10_000, Duration.ZERO, frames).destroy();
+        assertEquals(threads * appendsPerThread, frames.size());
+    }
+
+    @Test
+    void discardUpTo_ShouldOnlyDeleteSegmentsThatAreFullyCheckpointed() throws Exception {
+        BalanceJournal journal = open(2, Duration.ZERO, new ArrayList<>());
+        for (int i = 0; i < 5; i++) {
+            journal.append(BalanceMutationType.WITHDRAWAL, 0, List.of(new BalanceDelta(1, -1)));
+        }
+        assertEquals(3, segmentCount());
+
+        //the segment holding frames 3 and 4 is only half checkpointed
+        journal.discardUpTo(3);
+
+        assertEquals(2, segmentCount());
+        journal.destroy();
+        List<Frame> frames = new ArrayList<>();
+        open(2, Duration.ZERO, frames).destroy();
+        assertEquals(List.of(3L, 4L, 5L), frames.stream().map(Frame::lsn).toList());
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private Path firstSegment() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().findFirst().orElseThrow();
+        }
+    }
+}
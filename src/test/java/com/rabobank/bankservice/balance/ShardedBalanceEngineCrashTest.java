@@ -0,0 +1,112 @@
+package com.rabobank.bankservice.balance;
+
+import com.rabobank.bankservice.BankServiceApplication;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kills the service with SIGKILL after a withdrawal's frame is durable but before its transaction
+ * commits, and checks that the restart replays the committed withdrawal before it and not that one.
+ */
+class ShardedBalanceEngineCrashTest {
+
+    private static final String DURABLE = "durable";
+    //the first account of data.sql
+    private static final long ACCOUNT_ID = 1;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void startup_AfterKillBetweenJournalFsyncAndCommit_ShouldOnlyReplayCommittedWithdrawals() throws Exception {
+        Process service = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                Service.class.getName(), directory.toString())
+                .redirectErrorStream(true)
+                .start();
+
+        try (BufferedReader output = new BufferedReader(
+                new InputStreamReader(service.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            do {
+                line = output.readLine();
+                assertNotNull(line, "service exited before it was killed");
+            } while (!line.equals(DURABLE));
+            service.destroyForcibly();
+            assertTrue(service.waitFor(30, TimeUnit.SECONDS));
+        }
+
+        try (ConfigurableApplicationContext restarted = start(directory, false)) {
+            assertEquals(Money.of("900.00"),
+                    restarted.getBean(AccountRepository.class).findBalanceById(ACCOUNT_ID).orElseThrow());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Path directory, boolean initializeDatabase) {
+        return new SpringApplicationBuilder(BankServiceApplication.class).run(
+                //a file database that writes every commit before it returns, so it survives the kill like the journal
+                "--spring.datasource.url=jdbc:h2:file:" + directory.resolve("bankdb") + ";FILE_LOCK=NO;WRITE_DELAY=0",
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--spring.sql.init.mode=" + (initializeDatabase ? "always" : "never"),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.springframework.security=INFO",
+                "--server.port=0",
+                "--management.server.port=0",
+                "--outbox.relay.enabled=false",
+                "--account.balance-engine=sharded",
+                "--account.balance-engine.checkpoint-interval=PT1H",
+                "--account.balance-engine.journal.directory=" + directory.resolve("journal"));
+    }
+
+    /**
+     * Commits a withdrawal of 100.00, then withdraws 200.00 and prints {@link #DURABLE} from inside its
+     * commit, before the database commits, and waits there to be killed.
+     */
+    public static class Service {
+
+        public static void main(String[] args) throws InterruptedException {
+            ConfigurableApplicationContext context = start(Path.of(args[0]), true);
+            BalanceEngine balanceEngine = context.getBean(BalanceEngine.class);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    context.getBean(PlatformTransactionManager.class));
+
+            transactionTemplate.executeWithoutResult(status ->
+                    balanceEngine.debit(ACCOUNT_ID, Money.of("100.00"), Money.ZERO));
+            transactionTemplate.executeWithoutResult(status -> {
+                balanceEngine.debit(ACCOUNT_ID, Money.of("200.00"), Money.ZERO);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        System.out.println(DURABLE);
+                        System.out.flush();
+                        try {
+                            new CountDownLatch(1).await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            });
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.rabobank.bankservice.balance;
+
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.AccountOverview;
+import com.rabobank.bankservice.model.BulkTransferResult;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.model.request.BulkTransferMode;
+import com.rabobank.bankservice.model.request.BulkTransferRequest;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.BalanceCheckpointRepository;
+import com.rabobank.bankservice.service.AccountService;
+import com.rabobank.bankservice.service.BulkTransferService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        //own database, so the checkpoints of other contexts' engines can't interfere
+        "spring.datasource.url=jdbc:h2:mem:balanceenginedb",
+        "account.balance-engine=sharded",
+        "account.balance-engine.checkpoint-interval=PT1H"
+})
+@Import(TestAccounts.class)
+class ShardedBalanceEngineIntegrationTest {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void balanceJournal(DynamicPropertyRegistry registry) {
+        registry.add("account.balance-engine.journal.directory", journalDirectory::toString);
+    }
+
+    @MockitoBean
+    private UserContext userContext;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private BulkTransferService bulkTransferService;
+
+    @Autowired
+    private ShardedBalanceEngine balanceEngine;
+
+    @Autowired
+    private BalanceMutationLog mutationLog;
+
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private User user;
+    private Account sourceAccount;
+    private Account targetAccount;
+
+    @BeforeEach
+    void setUp() {
+        user = testAccounts.user("Engine");
+        sourceAccount = testAccounts.debitAccount(user);
+        targetAccount = testAccounts.debitAccount(user);
+        when(userContext.getCurrentUser()).thenReturn(user);
+    }
+
+    @Test
+    void withdrawAndTransfer_ShouldReachAccountsTableWithCheckpoint() {
+        Account afterWithdraw = accountService.withdraw(withdraw(sourceAccount, "100.00"));
+        Account afterTransfer = accountService.transfer(transfer(sourceAccount, targetAccount, "250.00"));
+
+        assertEquals(new BigDecimal("900.00"), afterWithdraw.getBalance());
+        assertEquals(new BigDecimal("650.00"), afterTransfer.getBalance());
+        //the table trails the engine until the next checkpoint, the overview does not
+        assertEquals(new BigDecimal("1000.00"), accountRepository.findBalanceById(sourceAccount.getId()).orElseThrow().toBigDecimal());
+        List<AccountOverview> overview = accountService.getAccountOverview();
+        assertEquals(new BigDecimal("650.00"), overview.get(0).getBalance());
+        assertEquals(new BigDecimal("1250.00"), overview.get(1).getBalance());
+
+        balanceEngine.checkpoint();
+
+        assertEquals(new BigDecimal("650.00"), accountRepository.findBalanceById(sourceAccount.getId()).orElseThrow().toBigDecimal());
+        assertEquals(new BigDecimal("1250.00"), accountRepository.findBalanceById(targetAccount.getId()).orElseThrow().toBigDecimal());
+        assertEquals(mutationLog.lastLsn(), checkpointRepository.findLsn());
+    }
+
+    @Test
+    void bulkTransfer_ShouldGoThroughEngine() {
+        BulkTransferRequest request = new BulkTransferRequest();
+        request.setMode(BulkTransferMode.BEST_EFFORT);
+        request.setTransfers(List.of(
+                transfer(sourceAccount, targetAccount, "600.00"),
+                transfer(sourceAccount, targetAccount, "600.00")));
+
+        BulkTransferResult result = bulkTransferService.transfer(request);
+
+        assertEquals(1, result.getApplied());
+        assertEquals(1, result.getRejected());
+        assertEquals(Money.of("400.00"), balanceEngine.findBalance(sourceAccount.getId()).orElseThrow());
+        assertEquals(Money.of("1600.00"), balanceEngine.findBalance(targetAccount.getId()).orElseThrow());
+    }
+
+    private static WithdrawTransaction withdraw(Account account, String amount) {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(account.getId());
+        withdrawTransaction.setAmount(new BigDecimal(amount));
+        return withdrawTransaction;
+    }
+
+    private static TransferTransaction transfer(Account source, Account target, String amount) {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(source.getId());
+        transferTransaction.setTargetAccountId(target.getId());
+        transferTransaction.setAmount(new BigDecimal(amount));
+        return transferTransaction;
+    }
+}
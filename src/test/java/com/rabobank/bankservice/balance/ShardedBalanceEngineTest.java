@@ -0,0 +1,263 @@
+package com.rabobank.bankservice.balance;
+
+import com.rabobank.bankservice.error.AccountNotFoundException;
+import com.rabobank.bankservice.error.InsufficientBalanceException;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.BalanceCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedBalanceEngineTest {
+
+    //with two shards, accounts 1 and 3 share a shard and account 2 is on the other one
+    private static final int SHARDS = 2;
+
+    @TempDir
+    private Path journalDirectory;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BalanceJournal mutationLog;
+    private ShardedBalanceEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("100.00")));
+        lenient().when(accountRepository.findBalanceById(2L)).thenReturn(Optional.of(Money.of("50.00")));
+        lenient().when(accountRepository.findBalanceById(3L)).thenReturn(Optional.of(Money.of("10.00")));
+        engine = startEngine();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        engine.destroy();
+        mutationLog.destroy();
+    }
+
+    private ShardedBalanceEngine startEngine() {
+        mutationLog = new BalanceJournal(journalDirectory, DataSize.ofKilobytes(4), Duration.ofMillis(1),
+                new SimpleMeterRegistry());
+        ShardedBalanceEngine started = new ShardedBalanceEngine(accountRepository, checkpointRepository, mutationLog,
+                transactionManager, SHARDS);
+        started.afterPropertiesSet();
+        return started;
+    }
+
+    @Test
+    void debit_ShouldKeepBalanceInMemory_AndLogTheChange() {
+        assertEquals(Money.of("60.00"), engine.debit(1L, Money.of("40.00"), Money.ZERO));
+        assertEquals(Money.of("59.99"), engine.debit(1L, Money.of("0.01"), Money.ZERO));
+
+        assertEquals(Optional.of(Money.of("59.99")), engine.findBalance(1L));
+        assertEquals(2, mutationLog.lastLsn());
+        verify(accountRepository, never()).addBalanceDeltas(any());
+    }
+
+    @Test
+    void debit_ShouldRejectOverdraft_WithoutLogging() {
+        assertThrows(InsufficientBalanceException.class, () -> engine.debit(1L, Money.of("100.00"), Money.of("0.01")));
+
+        assertEquals(Optional.of(Money.of("100.00")), engine.findBalance(1L));
+        assertEquals(0, mutationLog.lastLsn());
+    }
+
+    @Test
+    void transfer_AcrossShards_ShouldDebitSourceAndCreditTarget() {
+        Money sourceBalance = engine.transfer(1L, 2L, Money.of("30.00"), Money.of("0.30"));
+
+        assertEquals(Money.of("69.70"), sourceBalance);
+        assertEquals(Optional.of(Money.of("80.00")), engine.findBalance(2L));
+        assertEquals(1, mutationLog.lastLsn());
+    }
+
+    @Test
+    void transfer_WithinShard_ShouldDebitSourceAndCreditTarget() {
+        assertEquals(Money.of("90.00"), engine.transfer(1L, 3L, Money.of("10.00"), Money.ZERO));
+        assertEquals(Optional.of(Money.of("20.00")), engine.findBalance(3L));
+    }
+
+    @Test
+    void transfer_ShouldReleaseReservation_WhenTargetDoesNotExist() {
+        when(accountRepository.findBalanceById(4L)).thenReturn(Optional.empty());
+
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class,
+                () -> engine.transfer(1L, 4L, Money.of("100.00"), Money.ZERO));
+
+        assertEquals("Target account not found", exception.getMessage());
+        //the full balance is available again
+        assertEquals(Money.ZERO, engine.debit(1L, Money.of("100.00"), Money.ZERO));
+    }
+
+    @Test
+    void transfer_ShouldBeUndone_WhenTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        engine.transfer(1L, 2L, Money.of("20.00"), Money.ZERO);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(Optional.of(Money.of("100.00")), engine.findBalance(1L));
+        assertEquals(Optional.of(Money.of("50.00")), engine.findBalance(2L));
+        //the compensation is logged as well, but neither frame is committed, so a checkpoint skips both
+        assertEquals(2, mutationLog.lastLsn());
+        engine.checkpoint();
+        verify(accountRepository, never()).addBalanceDeltas(any());
+        verify(checkpointRepository).saveLsn(2);
+    }
+
+    @Test
+    void concurrentCrossShardTransfers_ShouldNeverOverdrawAndConserveMoney() throws Exception {
+        int transfers = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < transfers; i++) {
+            boolean forward = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                try {
+                    if (forward) {
+                        engine.transfer(1L, 2L, Money.of("7.00"), Money.ZERO);
+                    } else {
+                        engine.transfer(2L, 1L, Money.of("3.00"), Money.ZERO);
+                    }
+                } catch (InsufficientBalanceException ignored) {
+                    //expected once a side runs dry
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Money first = engine.findBalance(1L).orElseThrow();
+        Money second = engine.findBalance(2L).orElseThrow();
+        assertTrue(!first.isNegative() && !second.isNegative());
+        assertEquals(Money.of("150.00"), first.plus(second));
+    }
+
+    @Test
+    void checkpoint_ShouldAddChangesToAccountsTable() {
+        engine.transfer(1L, 2L, Money.of("10.00"), Money.of("0.10"));
+        engine.debit(3L, Money.of("5.00"), Money.ZERO);
+
+        engine.checkpoint();
+
+        verify(accountRepository).addBalanceDeltas(new TreeMap<>(Map.of(
+                1L, new BigDecimal("-10.10"),
+                2L, new BigDecimal("10.00"),
+                3L, new BigDecimal("-5.00"))));
+        verify(checkpointRepository).saveLsn(2);
+    }
+
+    @Test
+    void checkpoint_ShouldStopBeforeFrameWhoseTransactionIsOpen() {
+        TransactionSynchronizationManager.initSynchronization();
+        engine.debit(1L, Money.of("1.00"), Money.ZERO);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        engine.debit(3L, Money.of("2.00"), Money.ZERO);
+
+        engine.checkpoint();
+
+        verify(accountRepository, never()).addBalanceDeltas(any());
+        verify(checkpointRepository, never()).saveLsn(anyLong());
+
+        synchronizations.forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        engine.checkpoint();
+
+        verify(accountRepository).addBalanceDeltas(new TreeMap<>(Map.of(
+                1L, new BigDecimal("-1.00"),
+                3L, new BigDecimal("-2.00"))));
+        verify(checkpointRepository).saveLsn(2);
+    }
+
+    @Test
+    void checkpoint_ShouldDoNothing_WhenNothingChanged() {
+        engine.checkpoint();
+
+        verify(accountRepository, never()).addBalanceDeltas(any());
+        verify(checkpointRepository, never()).saveLsn(anyLong());
+    }
+
+    @Test
+    void startup_ShouldReplayFramesAfterTheCheckpoint() throws Exception {
+        engine.debit(1L, Money.of("1.00"), Money.ZERO);
+        engine.debit(1L, Money.of("2.00"), Money.ZERO);
+        engine.transfer(1L, 2L, Money.of("4.00"), Money.ZERO);
+        //simulate a crash: no final checkpoint
+        mutationLog.destroy();
+
+        //frame 1 made it into the table before the crash
+        when(checkpointRepository.findLsn()).thenReturn(1L);
+        when(checkpointRepository.findCommittedLsnsAfter(1L)).thenReturn(Set.of(2L, 3L));
+        engine = startEngine();
+
+        verify(accountRepository).addBalanceDeltas(new TreeMap<>(Map.of(
+                1L, new BigDecimal("-6.00"),
+                2L, new BigDecimal("4.00"))));
+        verify(checkpointRepository).saveLsn(3);
+        assertEquals(3, mutationLog.lastLsn());
+    }
+
+    @Test
+    void startup_ShouldNotReplayFrameWhoseTransactionDidNotCommit() throws Exception {
+        engine.debit(1L, Money.of("1.00"), Money.ZERO);
+        engine.debit(1L, Money.of("2.00"), Money.ZERO);
+        mutationLog.destroy();
+
+        //the process died after frame 2 was durable, before its transaction committed
+        when(checkpointRepository.findCommittedLsnsAfter(0L)).thenReturn(Set.of(1L));
+        engine = startEngine();
+
+        verify(accountRepository).addBalanceDeltas(new TreeMap<>(Map.of(1L, new BigDecimal("-1.00"))));
+        verify(checkpointRepository).saveLsn(2);
+    }
+}
@@ -0,0 +1,126 @@
+package com.rabobank.bankservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.rabobank.bankservice.TestAccounts.PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Withdraw throughput and p99 of the servlet stack (Tomcat + JDBC) versus the reactive profile
+ * (Netty + R2DBC) at high client concurrency, over real HTTP.
+ * Run with: ./mvnw test -Pbenchmark -Dtest=AccountApiStackBenchmarkTest [-Dload.clients=500 -Dload.requests=10]
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "logging.level.org.springframework.security=INFO"})
+class AccountApiStackBenchmarkTest {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 500);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("load.requests", 10);
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 5;
+
+    @Nested
+    @Import(TestAccounts.class)
+    class Servlet {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void withdrawThroughput() throws Exception {
+            TestAccounts testAccounts = context.getBean(TestAccounts.class);
+            User user = testAccounts.user("Benchmark");
+
+            List<Long> accountIds = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                accountIds.add(testAccounts.account(user, CardType.DEBIT, "1000000.00").getId());
+            }
+
+            runWithdrawBenchmark(context, "servlet + JDBC", user.getEmail(), accountIds);
+        }
+    }
+
+    @Nested
+    @ActiveProfiles("reactive")
+    @TestPropertySource(properties = "spring.r2dbc.url=r2dbc:h2:mem:///reactivebenchmarkdb?options=DB_CLOSE_DELAY=-1")
+    class Reactive {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void withdrawThroughput() throws Exception {
+            DatabaseClient databaseClient = context.getBean(DatabaseClient.class);
+
+            String email = UUID.randomUUID() + "@example.com";
+            databaseClient.sql("insert into users (name, email, password) values ('Benchmark', :email, :password)")
+                    .bind("email", email)
+                    .bind("password", context.getBean(PasswordEncoder.class).encode(PASSWORD))
+                    .then()
+                    .block();
+
+            List<Long> accountIds = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                String cardNumber = UUID.randomUUID().toString().substring(0, 16);
+                databaseClient.sql("insert into cards (card_type, card_number) values ('DEBIT', :cardNumber)")
+                        .bind("cardNumber", cardNumber)
+                        .then()
+                        .block();
+                accountIds.add(databaseClient.sql("insert into accounts (user_id, card_id, balance) " +
+                                "select u.id, c.id, 1000000.00 from users u, cards c " +
+                                "where u.email = :email and c.card_number = :cardNumber")
+                        .bind("email", email)
+                        .bind("cardNumber", cardNumber)
+                        .filter(statement -> statement.returnGeneratedValues("id"))
+                        .map(row -> row.get("id", Long.class))
+                        .one()
+                        .block());
+            }
+
+            runWithdrawBenchmark(context, "reactive + R2DBC", email, accountIds);
+        }
+    }
+
+    private static void runWithdrawBenchmark(ApplicationContext context, String label, String email,
+                                             List<Long> accountIds) throws Exception {
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        HttpLoadHarness harness = new HttpLoadHarness(
+                Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port")));
+        String authorization = HttpLoadHarness.basicAuth(email, PASSWORD);
+
+        //one account per client, so the numbers measure request handling rather than row contention
+        List<HttpRequest> requests = new ArrayList<>();
+        for (Long accountId : accountIds) {
+            WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+            withdrawTransaction.setAccount(accountId);
+            withdrawTransaction.setAmount(new BigDecimal("0.01"));
+            requests.add(harness.postJson("/api/accounts/withdraw", authorization,
+                    objectMapper.writeValueAsString(withdrawTransaction)).build());
+        }
+
+        harness.run(CLIENTS, WARMUP_REQUESTS_PER_CLIENT, requests::get);
+        HttpLoadHarness.Result result = harness.run(CLIENTS, REQUESTS_PER_CLIENT, requests::get);
+
+        System.out.println(result.summary("withdraw, " + CLIENTS + " clients, " + label));
+        assertEquals(0, result.errors());
+    }
+}
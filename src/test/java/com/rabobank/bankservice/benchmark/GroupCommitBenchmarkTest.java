@@ -0,0 +1,125 @@
+package com.rabobank.bankservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.rabobank.bankservice.TestAccounts.PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Withdraw throughput and p50/p99 over real HTTP with one commit per request versus group commit at
+ * growing windows: each step trades latency for fewer, larger transactions.
+ * Run with: ./mvnw test -Pbenchmark -Dtest=GroupCommitBenchmarkTest [-Dload.clients=100 -Dload.requests=50]
+ * Point {@code spring.datasource.url} at a file database to include the cost of the log flush.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "logging.level.org.springframework.security=INFO"})
+@Import(TestAccounts.class)
+class GroupCommitBenchmarkTest {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 100);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("load.requests", 50);
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 10;
+
+    @Nested
+    @TestPropertySource(properties = "account.group-commit.enabled=false")
+    class CommitPerRequest {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void withdrawThroughput() throws Exception {
+            runWithdrawBenchmark(context, "commit per request");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {"account.group-commit.enabled=true", "account.group-commit.window=0ms"})
+    class GroupCommitWithoutWindow {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void withdrawThroughput() throws Exception {
+            runWithdrawBenchmark(context, "group commit, no window");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {"account.group-commit.enabled=true", "account.group-commit.window=1ms"})
+    class GroupCommitOneMillisecond {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void withdrawThroughput() throws Exception {
+            runWithdrawBenchmark(context, "group commit, 1ms window");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {"account.group-commit.enabled=true", "account.group-commit.window=5ms"})
+    class GroupCommitFiveMilliseconds {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void withdrawThroughput() throws Exception {
+            runWithdrawBenchmark(context, "group commit, 5ms window");
+        }
+    }
+
+    private static void runWithdrawBenchmark(ApplicationContext context, String label) throws Exception {
+        TestAccounts testAccounts = context.getBean(TestAccounts.class);
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+
+        User user = testAccounts.user("Benchmark");
+
+        //an account per client, so the numbers measure commits rather than row contention
+        List<String> bodies = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+            withdrawTransaction.setAccount(testAccounts.account(user, CardType.DEBIT, "1000000.00").getId());
+            withdrawTransaction.setAmount(new BigDecimal("0.01"));
+            bodies.add(objectMapper.writeValueAsString(withdrawTransaction));
+        }
+
+        HttpLoadHarness harness = new HttpLoadHarness(
+                Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port")));
+        String authorization = HttpLoadHarness.basicAuth(user.getEmail(), PASSWORD);
+        List<HttpRequest> requests = bodies.stream()
+                .map(body -> harness.postJson("/api/accounts/withdraw", authorization, body).build())
+                .toList();
+
+        harness.run(CLIENTS, WARMUP_REQUESTS_PER_CLIENT, requests::get);
+        HttpLoadHarness.Result result = harness.run(CLIENTS, REQUESTS_PER_CLIENT, requests::get);
+
+        System.out.println(result.summary("withdraw, " + CLIENTS + " clients, " + label));
+        DistributionSummary batchSizes = context.getBean(MeterRegistry.class)
+                .find("account.group_commit.batch.size").summary();
+        if (batchSizes != null && batchSizes.count() > 0) {
+            System.out.printf("[benchmark] %s: %.1f withdrawals per transaction on average, at most %.0f%n",
+                    label, batchSizes.mean(), batchSizes.max());
+        }
+        assertEquals(0, result.errors());
+    }
+}
@@ -0,0 +1,120 @@
+package com.rabobank.bankservice.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Closed-loop HTTP load generator for the benchmarks that need a real server rather than MockMvc:
+ * {@code clients} connections each send {@code requestsPerClient} requests back to back.
+ */
+final class HttpLoadHarness {
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+
+    HttpLoadHarness(int port) {
+        this.baseUrl = "http://localhost:" + port;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    static String basicAuth(String email, String password) {
+        return "Basic " + Base64.getEncoder()
+                .encodeToString((email + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    HttpRequest.Builder request(String path, String authorization) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", authorization);
+    }
+
+    HttpRequest.Builder postJson(String path, String authorization, String body) {
+        return request(path, authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    /**
+     * Runs the load; {@code requestForClient} builds the request a given client sends.
+     * Non-2xx responses and I/O failures are counted as errors and excluded from the latencies.
+     */
+    Result run(int clients, int requestsPerClient, IntFunction<HttpRequest> requestForClient) throws Exception {
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger recorded = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int client = 0; client < clients; client++) {
+                HttpRequest request = requestForClient.apply(client);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        long begin = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() / 100 == 2) {
+                                latencies[recorded.getAndIncrement()] = System.nanoTime() - begin;
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+            long[] succeeded = Arrays.copyOf(latencies, recorded.get());
+            Arrays.sort(succeeded);
+            return new Result(succeeded.length, errors.get(), seconds,
+                    percentileMillis(succeeded, 0.50), percentileMillis(succeeded, 0.99));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    record Result(int succeeded, int errors, double seconds, double p50Millis, double p99Millis) {
+
+        double throughput() {
+            return succeeded / seconds;
+        }
+
+        String summary(String label) {
+            return String.format("[benchmark] %s: %d ok, %d errors in %.2fs -> %.1f req/s, p50 %.1fms, p99 %.1fms",
+                    label, succeeded, errors, seconds, throughput(), p50Millis, p99Millis);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.rabobank.bankservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.rabobank.bankservice.TestAccounts.PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Withdraw throughput and p99 over real HTTP with Tomcat's platform-thread pool versus virtual threads.
+ * More clients than {@code server.tomcat.threads.max} are used so the platform pool saturates first.
+ * Run with: ./mvnw test -Pbenchmark,java21 -Djava21.home=/path/to/jdk-21 -Dtest=ServletThreadingBenchmarkTest
+ * [-Dload.clients=400 -Dload.requests=25]; without the java21 profile the virtual-thread case is skipped on Java 17.
+ * Both cases share the JVM, so the first one also pays for the warm-up.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "logging.level.org.springframework.security=INFO"})
+@Import(TestAccounts.class)
+class ServletThreadingBenchmarkTest {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 400);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("load.requests", 25);
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 5;
+
+    @Nested
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+    class PlatformThreads {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void withdrawThroughput() throws Exception {
+            runWithdrawBenchmark(context, "platform threads");
+        }
+    }
+
+    @Nested
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+    class VirtualThreads {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void withdrawThroughput() throws Exception {
+            runWithdrawBenchmark(context, "virtual threads");
+        }
+    }
+
+    private static void runWithdrawBenchmark(ApplicationContext context, String label) throws Exception {
+        TestAccounts testAccounts = context.getBean(TestAccounts.class);
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+
+        User user = testAccounts.user("Benchmark");
+
+        //one account per client, so the numbers measure request handling rather than row contention
+        List<String> bodies = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            Account account = testAccounts.account(user, CardType.DEBIT, "1000000.00");
+
+            WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+            withdrawTransaction.setAccount(account.getId());
+            withdrawTransaction.setAmount(new BigDecimal("0.01"));
+            bodies.add(objectMapper.writeValueAsString(withdrawTransaction));
+        }
+
+        HttpLoadHarness harness = new HttpLoadHarness(
+                Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port")));
+        String authorization = HttpLoadHarness.basicAuth(user.getEmail(), PASSWORD);
+        List<HttpRequest> requests = bodies.stream()
+                .map(body -> harness.postJson("/api/accounts/withdraw", authorization, body).build())
+                .toList();
+
+        harness.run(CLIENTS, WARMUP_REQUESTS_PER_CLIENT, requests::get);
+        HttpLoadHarness.Result result = harness.run(CLIENTS, REQUESTS_PER_CLIENT, requests::get);
+
+        System.out.println(result.summary("withdraw, " + CLIENTS + " clients, " + label));
+        assertEquals(0, result.errors());
+    }
+}
@@ -0,0 +1,127 @@
+package com.rabobank.bankservice.benchmark;
+
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.service.AccountService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ledger rows/sec under sustained transfer load, with JDBC batching switched off and on.
+ * Run with: ./mvnw test -Pbenchmark -Dtest=TransferLedgerBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@Import(TestAccounts.class)
+class TransferLedgerBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int WARMUP_TRANSFERS_PER_THREAD = 100;
+    private static final int MEASURED_TRANSFERS_PER_THREAD = 500;
+
+    @MockitoBean
+    private UserContext userContext;
+
+    @Nested
+    @TestPropertySource(properties = "spring.jpa.properties.hibernate.jdbc.batch_size=0")
+    class WithoutBatching {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void ledgerInsertThroughput() throws Exception {
+            runTransferBenchmark(context, "jdbc batching disabled");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "spring.jpa.properties.hibernate.jdbc.batch_size=50")
+    class WithBatching {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void ledgerInsertThroughput() throws Exception {
+            runTransferBenchmark(context, "jdbc batching enabled");
+        }
+    }
+
+    private static void runTransferBenchmark(ApplicationContext context, String label) throws Exception {
+        AccountService accountService = context.getBean(AccountService.class);
+        Statistics statistics = context.getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class).getStatistics();
+
+        TestAccounts testAccounts = context.getBean(TestAccounts.class);
+        User user = testAccounts.user("Benchmark");
+
+        //one pair of accounts per thread, so the run measures ledger inserts rather than row lock contention
+        List<Account[]> pairs = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            pairs.add(new Account[]{testAccounts.account(user, CardType.DEBIT, "1000000.00"),
+                    testAccounts.account(user, CardType.DEBIT, "1000000.00")});
+        }
+
+        runTransfers(accountService, pairs, WARMUP_TRANSFERS_PER_THREAD);
+
+        statistics.clear();
+        long start = System.nanoTime();
+        runTransfers(accountService, pairs, MEASURED_TRANSFERS_PER_THREAD);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        long ledgerRows = statistics.getEntityInsertCount();
+        System.out.printf("[benchmark] transfer ledger, %s: %d rows in %.2fs -> %.1f rows/s, %.2f statements per transfer%n",
+                label, ledgerRows, seconds, ledgerRows / seconds,
+                (double) statistics.getPrepareStatementCount() / (THREADS * MEASURED_TRANSFERS_PER_THREAD));
+    }
+
+    private static void runTransfers(AccountService accountService, List<Account[]> pairs, int transfersPerThread)
+            throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(pairs.size());
+        List<Future<?>> futures = new ArrayList<>();
+        for (Account[] pair : pairs) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < transfersPerThread; i++) {
+                    TransferTransaction transferTransaction = new TransferTransaction();
+                    transferTransaction.setSourceAccountId(pair[i % 2].getId());
+                    transferTransaction.setTargetAccountId(pair[(i + 1) % 2].getId());
+                    transferTransaction.setAmount(new BigDecimal("0.01"));
+                    accountService.transfer(transferTransaction);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,98 @@
+package com.rabobank.bankservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.service.LedgerJournalWriter;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.rabobank.bankservice.TestAccounts.PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Transfer p99 over real HTTP with the ledger rows written in the balance transaction versus
+ * journaled and materialized after commit.
+ * Run with: ./mvnw test -Pbenchmark -Dtest=TransferWriteBehindBenchmarkTest [-Dload.clients=100 -Dload.requests=50]
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "logging.level.org.springframework.security=INFO"})
+@Import(TestAccounts.class)
+class TransferWriteBehindBenchmarkTest {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 100);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("load.requests", 50);
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 10;
+
+    @Nested
+    @TestPropertySource(properties = "transaction.ledger.mode=sync")
+    class SyncLedger {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void transferLatency() throws Exception {
+            runTransferBenchmark(context, "sync ledger");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "transaction.ledger.mode=write-behind")
+    class WriteBehindLedger {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void transferLatency() throws Exception {
+            runTransferBenchmark(context, "write-behind ledger");
+        }
+    }
+
+    private static void runTransferBenchmark(ApplicationContext context, String label) throws Exception {
+        TestAccounts testAccounts = context.getBean(TestAccounts.class);
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+
+        User user = testAccounts.user("Benchmark");
+
+        //a pair of accounts per client, so the numbers measure the write path rather than row contention
+        List<String> bodies = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            TransferTransaction transferTransaction = new TransferTransaction();
+            transferTransaction.setSourceAccountId(testAccounts.account(user, CardType.DEBIT, "1000000.00").getId());
+            transferTransaction.setTargetAccountId(testAccounts.account(user, CardType.DEBIT, "1000000.00").getId());
+            transferTransaction.setAmount(new BigDecimal("0.01"));
+            bodies.add(objectMapper.writeValueAsString(transferTransaction));
+        }
+
+        HttpLoadHarness harness = new HttpLoadHarness(
+                Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port")));
+        String authorization = HttpLoadHarness.basicAuth(user.getEmail(), PASSWORD);
+        List<HttpRequest> requests = bodies.stream()
+                .map(body -> harness.postJson("/api/accounts/transfer", authorization, body).build())
+                .toList();
+
+        harness.run(CLIENTS, WARMUP_REQUESTS_PER_CLIENT, requests::get);
+        HttpLoadHarness.Result result = harness.run(CLIENTS, REQUESTS_PER_CLIENT, requests::get);
+
+        long start = System.nanoTime();
+        int backlog = context.getBean(LedgerJournalWriter.class).drain();
+        System.out.println(result.summary("transfer, " + CLIENTS + " clients, " + label));
+        System.out.printf("[benchmark] %s: %d journal entries left after the run, drained in %.1fms%n",
+                label, backlog, (System.nanoTime() - start) / 1_000_000.0);
+        assertEquals(0, result.errors());
+    }
+}
@@ -0,0 +1,99 @@
+package com.rabobank.bankservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.security.AuthenticationCache;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static com.rabobank.bankservice.TestAccounts.PASSWORD;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests/sec on the withdraw path with and without the authentication cache.
+ * Run with: ./mvnw test -Pbenchmark -Dtest=WithdrawAuthenticationBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "logging.level.org.springframework.security=INFO"})
+@AutoConfigureMockMvc
+@Import(TestAccounts.class)
+class WithdrawAuthenticationBenchmarkTest {
+
+    private static final int WARMUP_REQUESTS = 50;
+    private static final int MEASURED_REQUESTS = 200;
+
+    @Nested
+    @TestPropertySource(properties = "auth.cache.enabled=false")
+    class WithoutCache {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void withdrawThroughput() throws Exception {
+            runWithdrawBenchmark(context, "auth cache disabled");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "auth.cache.enabled=true")
+    class WithCache {
+        @Autowired
+        private ApplicationContext context;
+
+        @Test
+        void withdrawThroughput() throws Exception {
+            runWithdrawBenchmark(context, "auth cache enabled");
+        }
+    }
+
+    private static void runWithdrawBenchmark(ApplicationContext context, String label) throws Exception {
+        MockMvc mockMvc = context.getBean(MockMvc.class);
+        TestAccounts testAccounts = context.getBean(TestAccounts.class);
+        User user = testAccounts.user("Benchmark");
+        Account account = testAccounts.account(user, CardType.DEBIT, "1000000.00");
+
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(account.getId());
+        withdrawTransaction.setAmount(new BigDecimal("0.01"));
+        String body = context.getBean(ObjectMapper.class).writeValueAsString(withdrawTransaction);
+
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            withdraw(mockMvc, user.getEmail(), body);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            withdraw(mockMvc, user.getEmail(), body);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("[benchmark] withdraw, %s: %d requests in %.2fs -> %.1f req/s (%s)%n",
+                label, MEASURED_REQUESTS, seconds, MEASURED_REQUESTS / seconds,
+                context.getBean(AuthenticationCache.class).stats());
+    }
+
+    private static void withdraw(MockMvc mockMvc, String email, String body) throws Exception {
+        mockMvc.perform(post("/api/accounts/withdraw")
+                        .with(httpBasic(email, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+    }
+}
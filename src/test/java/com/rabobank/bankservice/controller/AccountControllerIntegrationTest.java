@@ -2,11 +2,17 @@ package com.rabobank.bankservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabobank.bankservice.entity.*;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.model.request.BulkTransferMode;
+import com.rabobank.bankservice.model.request.BulkTransferRequest;
 import com.rabobank.bankservice.model.request.TransferTransaction;
 import com.rabobank.bankservice.model.request.WithdrawTransaction;
 import com.rabobank.bankservice.repository.AccountRepository;
 import com.rabobank.bankservice.repository.TransactionRepository;
 import com.rabobank.bankservice.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,18 +21,27 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        //the background relay's polling queries would show up in the statistics
+        "outbox.relay.enabled=false"
+})
 @AutoConfigureMockMvc
 class AccountControllerIntegrationTest {
 
@@ -50,6 +65,9 @@ class AccountControllerIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private User testUser;
     private User secondTestUser;
     private Account debitAccount1;
@@ -126,6 +144,35 @@ class AccountControllerIntegrationTest {
                 .andExpect(jsonPath("$.accountDetails[1].currentBalance").value(2000.0));
     }
 
+    @Test
+    void getAccounts_LoadsUserOncePerRequest() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/accounts/")
+                        .with(httpBasic(testUser.getEmail(), TEST_PASSWORD)))
+                .andExpect(status().isOk());
+
+        // user by email (authentication) + accounts by user id
+        assertEquals(2, statistics.getQueryExecutionCount());
+    }
+
+    @Test
+    void getAccounts_ReadsOverviewWithSingleJoinQuery() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/accounts/")
+                        .with(httpBasic(testUser.getEmail(), TEST_PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountDetails", hasSize(2)));
+
+        // user by email (authentication) + one projection join, no per-account user/card selects
+        assertEquals(2, statistics.getPrepareStatementCount());
+        // only the authenticated user is hydrated, never an account
+        assertEquals(1, statistics.getEntityLoadCount());
+    }
+
     /**
      * Requirements for #4 and #7
      */
@@ -150,7 +197,7 @@ class AccountControllerIntegrationTest {
         List<Transaction> transactionList = transactionRepository.findAllByAccountId(debitAccount1.getId()).orElseThrow();
         assertEquals(1, transactionList.size());
         assertEquals(withdrawTransaction.getAccount(), transactionList.get(0).getAccount().getId());
-        assertEquals(withdrawTransaction.getAmount(), transactionList.get(0).getAmount());
+        assertEquals(Money.of(withdrawTransaction.getAmount()), transactionList.get(0).getAmount());
 
         Account updatedAccount = accountRepository.findById(debitAccount1.getId()).orElseThrow();
         assertEquals(new BigDecimal("900.00"), updatedAccount.getBalance());
@@ -210,7 +257,7 @@ class AccountControllerIntegrationTest {
         List<Transaction> transactionList = transactionRepository.findAllByAccountId(creditAccount1.getId()).orElseThrow();
         assertEquals(1, transactionList.size());
         assertEquals(withdrawTransaction.getAccount(), transactionList.get(0).getAccount().getId());
-        assertEquals(withdrawTransaction.getAmount(), transactionList.get(0).getAmount());
+        assertEquals(Money.of(withdrawTransaction.getAmount()), transactionList.get(0).getAmount());
 
         Account updatedAccount = accountRepository.findById(creditAccount1.getId()).orElseThrow();
         assertEquals(new BigDecimal("1899.00"), updatedAccount.getBalance());
@@ -271,4 +318,208 @@ class AccountControllerIntegrationTest {
                 .andExpect(jsonPath("$.message").value("Target account not found"));
     }
 
+    @Test
+    void transferBatch_AllOrNothing_SettlesEveryTransfer() throws Exception {
+        BulkTransferRequest request = bulkTransferRequest(BulkTransferMode.ALL_OR_NOTHING,
+                transfer(debitAccount1.getId(), creditAccount2.getId(), "100.00"),
+                transfer(creditAccount1.getId(), debitAccount1.getId(), "50.00"));
+
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .with(httpBasic(testUser.getEmail(), TEST_PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(2))
+                .andExpect(jsonPath("$.rejected").value(0))
+                .andExpect(jsonPath("$.results[0].status").value("APPLIED"))
+                .andExpect(jsonPath("$.results[1].status").value("APPLIED"));
+
+        assertEquals(new BigDecimal("950.00"), accountRepository.findBalanceById(debitAccount1.getId()).orElseThrow().toBigDecimal());
+        assertEquals(new BigDecimal("1949.50"), accountRepository.findBalanceById(creditAccount1.getId()).orElseThrow().toBigDecimal()); // 2000 - 50 - 0.5
+        assertEquals(new BigDecimal("1100.00"), accountRepository.findBalanceById(creditAccount2.getId()).orElseThrow().toBigDecimal());
+        assertEquals(2, transactionRepository.findAllByAccountId(debitAccount1.getId()).orElseThrow().size());
+    }
+
+    @Test
+    void transferBatch_AllOrNothing_WhenOneRejected_NothingApplied() throws Exception {
+        BulkTransferRequest request = bulkTransferRequest(BulkTransferMode.ALL_OR_NOTHING,
+                transfer(debitAccount1.getId(), creditAccount2.getId(), "100.00"),
+                transfer(debitAccount1.getId(), creditAccount2.getId(), "5000.00"));
+
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .with(httpBasic(testUser.getEmail(), TEST_PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.applied").value(0))
+                .andExpect(jsonPath("$.results[0].status").value("NOT_APPLIED"))
+                .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.results[1].message").value(
+                        "Cannot subtract 5000.00. Current balance: 900.00. Resulting balance would be negative."));
+
+        assertEquals(new BigDecimal("1000.00"), accountRepository.findBalanceById(debitAccount1.getId()).orElseThrow().toBigDecimal());
+        assertEquals(0, transactionRepository.findAllByAccountId(debitAccount1.getId()).orElseThrow().size());
+    }
+
+    @Test
+    void transferBatch_BestEffort_SkipsRejectedTransfers() throws Exception {
+        BulkTransferRequest request = bulkTransferRequest(BulkTransferMode.BEST_EFFORT,
+                transfer(debitAccount1.getId(), creditAccount2.getId(), "100.00"),
+                transfer(creditAccount2.getId(), debitAccount1.getId(), "100.00"),
+                transfer(debitAccount1.getId(), 999L, "100.00"));
+
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .with(httpBasic(testUser.getEmail(), TEST_PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.results[1].message").value("User id and account ID mismatch"))
+                .andExpect(jsonPath("$.results[2].message").value("Target account not found"));
+
+        assertEquals(new BigDecimal("900.00"), accountRepository.findBalanceById(debitAccount1.getId()).orElseThrow().toBigDecimal());
+        assertEquals(new BigDecimal("1100.00"), accountRepository.findBalanceById(creditAccount2.getId()).orElseThrow().toBigDecimal());
+    }
+
+    @Test
+    void transferBatch_WhenEmpty_BadRequest() throws Exception {
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .with(httpBasic(testUser.getEmail(), TEST_PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bulkTransferRequest(BulkTransferMode.BEST_EFFORT))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void withdraw_WhenAmountBelowOneCentOrTooLarge_BadRequest() throws Exception {
+        for (String amount : List.of("0.004", "1E+18")) {
+            WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+            withdrawTransaction.setAccount(debitAccount1.getId());
+            withdrawTransaction.setAmount(new BigDecimal(amount));
+
+            mockMvc.perform(post("/api/accounts/withdraw")
+                            .with(httpBasic(testUser.getEmail(), TEST_PASSWORD))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(withdrawTransaction)))
+                    .andExpect(status().isBadRequest());
+        }
+
+        assertEquals(new BigDecimal("1000.00"), accountRepository.findBalanceById(debitAccount1.getId()).orElseThrow().toBigDecimal());
+    }
+
+    @Test
+    void transferBatch_WhenAmountBelowOneCent_BadRequest() throws Exception {
+        BulkTransferRequest request = bulkTransferRequest(BulkTransferMode.BEST_EFFORT,
+                transfer(debitAccount1.getId(), creditAccount2.getId(), "10.00"),
+                transfer(debitAccount1.getId(), creditAccount2.getId(), "0.004"));
+
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .with(httpBasic(testUser.getEmail(), TEST_PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(new BigDecimal("1000.00"), accountRepository.findBalanceById(debitAccount1.getId()).orElseThrow().toBigDecimal());
+    }
+
+    @Test
+    void getTransactions_PagesNewestFirstWithCursor() throws Exception {
+        List<Transaction> ledger = saveLedgerRows(debitAccount1, 5);
+
+        MvcResult firstPage = mockMvc.perform(get("/api/accounts/{id}/transactions", debitAccount1.getId())
+                        .param("limit", "2")
+                        .with(httpBasic(testUser.getEmail(), TEST_PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions", hasSize(2)))
+                .andExpect(jsonPath("$.transactions[0].id").value(ledger.get(4).getId()))
+                .andExpect(jsonPath("$.transactions[1].id").value(ledger.get(3).getId()))
+                .andExpect(jsonPath("$.transactions[0].amount").value("5.00"))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn();
+        String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("nextCursor").asText();
+
+        MvcResult secondPage = mockMvc.perform(get("/api/accounts/{id}/transactions", debitAccount1.getId())
+                        .param("limit", "2")
+                        .param("cursor", cursor)
+                        .with(httpBasic(testUser.getEmail(), TEST_PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions[0].id").value(ledger.get(2).getId()))
+                .andExpect(jsonPath("$.transactions[1].id").value(ledger.get(1).getId()))
+                .andReturn();
+        cursor = objectMapper.readTree(secondPage.getResponse().getContentAsString()).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/accounts/{id}/transactions", debitAccount1.getId())
+                        .param("limit", "2")
+                        .param("cursor", cursor)
+                        .with(httpBasic(testUser.getEmail(), TEST_PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions", hasSize(1)))
+                .andExpect(jsonPath("$.transactions[0].id").value(ledger.get(0).getId()))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getTransactions_WhenCursorInvalid_BadRequest() throws Exception {
+        mockMvc.perform(get("/api/accounts/{id}/transactions", debitAccount1.getId())
+                        .param("cursor", "not-a-cursor")
+                        .with(httpBasic(testUser.getEmail(), TEST_PASSWORD)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor"));
+    }
+
+    @Test
+    void getTransactions_UserIdAndAccountIdMismatch_Unauthorized() throws Exception {
+        mockMvc.perform(get("/api/accounts/{id}/transactions", debitAccount1.getId())
+                        .with(httpBasic(secondTestUser.getEmail(), TEST_PASSWORD)))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void streamTransactions_WritesOneJsonObjectPerLine() throws Exception {
+        List<Transaction> ledger = saveLedgerRows(debitAccount1, 3);
+
+        MvcResult result = mockMvc.perform(get("/api/accounts/{id}/transactions", debitAccount1.getId())
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .with(httpBasic(testUser.getEmail(), TEST_PASSWORD)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(ledger.get(2).getId(), objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals(ledger.get(0).getId(), objectMapper.readTree(lines[2]).get("id").asLong());
+    }
+
+    private List<Transaction> saveLedgerRows(Account account, int count) {
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        List<Transaction> ledger = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = Transaction.of(account, Money.of(new BigDecimal(i + 1)), Money.ZERO, TransactionType.WITHDRAWAL);
+            //two rows share each timestamp so the id tie-breaker is exercised
+            transaction.setTimestamp(start.plusMinutes(i / 2));
+            ledger.add(transactionRepository.save(transaction));
+        }
+        return ledger;
+    }
+
+    private static BulkTransferRequest bulkTransferRequest(BulkTransferMode mode, TransferTransaction... transfers) {
+        BulkTransferRequest request = new BulkTransferRequest();
+        request.setMode(mode);
+        request.setTransfers(List.of(transfers));
+        return request;
+    }
+
+    private static TransferTransaction transfer(Long sourceAccountId, Long targetAccountId, String amount) {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(sourceAccountId);
+        transferTransaction.setTargetAccountId(targetAccountId);
+        transferTransaction.setAmount(new BigDecimal(amount));
+        return transferTransaction;
+    }
 }
@@ -0,0 +1,102 @@
+package com.rabobank.bankservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+
+import static com.rabobank.bankservice.TestAccounts.PASSWORD;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//a random port for the management server too, which only listens there
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@Import(TestAccounts.class)
+class AccountMetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    private User owner;
+    private Account creditAccount;
+    private Account foreignAccount;
+
+    @BeforeEach
+    void setUp() {
+        owner = testAccounts.user("Owner");
+        creditAccount = testAccounts.account(owner, CardType.CREDIT, "1000.00");
+        foreignAccount = testAccounts.account(testAccounts.user("Other"), CardType.DEBIT, "1000.00");
+    }
+
+    @Test
+    void prometheus_AfterWithdrawals_ExposesLatencyOutcomesFeesAndDatabaseTime() throws Exception {
+        withdraw(creditAccount, "100.00").andExpect(status().isOk());
+        withdraw(creditAccount, "5000.00").andExpect(status().isBadRequest());
+        withdraw(foreignAccount, "1.00").andExpect(status().isUnauthorized());
+
+        ResponseEntity<String> scrape = restTemplate.getForEntity(
+                "http://localhost:" + managementPort + "/actuator/prometheus", String.class);
+
+        assertEquals(HttpStatus.OK, scrape.getStatusCode());
+        assertThat(scrape.getBody(), containsString(
+                "account_operation_seconds_bucket{application=\"bank-service\",operation=\"withdraw\",outcome=\"success\""));
+        assertThat(scrape.getBody(), containsString("outcome=\"insufficient_balance\""));
+        assertThat(scrape.getBody(), containsString("outcome=\"unauthorized\""));
+        assertThat(scrape.getBody(), containsString("account_fees_total{application=\"bank-service\",card_type=\"CREDIT\"}"));
+        assertThat(scrape.getBody(), containsString("spring_data_repository_invocations_seconds_bucket"));
+        assertThat(scrape.getBody(), containsString("hikaricp_connections_acquire_seconds_bucket"));
+    }
+
+    @Test
+    void prometheus_NotServedOnTheApiPort() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isNotFound());
+    }
+
+    private ResultActions withdraw(Account account, String amount) throws Exception {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(account.getId());
+        withdrawTransaction.setAmount(new BigDecimal(amount));
+        return mockMvc.perform(post("/api/accounts/withdraw")
+                .with(httpBasic(owner.getEmail(), PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(withdrawTransaction)));
+    }
+}
@@ -0,0 +1,148 @@
+package com.rabobank.bankservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.service.AccountOverviewService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.rabobank.bankservice.TestAccounts.PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@Import(TestAccounts.class)
+class AccountOverviewCacheIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountOverviewService accountOverviewService;
+
+    private User owner;
+    private User recipient;
+    private Account ownerAccount;
+    private Account recipientAccount;
+
+    @BeforeEach
+    void setUp() {
+        owner = testAccounts.user("Owner");
+        recipient = testAccounts.user("Recipient");
+        ownerAccount = testAccounts.debitAccount(owner);
+        recipientAccount = testAccounts.debitAccount(recipient);
+    }
+
+    @Test
+    void getAccounts_WhenRepeated_ServedFromCache() throws Exception {
+        long hits = accountOverviewService.stats().hitCount();
+
+        expectBalance(owner, "1000.00");
+        expectBalance(owner, "1000.00");
+
+        assertTrue(accountOverviewService.stats().hitCount() > hits);
+    }
+
+    @Test
+    void getAccounts_AfterWithdraw_ReturnsNewBalance() throws Exception {
+        expectBalance(owner, "1000.00");
+
+        withdraw("100.00");
+
+        expectBalance(owner, "900.00");
+    }
+
+    @Test
+    void getAccounts_AfterIncomingTransfer_ReturnsNewBalanceForTargetOwner() throws Exception {
+        expectBalance(recipient, "1000.00");
+
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(ownerAccount.getId());
+        transferTransaction.setTargetAccountId(recipientAccount.getId());
+        transferTransaction.setAmount(new BigDecimal("250.00"));
+        mockMvc.perform(post("/api/accounts/transfer")
+                        .with(httpBasic(owner.getEmail(), PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferTransaction)))
+                .andExpect(status().isOk());
+
+        expectBalance(recipient, "1250.00");
+    }
+
+    @Test
+    void getAccounts_WhileReadersRefillCache_NeverStaleAfterWrite() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(readers.submit(() -> {
+                while (running.get()) {
+                    mockMvc.perform(get("/api/accounts/").with(httpBasic(owner.getEmail(), PASSWORD)))
+                            .andExpect(status().isOk());
+                }
+                return null;
+            }));
+        }
+
+        try {
+            BigDecimal expected = new BigDecimal("1000.00");
+            for (int i = 0; i < 20; i++) {
+                withdraw("1.00");
+                expected = expected.subtract(BigDecimal.ONE);
+                expectBalance(owner, expected.toPlainString());
+            }
+        } finally {
+            running.set(false);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            readers.shutdown();
+        }
+    }
+
+    private void withdraw(String amount) throws Exception {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(ownerAccount.getId());
+        withdrawTransaction.setAmount(new BigDecimal(amount));
+        mockMvc.perform(post("/api/accounts/withdraw")
+                        .with(httpBasic(owner.getEmail(), PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(withdrawTransaction)))
+                .andExpect(status().isOk());
+    }
+
+    private void expectBalance(User user, String balance) throws Exception {
+        mockMvc.perform(get("/api/accounts/").with(httpBasic(user.getEmail(), PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountDetails[0].currentBalance").value(balance));
+    }
+}
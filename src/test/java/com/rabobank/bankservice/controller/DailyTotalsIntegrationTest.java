@@ -0,0 +1,203 @@
+package com.rabobank.bankservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.Transaction;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.DailyTotal;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.repository.TransactionRepository;
+import com.rabobank.bankservice.service.AccountDailyTotalsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.rabobank.bankservice.TestAccounts.PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@Import(TestAccounts.class)
+class DailyTotalsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountDailyTotalsService dailyTotalsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User owner;
+    private Account ownerAccount;
+    private Account recipientAccount;
+
+    @BeforeEach
+    void setUp() {
+        owner = testAccounts.user("Owner");
+        ownerAccount = testAccounts.account(owner, CardType.CREDIT, "1000.00");
+        recipientAccount = testAccounts.account(testAccounts.user("Recipient"), CardType.DEBIT, "1000.00");
+    }
+
+    @Test
+    void getDailyTotals_AfterWithdrawalsAndTransfer_ReturnsTodaysTotalsPerType() throws Exception {
+        withdraw("100.00");
+        withdraw("50.00");
+        transfer("250.00");
+
+        mockMvc.perform(get("/api/accounts/{id}/daily-totals", ownerAccount.getId())
+                        .with(httpBasic(owner.getEmail(), PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].type").value("TRANSFER"))
+                .andExpect(jsonPath("$[0].count").value(1))
+                .andExpect(jsonPath("$[0].amount").value("250.00"))
+                .andExpect(jsonPath("$[0].fee").value("2.50"))
+                .andExpect(jsonPath("$[1].type").value("WITHDRAWAL"))
+                .andExpect(jsonPath("$[1].count").value(2))
+                .andExpect(jsonPath("$[1].amount").value("150.00"))
+                .andExpect(jsonPath("$[1].fee").value("1.50"));
+
+        DailyTotal received = dailyTotalsService.findDailyTotal(recipientAccount.getId(), LocalDate.now(),
+                TransactionType.TRANSFER);
+        assertEquals(1, received.getCount());
+        assertEquals(new BigDecimal("250.00"), received.getAmount());
+    }
+
+    @Test
+    void getDailyTotals_WhenDayWithoutLedgerRows_ReturnsZeros() throws Exception {
+        mockMvc.perform(get("/api/accounts/{id}/daily-totals", ownerAccount.getId())
+                        .param("date", "2020-01-01")
+                        .with(httpBasic(owner.getEmail(), PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].date").value("2020-01-01"))
+                .andExpect(jsonPath("$[0].count").value(0))
+                .andExpect(jsonPath("$[1].amount").value("0.00"));
+    }
+
+    @Test
+    void getDailyTotals_WhenNotOwner_Unauthorized() throws Exception {
+        mockMvc.perform(get("/api/accounts/{id}/daily-totals", recipientAccount.getId())
+                        .with(httpBasic(owner.getEmail(), PASSWORD)))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void rebuild_BackfillsLedgerRowsWrittenWithoutTotals() throws Exception {
+        withdraw("100.00");
+        LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+        //rows as they were before the rollup existed
+        transactionRepository.saveAll(List.of(
+                ledgerRow(ownerAccount, "10.00", yesterday),
+                ledgerRow(ownerAccount, "20.00", yesterday.withHour(0).withMinute(0))));
+
+        dailyTotalsService.rebuild(ownerAccount.getId());
+
+        DailyTotal backfilled = dailyTotalsService.findDailyTotal(ownerAccount.getId(), yesterday.toLocalDate(),
+                TransactionType.WITHDRAWAL);
+        assertEquals(2, backfilled.getCount());
+        assertEquals(new BigDecimal("30.00"), backfilled.getAmount());
+        DailyTotal today = dailyTotalsService.findDailyTotal(ownerAccount.getId(), LocalDate.now(),
+                TransactionType.WITHDRAWAL);
+        assertEquals(1, today.getCount());
+        assertEquals(new BigDecimal("100.00"), today.getAmount());
+    }
+
+    @Test
+    void record_WhenTwoTransactionsInsertFirstRowOfDay_BothCounted() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.now().minusDays(3);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch firstRecorded = new CountDownLatch(1);
+        CountDownLatch commitFirst = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            dailyTotalsService.record(List.of(ledgerRow(ownerAccount, "10.00", timestamp)));
+            firstRecorded.countDown();
+            await(commitFirst);
+        }));
+        firstRecorded.await(10, TimeUnit.SECONDS);
+        //blocks on the first transaction's uncommitted row, then finds it taken
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(
+                status -> dailyTotalsService.record(List.of(ledgerRow(ownerAccount, "20.00", timestamp)))));
+        TimeUnit.MILLISECONDS.sleep(200);
+        commitFirst.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+
+        DailyTotal total = dailyTotalsService.findDailyTotal(ownerAccount.getId(), timestamp.toLocalDate(),
+                TransactionType.WITHDRAWAL);
+        assertEquals(2, total.getCount());
+        assertEquals(new BigDecimal("30.00"), total.getAmount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Transaction ledgerRow(Account account, String amount, LocalDateTime timestamp) {
+        Transaction transaction = Transaction.of(account, Money.of(amount), Money.ZERO, TransactionType.WITHDRAWAL);
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+
+    private void withdraw(String amount) throws Exception {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(ownerAccount.getId());
+        withdrawTransaction.setAmount(new BigDecimal(amount));
+        mockMvc.perform(post("/api/accounts/withdraw")
+                        .with(httpBasic(owner.getEmail(), PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(withdrawTransaction)))
+                .andExpect(status().isOk());
+    }
+
+    private void transfer(String amount) throws Exception {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(ownerAccount.getId());
+        transferTransaction.setTargetAccountId(recipientAccount.getId());
+        transferTransaction.setAmount(new BigDecimal(amount));
+        mockMvc.perform(post("/api/accounts/transfer")
+                        .with(httpBasic(owner.getEmail(), PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferTransaction)))
+                .andExpect(status().isOk());
+    }
+}
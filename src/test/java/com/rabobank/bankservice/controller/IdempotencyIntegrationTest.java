@@ -0,0 +1,220 @@
+package com.rabobank.bankservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.IdempotencyRecordRepository;
+import com.rabobank.bankservice.repository.TransactionRepository;
+import com.rabobank.bankservice.service.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.rabobank.bankservice.TestAccounts.PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@Import(TestAccounts.class)
+class IdempotencyIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    private User owner;
+    private Account ownerAccount;
+    private Account recipientAccount;
+
+    @BeforeEach
+    void setUp() {
+        owner = testAccounts.user("Owner");
+        ownerAccount = testAccounts.debitAccount(owner);
+        recipientAccount = testAccounts.debitAccount(testAccounts.user("Recipient"));
+    }
+
+    @Test
+    void withdraw_WhenRetriedWithSameKey_DebitsOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+
+        withdraw(key, "100.00")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountDetails[0].currentBalance").value("900.00"));
+        withdraw(key, "100.00")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountDetails[0].currentBalance").value("900.00"));
+
+        assertEquals(new BigDecimal("900.00"), balance(ownerAccount));
+        assertEquals(1, transactionRepository.findAllByAccountId(ownerAccount.getId()).orElseThrow().size());
+    }
+
+    @Test
+    void withdraw_WithoutKey_DebitsEveryTime() throws Exception {
+        withdraw(null, "100.00").andExpect(status().isOk());
+        withdraw(null, "100.00").andExpect(status().isOk());
+
+        assertEquals(new BigDecimal("800.00"), balance(ownerAccount));
+    }
+
+    @Test
+    void withdraw_WhenKeyReusedForDifferentRequest_Unprocessable() throws Exception {
+        String key = UUID.randomUUID().toString();
+        withdraw(key, "100.00").andExpect(status().isOk());
+
+        withdraw(key, "200.00")
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message").value("Idempotency key was already used for a different request"));
+
+        assertEquals(new BigDecimal("900.00"), balance(ownerAccount));
+    }
+
+    @Test
+    void withdraw_WhenFirstAttemptFailed_KeyIsNotRecorded() throws Exception {
+        String key = UUID.randomUUID().toString();
+        withdraw(key, "5000.00").andExpect(status().isBadRequest());
+
+        withdraw(key, "5000.00").andExpect(status().isBadRequest());
+
+        assertTrue(idempotencyRecordRepository.findByUserIdAndIdempotencyKeyAndCreatedAtAfter(
+                owner.getId(), key, LocalDateTime.now().minusDays(1)).isEmpty());
+    }
+
+    @Test
+    void withdraw_WhenKeyTooLong_BadRequest() throws Exception {
+        withdraw("k".repeat(65), "100.00").andExpect(status().isBadRequest());
+
+        assertEquals(new BigDecimal("1000.00"), balance(ownerAccount));
+    }
+
+    @Test
+    void transfer_WhenRetriedWithSameKey_ServedFromCache() throws Exception {
+        String key = UUID.randomUUID().toString();
+        transfer(key).andExpect(status().isOk());
+        long hits = idempotencyService.stats().hitCount();
+
+        transfer(key)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountDetails[0].currentBalance").value("750.00"));
+
+        assertEquals(hits + 1, idempotencyService.stats().hitCount());
+        assertEquals(new BigDecimal("750.00"), balance(ownerAccount));
+        assertEquals(new BigDecimal("1250.00"), balance(recipientAccount));
+    }
+
+    @Test
+    void transfer_WhenSameKeySentConcurrently_AppliedOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        int clients = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    transfer(key)
+                            .andExpect(status().isOk())
+                            .andExpect(jsonPath("$.accountDetails[0].currentBalance").value("750.00"));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(new BigDecimal("750.00"), balance(ownerAccount));
+        assertEquals(new BigDecimal("1250.00"), balance(recipientAccount));
+    }
+
+    @Test
+    void purgeExpired_RemovesKeysOlderThanTtl() throws Exception {
+        String key = UUID.randomUUID().toString();
+        withdraw(key, "100.00").andExpect(status().isOk());
+        idempotencyRecordRepository.findAll().stream()
+                .filter(record -> record.getIdempotencyKey().equals(key))
+                .forEach(record -> {
+                    record.setCreatedAt(LocalDateTime.now().minusDays(2));
+                    idempotencyRecordRepository.save(record);
+                });
+
+        assertTrue(idempotencyService.purgeExpired() >= 1);
+        assertTrue(idempotencyRecordRepository.findAll().stream()
+                .noneMatch(record -> record.getIdempotencyKey().equals(key)));
+    }
+
+    private ResultActions withdraw(String key, String amount) throws Exception {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(ownerAccount.getId());
+        withdrawTransaction.setAmount(new BigDecimal(amount));
+        var request = post("/api/accounts/withdraw")
+                .with(httpBasic(owner.getEmail(), PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(withdrawTransaction));
+        if (key != null) {
+            request.header("Idempotency-Key", key);
+        }
+        return mockMvc.perform(request);
+    }
+
+    private ResultActions transfer(String key) throws Exception {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(ownerAccount.getId());
+        transferTransaction.setTargetAccountId(recipientAccount.getId());
+        transferTransaction.setAmount(new BigDecimal("250.00"));
+        return mockMvc.perform(post("/api/accounts/transfer")
+                .with(httpBasic(owner.getEmail(), PASSWORD))
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transferTransaction)));
+    }
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.findBalanceById(account.getId()).orElseThrow().toBigDecimal();
+    }
+}
@@ -0,0 +1,132 @@
+package com.rabobank.bankservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.event.AccountTransactionEvent;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.outbox.OutboxRelay;
+import com.rabobank.bankservice.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.rabobank.bankservice.TestAccounts.PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        //own database, so relays of other cached test contexts can't drain this outbox
+        "spring.datasource.url=jdbc:h2:mem:outboxdb",
+        //drained by the test itself
+        "outbox.relay.poll-interval=PT1H",
+        "outbox.sink.file.enabled=true"
+})
+@AutoConfigureMockMvc
+@RecordApplicationEvents
+@Import(TestAccounts.class)
+class OutboxIntegrationTest {
+
+    @TempDir
+    static Path outboxDirectory;
+
+    @DynamicPropertySource
+    static void outboxFile(DynamicPropertyRegistry registry) {
+        registry.add("outbox.sink.file.path", () -> outboxDirectory.resolve("events.ndjson").toString());
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    private User owner;
+    private Account ownerAccount;
+    private Account recipientAccount;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay.drain();
+        owner = testAccounts.user("Owner");
+        ownerAccount = testAccounts.debitAccount(owner);
+        recipientAccount = testAccounts.debitAccount(testAccounts.user("Recipient"));
+    }
+
+    @Test
+    void transfer_WritesOutboxEventThatRelayDeliversToSinks() throws Exception {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(ownerAccount.getId());
+        transferTransaction.setTargetAccountId(recipientAccount.getId());
+        transferTransaction.setAmount(new BigDecimal("250.00"));
+        mockMvc.perform(post("/api/accounts/transfer")
+                        .with(httpBasic(owner.getEmail(), PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferTransaction)))
+                .andExpect(status().isOk());
+        assertEquals(1, outboxEventRepository.count());
+
+        assertEquals(1, outboxRelay.drain());
+
+        List<AccountTransactionEvent> delivered = applicationEvents.stream(AccountTransactionEvent.class).toList();
+        assertEquals(1, delivered.size());
+        assertEquals(TransactionType.TRANSFER, delivered.get(0).type());
+        assertEquals(ownerAccount.getId(), delivered.get(0).accountId());
+        assertEquals(recipientAccount.getId(), delivered.get(0).targetAccountId());
+        assertEquals(0, outboxEventRepository.count());
+
+        List<String> lines = Files.readAllLines(outboxDirectory.resolve("events.ndjson"));
+        AccountTransactionEvent written = objectMapper.readValue(lines.get(lines.size() - 1), AccountTransactionEvent.class);
+        assertEquals(delivered.get(0).id(), written.id());
+    }
+
+    @Test
+    void withdraw_WhenRejected_WritesNoOutboxEvent() throws Exception {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(ownerAccount.getId());
+        withdrawTransaction.setAmount(new BigDecimal("5000.00"));
+        mockMvc.perform(post("/api/accounts/withdraw")
+                        .with(httpBasic(owner.getEmail(), PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(withdrawTransaction)))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, outboxEventRepository.count());
+        assertEquals(0, outboxRelay.drain());
+        assertTrue(applicationEvents.stream(AccountTransactionEvent.class).findAny().isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+package com.rabobank.bankservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+
+import static com.rabobank.bankservice.TestAccounts.PASSWORD;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "rate-limit.enabled=true",
+        "rate-limit.write.capacity=2",
+        "rate-limit.write.refill-per-second=0.01"
+})
+@AutoConfigureMockMvc
+@Import(TestAccounts.class)
+class RateLimitIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void transfer_WhenUserExceedsRateLimit_TooManyRequestsWithRetryAfter() throws Exception {
+        User sender = testAccounts.user("Limited");
+        Account source = testAccounts.account(sender, CardType.DEBIT, "100.00");
+        Account target = testAccounts.account(testAccounts.user("Limited"), CardType.DEBIT, "100.00");
+
+        transfer(sender, source, target).andExpect(status().isOk());
+        transfer(sender, source, target).andExpect(status().isOk());
+
+        transfer(sender, source, target)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "100"))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.message").value("Rate limit of POST /api/accounts/transfer exceeded, retry after 100s"));
+
+        //reads and other users have their own buckets
+        mockMvc.perform(get("/api/accounts/")
+                        .with(httpBasic(sender.getEmail(), PASSWORD)))
+                .andExpect(status().isOk());
+        User other = testAccounts.user("Limited");
+        transfer(other, testAccounts.account(other, CardType.DEBIT, "100.00"), target).andExpect(status().isOk());
+    }
+
+    @Test
+    void transfer_WhenAnonymous_NotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/accounts/transfer")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{}"))
+                    .andExpect(status().isUnauthorized());
+        }
+    }
+
+    private ResultActions transfer(User user, Account source, Account target) throws Exception {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(source.getId());
+        transferTransaction.setTargetAccountId(target.getId());
+        transferTransaction.setAmount(new BigDecimal("1.00"));
+        return mockMvc.perform(post("/api/accounts/transfer")
+                .with(httpBasic(user.getEmail(), PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transferTransaction)));
+    }
+}
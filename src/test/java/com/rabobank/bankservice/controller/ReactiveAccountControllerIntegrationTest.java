@@ -0,0 +1,228 @@
+package com.rabobank.bankservice.controller;
+
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The WebFlux stack against its own in-memory database, so it doesn't interfere with the servlet tests.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactivedb?options=DB_CLOSE_DELAY=-1"})
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactiveAccountControllerIntegrationTest {
+
+    private static final String PASSWORD = "123";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private String owner;
+    private Long debitAccountId;
+    private Long creditAccountId;
+    private Long foreignAccountId;
+
+    @BeforeEach
+    void setUp() {
+        owner = user("Reactive");
+        debitAccountId = account(owner, "DEBIT");
+        creditAccountId = account(owner, "CREDIT");
+        foreignAccountId = account(user("Other"), "DEBIT");
+    }
+
+    @Test
+    void getAccounts_ReturnsAccountsOfCurrentUser() {
+        webTestClient.get().uri("/api/accounts/")
+                .headers(headers -> headers.setBasicAuth(owner, PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.userName").isEqualTo("Reactive")
+                .jsonPath("$.accountDetails.length()").isEqualTo(2)
+                .jsonPath("$.accountDetails[0].currentBalance").isEqualTo("1000.00");
+    }
+
+    @Test
+    void getAccounts_WithoutCredentials_ReturnsUnauthorized() {
+        webTestClient.get().uri("/api/accounts/")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void withdraw_FromCreditAccount_ChargesFeeAndWritesLedger() {
+        webTestClient.post().uri("/api/accounts/withdraw")
+                .headers(headers -> headers.setBasicAuth(owner, PASSWORD))
+                .bodyValue(withdrawal(creditAccountId, "100.00"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accountDetails[0].currentBalance").isEqualTo("899.00");
+
+        assertEquals(1L, ledgerRows(creditAccountId));
+        assertEquals(0, new BigDecimal("100.00").compareTo(dailyTotal(creditAccountId, "amount")));
+        assertEquals(0, new BigDecimal("1.00").compareTo(dailyTotal(creditAccountId, "fee")));
+    }
+
+    @Test
+    void withdraw_Twice_AddsBothToTheDailyTotals() {
+        for (int i = 0; i < 2; i++) {
+            webTestClient.post().uri("/api/accounts/withdraw")
+                    .headers(headers -> headers.setBasicAuth(owner, PASSWORD))
+                    .bodyValue(withdrawal(debitAccountId, "40.00"))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        assertEquals(0, new BigDecimal("2").compareTo(dailyTotal(debitAccountId, "transaction_count")));
+        assertEquals(0, new BigDecimal("80.00").compareTo(dailyTotal(debitAccountId, "amount")));
+    }
+
+    @Test
+    void withdraw_WhenBalanceInsufficient_ReturnsBadRequestAndKeepsBalance() {
+        webTestClient.post().uri("/api/accounts/withdraw")
+                .headers(headers -> headers.setBasicAuth(owner, PASSWORD))
+                .bodyValue(withdrawal(debitAccountId, "1000.01"))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balance(debitAccountId)));
+        assertEquals(0L, ledgerRows(debitAccountId));
+    }
+
+    @Test
+    void withdraw_FromForeignAccount_ReturnsUnauthorized() {
+        webTestClient.post().uri("/api/accounts/withdraw")
+                .headers(headers -> headers.setBasicAuth(owner, PASSWORD))
+                .bodyValue(withdrawal(foreignAccountId, "1.00"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balance(foreignAccountId)));
+    }
+
+    @Test
+    void withdraw_WithNegativeAmount_ReturnsBadRequest() {
+        webTestClient.post().uri("/api/accounts/withdraw")
+                .headers(headers -> headers.setBasicAuth(owner, PASSWORD))
+                .bodyValue(withdrawal(debitAccountId, "-1.00"))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void transfer_MovesAmountAndWritesBothLegs() {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(debitAccountId);
+        transferTransaction.setTargetAccountId(foreignAccountId);
+        transferTransaction.setAmount(new BigDecimal("250.00"));
+
+        webTestClient.post().uri("/api/accounts/transfer")
+                .headers(headers -> headers.setBasicAuth(owner, PASSWORD))
+                .bodyValue(transferTransaction)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accountDetails[0].currentBalance").isEqualTo("750.00");
+
+        assertEquals(0, new BigDecimal("1250.00").compareTo(balance(foreignAccountId)));
+        assertEquals(1L, ledgerRows(debitAccountId));
+        assertEquals(1L, ledgerRows(foreignAccountId));
+    }
+
+    @Test
+    void transfer_ToMissingAccount_ReturnsNotFoundAndRollsBack() {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(debitAccountId);
+        transferTransaction.setTargetAccountId(Long.MAX_VALUE);
+        transferTransaction.setAmount(new BigDecimal("250.00"));
+
+        webTestClient.post().uri("/api/accounts/transfer")
+                .headers(headers -> headers.setBasicAuth(owner, PASSWORD))
+                .bodyValue(transferTransaction)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balance(debitAccountId)));
+    }
+
+    private static WithdrawTransaction withdrawal(Long accountId, String amount) {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(accountId);
+        withdrawTransaction.setAmount(new BigDecimal(amount));
+        return withdrawTransaction;
+    }
+
+    private String user(String name) {
+        String email = UUID.randomUUID() + "@example.com";
+        databaseClient.sql("insert into users (name, email, password) values (:name, :email, :password)")
+                .bind("name", name)
+                .bind("email", email)
+                .bind("password", passwordEncoder.encode(PASSWORD))
+                .then()
+                .block();
+        return email;
+    }
+
+    private Long account(String email, String cardType) {
+        String cardNumber = UUID.randomUUID().toString().substring(0, 16);
+        databaseClient.sql("insert into cards (card_type, card_number) values (:cardType, :cardNumber)")
+                .bind("cardType", cardType)
+                .bind("cardNumber", cardNumber)
+                .then()
+                .block();
+        return databaseClient.sql("insert into accounts (user_id, card_id, balance) " +
+                        "select u.id, c.id, 1000.00 from users u, cards c where u.email = :email and c.card_number = :cardNumber")
+                .bind("email", email)
+                .bind("cardNumber", cardNumber)
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .block();
+    }
+
+    private BigDecimal balance(Long accountId) {
+        return databaseClient.sql("select balance from accounts where id = :id")
+                .bind("id", accountId)
+                .map(row -> row.get("balance", BigDecimal.class))
+                .one()
+                .block();
+    }
+
+    private Long ledgerRows(Long accountId) {
+        return databaseClient.sql("select count(*) as rows_count from transactions where account_id = :id")
+                .bind("id", accountId)
+                .map(row -> row.get("rows_count", Long.class))
+                .one()
+                .block();
+    }
+
+    private BigDecimal dailyTotal(Long accountId, String column) {
+        return databaseClient.sql("select sum(" + column + ") as total from account_daily_totals where account_id = :id")
+                .bind("id", accountId)
+                .map(row -> row.get("total", BigDecimal.class))
+                .one()
+                .block();
+    }
+}
@@ -0,0 +1,88 @@
+package com.rabobank.bankservice.controller;
+
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.repository.AccountRepository;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static com.rabobank.bankservice.TestAccounts.PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Requests served on virtual threads still resolve the request-scoped {@code UserContext}.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "spring.threads.virtual.enabled=true"})
+@Import(TestAccounts.class)
+class VirtualThreadIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private User owner;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        owner = testAccounts.user("Virtual");
+        account = testAccounts.debitAccount(owner);
+    }
+
+    @Test
+    void tomcat_WhenVirtualThreadsEnabled_UsesVirtualThreadExecutor() {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+
+        assertInstanceOf(VirtualThreadExecutor.class,
+                webServer.getTomcat().getConnector().getProtocolHandler().getExecutor());
+    }
+
+    @Test
+    void withdraw_OnVirtualThread_ResolvesCurrentUser() {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(account.getId());
+        withdrawTransaction.setAmount(new BigDecimal("100.00"));
+
+        ResponseEntity<Map> response = restTemplate.withBasicAuth(owner.getEmail(), PASSWORD)
+                .postForEntity("/api/accounts/withdraw", withdrawTransaction, Map.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(0, new BigDecimal("900.00").compareTo(accountRepository.findBalanceById(account.getId()).orElseThrow().toBigDecimal()));
+    }
+
+    @Test
+    void getAccounts_OnVirtualThread_ReturnsOwnAccounts() {
+        ResponseEntity<Map> response = restTemplate.withBasicAuth(owner.getEmail(), PASSWORD)
+                .getForEntity("/api/accounts/", Map.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Virtual", response.getBody().get("userName"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.rabobank.bankservice.fee;
+
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.model.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FeeScheduleTest {
+
+    @Test
+    void fee_WhenPercentage_RoundsHalfUpToTheCent() {
+        FeeSchedule schedule = FeeSchedule.compile(List.of(
+                FeeRule.percentage(CardType.CREDIT, TransactionType.WITHDRAWAL, new BigDecimal("0.01"))));
+
+        assertEquals(Money.of("1.23"), fee(schedule, "123.45", CardType.CREDIT, TransactionType.WITHDRAWAL));
+        assertEquals(Money.of("0.01"), fee(schedule, "0.50", CardType.CREDIT, TransactionType.WITHDRAWAL));
+        assertEquals(Money.ZERO, fee(schedule, "0.49", CardType.CREDIT, TransactionType.WITHDRAWAL));
+    }
+
+    @Test
+    void fee_WhenNoRuleForCardOrTransactionType_Zero() {
+        FeeSchedule schedule = FeeSchedule.compile(List.of(
+                FeeRule.percentage(CardType.CREDIT, TransactionType.WITHDRAWAL, new BigDecimal("0.01"))));
+
+        assertEquals(Money.ZERO, fee(schedule, "100.00", CardType.CREDIT, TransactionType.TRANSFER));
+        assertEquals(Money.ZERO, fee(schedule, "100.00", CardType.DEBIT, TransactionType.WITHDRAWAL));
+    }
+
+    @Test
+    void fee_WhenFlatPlusPercentage_ClampedToMinimumAndMaximum() {
+        FeeSchedule schedule = FeeSchedule.compile(List.of(rule(CardType.DEBIT, TransactionType.TRANSFER,
+                "0.00", "0.25", "0.005", "0.50", "10.00")));
+
+        assertEquals(Money.of("0.50"), fee(schedule, "10.00", CardType.DEBIT, TransactionType.TRANSFER));
+        assertEquals(Money.of("0.75"), fee(schedule, "100.00", CardType.DEBIT, TransactionType.TRANSFER));
+        assertEquals(Money.of("10.00"), fee(schedule, "5000.00", CardType.DEBIT, TransactionType.TRANSFER));
+    }
+
+    @Test
+    void fee_WhenTiered_TierOfTheAmountPricesTheWholeAmount() {
+        FeeSchedule schedule = FeeSchedule.compile(List.of(
+                rule(CardType.CREDIT, TransactionType.WITHDRAWAL, "1000.00", "0.00", "0.005", "0.00", null),
+                rule(CardType.CREDIT, TransactionType.WITHDRAWAL, "100.00", "1.00", "0.01", "0.00", null),
+                rule(CardType.CREDIT, TransactionType.WITHDRAWAL, "10.00", "1.00", "0", "0.00", null)));
+
+        assertEquals(Money.ZERO, fee(schedule, "9.99", CardType.CREDIT, TransactionType.WITHDRAWAL));
+        assertEquals(Money.of("1.00"), fee(schedule, "10.00", CardType.CREDIT, TransactionType.WITHDRAWAL));
+        assertEquals(Money.of("1.00"), fee(schedule, "99.99", CardType.CREDIT, TransactionType.WITHDRAWAL));
+        assertEquals(Money.of("2.00"), fee(schedule, "100.00", CardType.CREDIT, TransactionType.WITHDRAWAL));
+        assertEquals(Money.of("5.00"), fee(schedule, "1000.00", CardType.CREDIT, TransactionType.WITHDRAWAL));
+        assertEquals(3, schedule.size());
+    }
+
+    @Test
+    void compile_WhenTwoRulesForOneTier_ExceptionThrown() {
+        List<FeeRule> rules = List.of(
+                FeeRule.percentage(CardType.CREDIT, TransactionType.WITHDRAWAL, new BigDecimal("0.01")),
+                FeeRule.percentage(CardType.CREDIT, TransactionType.WITHDRAWAL, new BigDecimal("0.02")));
+
+        assertThrows(IllegalArgumentException.class, () -> FeeSchedule.compile(rules));
+    }
+
+    @Test
+    void compile_WhenRuleInvalid_ExceptionThrown() {
+        assertThrows(IllegalArgumentException.class, () -> FeeSchedule.compile(List.of(
+                FeeRule.percentage(CardType.CREDIT, TransactionType.WITHDRAWAL, new BigDecimal("0.0000001")))));
+        assertThrows(IllegalArgumentException.class, () -> FeeSchedule.compile(List.of(
+                rule(CardType.CREDIT, TransactionType.WITHDRAWAL, "0.00", "-1.00", "0", "0.00", null))));
+        assertThrows(IllegalArgumentException.class, () -> FeeSchedule.compile(List.of(
+                rule(CardType.CREDIT, TransactionType.WITHDRAWAL, "0.00", "0.00", "0.01", "5.00", "1.00"))));
+        assertThrows(IllegalArgumentException.class, () -> FeeSchedule.compile(List.of(
+                FeeRule.percentage(null, TransactionType.WITHDRAWAL, new BigDecimal("0.01")))));
+    }
+
+    private static Money fee(FeeSchedule schedule, String amount, CardType cardType, TransactionType transactionType) {
+        return schedule.fee(Money.of(amount), cardType, transactionType);
+    }
+
+    private static FeeRule rule(CardType cardType, TransactionType transactionType, String amountFrom, String flatFee,
+                                String rate, String minimumFee, String maximumFee) {
+        return new FeeRule(cardType, transactionType, new BigDecimal(amountFrom), new BigDecimal(flatFee),
+                new BigDecimal(rate), new BigDecimal(minimumFee), maximumFee == null ? null : new BigDecimal(maximumFee));
+    }
+}
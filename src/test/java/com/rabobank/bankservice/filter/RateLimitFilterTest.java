@@ -0,0 +1,129 @@
+package com.rabobank.bankservice.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rabobank.bankservice.ratelimit.RateLimitPolicy;
+import com.rabobank.bankservice.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FilterChain filterChain = mock(FilterChain.class);
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitFilter = new RateLimitFilter(new RateLimiter(100, nanos::get), new RateLimitPolicy(3, 1),
+                new RateLimitPolicy(1, 0.5), new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry);
+        authenticate("user@example.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_WhenWriteBucketEmpty_TooManyRequestsWithRetryAfter() throws ServletException, IOException {
+        assertEquals(200, filter("POST", "/api/accounts/transfer").getStatus());
+
+        MockHttpServletResponse response = filter("POST", "/api/accounts/transfer");
+
+        assertEquals(429, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertEquals("application/json", response.getContentType());
+        verify(filterChain, times(1)).doFilter(any(), any());
+        assertEquals(1, meterRegistry.get(RateLimitFilter.REJECTED_METRIC)
+                .tag("endpoint", "POST /api/accounts/transfer").counter().count());
+    }
+
+    @Test
+    void doFilter_WhenTokenRefilled_Passes() throws ServletException, IOException {
+        filter("POST", "/api/accounts/withdraw");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+        assertEquals(200, filter("POST", "/api/accounts/withdraw").getStatus());
+        verify(filterChain, times(2)).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilter_ReadsUseTheirOwnBucketAndAccountIdsShareOne() throws ServletException, IOException {
+        filter("POST", "/api/accounts/withdraw");
+        filter("GET", "/api/accounts/1/transactions");
+        filter("GET", "/api/accounts/2/transactions");
+        filter("GET", "/api/accounts/3/transactions");
+
+        assertEquals(429, filter("GET", "/api/accounts/4/transactions").getStatus());
+        verify(filterChain, times(4)).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilter_WhenAnonymous_NotLimited() throws ServletException, IOException {
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("key", "anonymous",
+                List.of(new SimpleGrantedAuthority("ROLE_ANONYMOUS"))));
+
+        filter("GET", "/actuator/prometheus");
+        filter("GET", "/actuator/prometheus");
+        filter("GET", "/actuator/prometheus");
+        filter("GET", "/actuator/prometheus");
+
+        verify(filterChain, times(4)).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilter_UnknownPathsShareOneWriteBucket() throws ServletException, IOException {
+        filter("GET", "/api/accounts/x1");
+
+        MockHttpServletResponse response = filter("GET", "/api/accounts/x2");
+
+        assertEquals(429, response.getStatus());
+        verify(filterChain, times(1)).doFilter(any(), any());
+        assertEquals(1, meterRegistry.get(RateLimitFilter.REJECTED_METRIC)
+                .tag("endpoint", RateLimitFilter.OTHER).counter().count());
+    }
+
+    @Test
+    void endpoint_MatchesRoutesWithNumericSegments() {
+        assertEquals("GET /api/accounts/{id}/transactions", RateLimitFilter.endpoint("GET", "/api/accounts/42/transactions"));
+        assertEquals("POST /api/accounts/transfer", RateLimitFilter.endpoint("POST", "/api/accounts/transfer"));
+        assertEquals("GET /api/accounts/", RateLimitFilter.endpoint("GET", "/api/accounts/"));
+        assertEquals("GET /api/accounts/", RateLimitFilter.endpoint("HEAD", "/api/accounts/"));
+        assertEquals(RateLimitFilter.OTHER, RateLimitFilter.endpoint("GET", "/api/accounts/1a"));
+        assertEquals(RateLimitFilter.OTHER, RateLimitFilter.endpoint("GET", "/api/accounts/1/transactions/2"));
+        assertEquals(RateLimitFilter.OTHER, RateLimitFilter.endpoint("DELETE", "/api/accounts/transfer"));
+    }
+
+    private MockHttpServletResponse filter(String method, String path) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, filterChain);
+        return response;
+    }
+
+    private static void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                email, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+}
@@ -2,6 +2,7 @@ package com.rabobank.bankservice.filter;
 
 import com.rabobank.bankservice.entity.User;
 import com.rabobank.bankservice.repository.UserRepository;
+import com.rabobank.bankservice.security.AuthenticatedUser;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,11 +13,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -73,6 +77,34 @@ class UserContextFilterTest {
         verify(filterChain).doFilter(request, response);
     }
 
+    @Test
+    void doFilterInternal_WhenAnonymous_SkipsUserLookup() throws ServletException, IOException {
+        when(securityContext.getAuthentication()).thenReturn(new AnonymousAuthenticationToken("key", "anonymousUser",
+                List.of(new SimpleGrantedAuthority("ROLE_ANONYMOUS"))));
+
+        userContextFilter.doFilterInternal(request, response, filterChain);
+
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(request, never()).setAttribute(eq("currentUser"), any());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_WhenPrincipalIsAuthenticatedUser_SkipsUserLookup() throws ServletException, IOException {
+        AuthenticatedUser principal = new AuthenticatedUser(1L, "Test", "test@example.com", "hash",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.isAuthenticated()).thenReturn(true);
+        when(authentication.getPrincipal()).thenReturn(principal);
+
+        userContextFilter.doFilterInternal(request, response, filterChain);
+
+        verify(request).setAttribute(eq("currentUser"), argThat((User user) ->
+                user.getId().equals(1L) && user.getEmail().equals("test@example.com") && user.getName().equals("Test")));
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(filterChain).doFilter(request, response);
+    }
+
     @Test
     void doFilterInternal_WhenAuthenticatedButUserNotFound_ThrowsRuntimeException() throws ServletException, IOException {
         when(securityContext.getAuthentication()).thenReturn(authentication);
@@ -0,0 +1,185 @@
+package com.rabobank.bankservice.limit;
+
+import com.rabobank.bankservice.error.WithdrawalLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WithdrawalCountersTest {
+
+    private static final Long ACCOUNT_ID = 1L;
+    private static final WithdrawalLimitPolicy POLICY = new WithdrawalLimitPolicy(100_00, 3, Duration.ofMinutes(1));
+    private static final WithdrawalCounters.Seed NO_USAGE = (accountId, day, since) -> WithdrawalCounters.SeedUsage.NONE;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-03-01T10:00:00Z"));
+    private final WithdrawalCounters counters = new WithdrawalCounters(4, clock);
+
+    @Test
+    void reserve_WhenDailyAmountWouldBeExceeded_ExceptionThrown() {
+        counters.reserve(ACCOUNT_ID, 60_00, POLICY, NO_USAGE);
+
+        WithdrawalLimitExceededException exception = assertThrows(WithdrawalLimitExceededException.class,
+                () -> counters.reserve(ACCOUNT_ID, 40_01, POLICY, NO_USAGE));
+
+        assertEquals("Daily withdrawal limit of 100.00 exceeded. Already withdrawn today: 60.00", exception.getMessage());
+        //a rejected withdrawal isn't counted
+        counters.reserve(ACCOUNT_ID, 40_00, POLICY, NO_USAGE);
+    }
+
+    @Test
+    void reserve_WhenNextDay_DailyAmountStartsOver() {
+        counters.reserve(ACCOUNT_ID, 100_00, POLICY, NO_USAGE);
+        clock.advance(Duration.ofDays(1));
+
+        counters.reserve(ACCOUNT_ID, 100_00, POLICY, NO_USAGE);
+    }
+
+    @Test
+    void reserve_WhenTooManyWithinWindow_RejectedUntilOldestLeavesIt() {
+        counters.reserve(ACCOUNT_ID, 1_00, POLICY, NO_USAGE);
+        clock.advance(Duration.ofSeconds(20));
+        counters.reserve(ACCOUNT_ID, 1_00, POLICY, NO_USAGE);
+        counters.reserve(ACCOUNT_ID, 1_00, POLICY, NO_USAGE);
+
+        assertThrows(WithdrawalLimitExceededException.class, () -> counters.reserve(ACCOUNT_ID, 1_00, POLICY, NO_USAGE));
+
+        clock.advance(Duration.ofSeconds(40));
+        counters.reserve(ACCOUNT_ID, 1_00, POLICY, NO_USAGE);
+        assertThrows(WithdrawalLimitExceededException.class, () -> counters.reserve(ACCOUNT_ID, 1_00, POLICY, NO_USAGE));
+    }
+
+    @Test
+    void release_TakesBackAmountAndWithdrawalOnce() {
+        counters.reserve(ACCOUNT_ID, 50_00, POLICY, NO_USAGE);
+        counters.reserve(ACCOUNT_ID, 1_00, POLICY, NO_USAGE);
+        WithdrawalCounters.Reservation reservation = counters.reserve(ACCOUNT_ID, 49_00, POLICY, NO_USAGE);
+
+        counters.release(reservation);
+        counters.release(reservation);
+
+        counters.reserve(ACCOUNT_ID, 49_00, POLICY, NO_USAGE);
+        assertThrows(WithdrawalLimitExceededException.class, () -> counters.reserve(ACCOUNT_ID, 1_00, POLICY, NO_USAGE));
+    }
+
+    @Test
+    void reserve_WhenAccountHasNoCounters_SeededOnce() {
+        AtomicInteger seeded = new AtomicInteger();
+        long recent = clock.millis() - Duration.ofSeconds(30).toMillis();
+        WithdrawalCounters.Seed seed = (accountId, day, since) -> {
+            seeded.incrementAndGet();
+            assertEquals(LocalDate.of(2025, 3, 1), day);
+            assertEquals(clock.millis() - POLICY.window().toMillis(), since);
+            return new WithdrawalCounters.SeedUsage(90_00, new long[]{recent, recent});
+        };
+
+        counters.reserve(ACCOUNT_ID, 10_00, POLICY, seed);
+
+        assertThrows(WithdrawalLimitExceededException.class, () -> counters.reserve(ACCOUNT_ID, 1, POLICY, seed));
+        assertEquals(1, seeded.get());
+    }
+
+    @Test
+    void reserve_WhileSeedLoads_OtherAccountsOfTheStripeNotBlocked() throws Exception {
+        WithdrawalCounters oneStripe = new WithdrawalCounters(1, clock);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch loaded = new CountDownLatch(1);
+        WithdrawalCounters.Seed slowSeed = (accountId, day, since) -> {
+            loading.countDown();
+            await(loaded);
+            return WithdrawalCounters.SeedUsage.NONE;
+        };
+        CompletableFuture<WithdrawalCounters.Reservation> slow =
+                CompletableFuture.supplyAsync(() -> oneStripe.reserve(ACCOUNT_ID, 1_00, POLICY, slowSeed));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> oneStripe.reserve(2L, 1_00, POLICY, NO_USAGE));
+
+        loaded.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        assertEquals(2, oneStripe.size());
+    }
+
+    @Test
+    void reserve_WhenSeededOnTwoThreads_FirstSeedKept() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch loaded = new CountDownLatch(1);
+        WithdrawalCounters.Seed staleSeed = (accountId, day, since) -> {
+            loading.countDown();
+            await(loaded);
+            return WithdrawalCounters.SeedUsage.NONE;
+        };
+        CompletableFuture<WithdrawalCounters.Reservation> late =
+                CompletableFuture.supplyAsync(() -> counters.reserve(ACCOUNT_ID, 10_00, POLICY, staleSeed));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        counters.reserve(ACCOUNT_ID, 10_00, POLICY,
+                (accountId, day, since) -> new WithdrawalCounters.SeedUsage(70_00, new long[0]));
+
+        loaded.countDown();
+        late.get(5, TimeUnit.SECONDS);
+
+        //70.00 seeded plus both withdrawals: the late seed didn't reset the counters
+        assertThrows(WithdrawalLimitExceededException.class, () -> counters.reserve(ACCOUNT_ID, 10_01, POLICY, NO_USAGE));
+        counters.reserve(ACCOUNT_ID, 10_00, POLICY, NO_USAGE);
+    }
+
+    @Test
+    void evictIdle_DropsAccountsWithoutUsageTodayOrWithinWindow() {
+        counters.reserve(ACCOUNT_ID, 1_00, POLICY, NO_USAGE);
+        counters.reserve(2L, 1_00, POLICY, NO_USAGE);
+        clock.advance(Duration.ofHours(14));
+        counters.reserve(2L, 1_00, POLICY, NO_USAGE);
+
+        assertEquals(1, counters.evictIdle());
+        assertEquals(1, counters.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.rabobank.bankservice.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @Test
+    void of_RoundsHalfUpToTheCent() {
+        assertEquals(1235, Money.of("12.345").cents());
+        assertEquals(-1235, Money.of("-12.345").cents());
+        assertEquals(1200, Money.of(new BigDecimal("12")).cents());
+    }
+
+    @Test
+    void toBigDecimal_HasScaleTwo() {
+        assertEquals(new BigDecimal("12.05"), Money.ofCents(1205).toBigDecimal());
+        assertEquals(new BigDecimal("0.00"), Money.ZERO.toBigDecimal());
+    }
+
+    @Test
+    void toString_MatchesBigDecimal() {
+        for (long cents : new long[]{0, 5, -5, 100, -1205, 123456789}) {
+            Money money = Money.ofCents(cents);
+            assertEquals(money.toBigDecimal().toPlainString(), money.toString());
+        }
+    }
+
+    @Test
+    void arithmetic_IsExact() {
+        Money amount = Money.of("100.10");
+
+        assertEquals(Money.of("101.11"), amount.plus(Money.of("1.01")));
+        assertEquals(Money.of("-0.90"), amount.minus(Money.of("101.00")));
+        assertEquals(Money.of("-100.10"), amount.negate());
+        assertSame(Money.ZERO, amount.minus(amount));
+    }
+
+    @Test
+    void arithmetic_WhenOverflowing_ExceptionThrown() {
+        Money max = Money.ofCents(Long.MAX_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MIN_VALUE).negate());
+        assertThrows(ArithmeticException.class, () -> max.multiply(2, 1, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    void multiply_RoundsLikeBigDecimal() {
+        long[] rates = {1, 5_000, 10_000, 12_345, 500_000, 999_999};
+        for (RoundingMode mode : RoundingMode.values()) {
+            if (mode == RoundingMode.UNNECESSARY) {
+                continue;
+            }
+            for (long step = -1_000; step <= 1_000; step += 7) {
+                long cents = step;
+                for (long rate : rates) {
+                    BigDecimal expected = BigDecimal.valueOf(cents, 2)
+                            .multiply(BigDecimal.valueOf(rate, 6))
+                            .setScale(2, mode);
+                    assertEquals(expected, Money.ofCents(cents).multiply(rate, 1_000_000, mode).toBigDecimal(),
+                            () -> cents + " cents at " + rate + " with " + mode);
+                }
+            }
+        }
+    }
+
+    @Test
+    void multiply_WhenRoundingUnnecessaryButNeeded_ExceptionThrown() {
+        assertEquals(Money.of("1.00"), Money.of("100.00").multiply(1, 100, RoundingMode.UNNECESSARY));
+        assertThrows(ArithmeticException.class, () -> Money.of("0.01").multiply(1, 2, RoundingMode.UNNECESSARY));
+    }
+}
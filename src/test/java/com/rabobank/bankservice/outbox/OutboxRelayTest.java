@@ -0,0 +1,107 @@
+package com.rabobank.bankservice.outbox;
+
+import com.rabobank.bankservice.entity.OutboxEvent;
+import com.rabobank.bankservice.event.AccountTransactionEvent;
+import com.rabobank.bankservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ObjectProvider<OutboxSink> sinkProvider;
+
+    @Mock
+    private OutboxSink sink;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(sink.name()).thenReturn("test");
+        when(sinkProvider.orderedStream()).thenReturn(Stream.of(sink));
+        relay = new OutboxRelay(outboxEventRepository, sinkProvider, transactionManager, 2, 3,
+                Duration.ofMinutes(1), Duration.ofMinutes(5), meterRegistry);
+    }
+
+    @Test
+    void drain_DeliversBatchesUntilOutboxIsEmpty() throws Exception {
+        when(outboxEventRepository.findAllByOrderByIdAsc(Limit.of(2)))
+                .thenReturn(List.of(event(1L), event(2L)))
+                .thenReturn(List.of(event(3L)));
+
+        assertEquals(3, relay.drain());
+
+        verify(sink, times(2)).publish(any());
+        verify(outboxEventRepository).deleteByIdIn(List.of(1L, 2L));
+        verify(outboxEventRepository).deleteByIdIn(List.of(3L));
+        assertEquals(3.0, meterRegistry.counter(OutboxRelay.PUBLISHED_METRIC, "sink", "test").count());
+    }
+
+    @Test
+    void drain_StopsAfterMaxBatchesPerRun() throws Exception {
+        when(outboxEventRepository.findAllByOrderByIdAsc(Limit.of(2))).thenReturn(List.of(event(1L), event(2L)));
+
+        assertEquals(6, relay.drain());
+
+        verify(sink, times(3)).publish(any());
+    }
+
+    @Test
+    void drain_WhenSinkFails_KeepsEventsAndBacksOff() throws Exception {
+        when(outboxEventRepository.findAllByOrderByIdAsc(Limit.of(2))).thenReturn(List.of(event(1L)));
+        doThrow(new IllegalStateException("sink down")).when(sink).publish(any());
+
+        assertEquals(0, relay.drain());
+        //still backing off, the outbox isn't read again
+        assertEquals(0, relay.drain());
+
+        verify(outboxEventRepository, times(1)).findAllByOrderByIdAsc(any());
+        verify(outboxEventRepository, never()).deleteByIdIn(any());
+        assertEquals(1.0, meterRegistry.counter(OutboxRelay.FAILURES_METRIC, "sink", "test").count());
+    }
+
+    @Test
+    void drain_ReportsAgeOfOldestPendingEventAsLag() {
+        when(outboxEventRepository.findAllByOrderByIdAsc(Limit.of(2))).thenReturn(List.of());
+        when(outboxEventRepository.findOldestCreatedAt()).thenReturn(Optional.of(LocalDateTime.now().minusSeconds(30)));
+
+        relay.drain();
+
+        assertTrue(meterRegistry.get(OutboxRelay.LAG_METRIC).gauge().value() >= 30.0);
+    }
+
+    private static OutboxEvent event(Long id) {
+        OutboxEvent event = OutboxEvent.withdrawal(1L, BigDecimal.TEN, BigDecimal.ZERO);
+        event.setId(id);
+        return event;
+    }
+}
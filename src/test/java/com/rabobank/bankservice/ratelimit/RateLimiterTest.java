@@ -0,0 +1,82 @@
+package com.rabobank.bankservice.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateLimiterTest {
+
+    private static final RateLimitPolicy POLICY = new RateLimitPolicy(3, 10);
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicLong nanos = new AtomicLong(1_000_000_000L);
+    private final RateLimiter rateLimiter = new RateLimiter(100, nanos::get);
+
+    @Test
+    void tryAcquire_WhenBurstUsed_RejectedUntilNextToken() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("user", "POST /api/accounts/transfer", POLICY));
+        }
+
+        assertEquals(INTERVAL, rateLimiter.tryAcquire("user", "POST /api/accounts/transfer", POLICY));
+
+        nanos.addAndGet(INTERVAL / 2);
+        assertEquals(INTERVAL / 2, rateLimiter.tryAcquire("user", "POST /api/accounts/transfer", POLICY));
+        nanos.addAndGet(INTERVAL / 2);
+        assertEquals(0, rateLimiter.tryAcquire("user", "POST /api/accounts/transfer", POLICY));
+        assertEquals(INTERVAL, rateLimiter.tryAcquire("user", "POST /api/accounts/transfer", POLICY));
+    }
+
+    @Test
+    void tryAcquire_WhenIdle_RefillsUpToCapacityOnly() {
+        rateLimiter.tryAcquire("user", "POST /api/accounts/withdraw", POLICY);
+        nanos.addAndGet(TimeUnit.HOURS.toNanos(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("user", "POST /api/accounts/withdraw", POLICY));
+        }
+        assertEquals(INTERVAL, rateLimiter.tryAcquire("user", "POST /api/accounts/withdraw", POLICY));
+    }
+
+    @Test
+    void tryAcquire_BucketsPerClientAndEndpoint() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("user", "POST /api/accounts/transfer", POLICY);
+        }
+
+        assertEquals(0, rateLimiter.tryAcquire("other", "POST /api/accounts/transfer", POLICY));
+        assertEquals(0, rateLimiter.tryAcquire("user", "POST /api/accounts/withdraw", POLICY));
+    }
+
+    @Test
+    void evictIdle_DropsOnlyFullBuckets() {
+        rateLimiter.tryAcquire("user", "POST /api/accounts/transfer", POLICY);
+        nanos.addAndGet(INTERVAL);
+        rateLimiter.tryAcquire("other", "POST /api/accounts/transfer", POLICY);
+
+        assertEquals(1, rateLimiter.evictIdle());
+        assertEquals(1, rateLimiter.size());
+    }
+
+    @Test
+    void tryAcquire_WhenMaxBucketsReached_IdleBucketsEvictedFirst() {
+        RateLimiter limiter = new RateLimiter(2, nanos::get);
+        limiter.tryAcquire("a", "GET /api/accounts/", POLICY);
+        limiter.tryAcquire("b", "GET /api/accounts/", POLICY);
+        nanos.addAndGet(INTERVAL);
+
+        limiter.tryAcquire("c", "GET /api/accounts/", POLICY);
+
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void policy_WhenNotPositive_ExceptionThrown() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitPolicy(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitPolicy(10, 0));
+    }
+}
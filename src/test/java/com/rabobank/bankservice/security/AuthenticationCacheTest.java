@@ -0,0 +1,65 @@
+package com.rabobank.bankservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthenticationCacheTest {
+
+    private static final String EMAIL = "test@example.com";
+    private static final String RAW_PASSWORD = "123";
+    private static final String ENCODED_PASSWORD = "$2a$10$hash";
+
+    private AuthenticationCache authenticationCache;
+
+    @BeforeEach
+    void setUp() {
+        authenticationCache = new AuthenticationCache(true, Duration.ofMinutes(5), 100, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void isVerified_WhenCredentialsCached_ReturnsTrue() {
+        authenticationCache.put(EMAIL, RAW_PASSWORD, ENCODED_PASSWORD);
+
+        assertTrue(authenticationCache.isVerified(EMAIL, RAW_PASSWORD, ENCODED_PASSWORD));
+        assertEquals(1, authenticationCache.stats().hitCount());
+    }
+
+    @Test
+    void isVerified_WhenPasswordDiffers_ReturnsFalse() {
+        authenticationCache.put(EMAIL, RAW_PASSWORD, ENCODED_PASSWORD);
+
+        assertFalse(authenticationCache.isVerified(EMAIL, "wrong", ENCODED_PASSWORD));
+        assertEquals(1, authenticationCache.stats().missCount());
+    }
+
+    @Test
+    void isVerified_WhenStoredHashChanged_ReturnsFalse() {
+        authenticationCache.put(EMAIL, RAW_PASSWORD, ENCODED_PASSWORD);
+
+        assertFalse(authenticationCache.isVerified(EMAIL, RAW_PASSWORD, "$2a$10$otherHash"));
+    }
+
+    @Test
+    void invalidate_RemovesEntriesOfUser() {
+        authenticationCache.put(EMAIL, RAW_PASSWORD, ENCODED_PASSWORD);
+        authenticationCache.put("other@example.com", RAW_PASSWORD, ENCODED_PASSWORD);
+
+        authenticationCache.invalidate(EMAIL);
+
+        assertFalse(authenticationCache.isVerified(EMAIL, RAW_PASSWORD, ENCODED_PASSWORD));
+        assertTrue(authenticationCache.isVerified("other@example.com", RAW_PASSWORD, ENCODED_PASSWORD));
+    }
+
+    @Test
+    void isVerified_WhenDisabled_AlwaysReturnsFalse() {
+        AuthenticationCache disabledCache = new AuthenticationCache(false, Duration.ofMinutes(5), 100, new SimpleMeterRegistry());
+        disabledCache.put(EMAIL, RAW_PASSWORD, ENCODED_PASSWORD);
+
+        assertFalse(disabledCache.isVerified(EMAIL, RAW_PASSWORD, ENCODED_PASSWORD));
+    }
+}
@@ -0,0 +1,71 @@
+package com.rabobank.bankservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAuthenticationProviderTest {
+
+    private static final String EMAIL = "test@example.com";
+    private static final String RAW_PASSWORD = "123";
+    private static final String ENCODED_PASSWORD = "$2a$10$hash";
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private CachingAuthenticationProvider authenticationProvider;
+
+    @BeforeEach
+    void setUp() {
+        AuthenticationCache authenticationCache = new AuthenticationCache(true, Duration.ofMinutes(5), 100, new SimpleMeterRegistry());
+        authenticationProvider = new CachingAuthenticationProvider(userDetailsService, passwordEncoder, authenticationCache);
+
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(User.withUsername(EMAIL)
+                .password(ENCODED_PASSWORD)
+                .authorities("ROLE_USER")
+                .build());
+    }
+
+    @Test
+    void authenticate_WhenRepeated_VerifiesPasswordOnlyOnce() {
+        when(passwordEncoder.matches(RAW_PASSWORD, ENCODED_PASSWORD)).thenReturn(true);
+
+        Authentication first = authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, RAW_PASSWORD));
+        Authentication second = authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, RAW_PASSWORD));
+
+        assertTrue(first.isAuthenticated());
+        assertTrue(second.isAuthenticated());
+        verify(passwordEncoder, times(1)).matches(RAW_PASSWORD, ENCODED_PASSWORD);
+    }
+
+    @Test
+    void authenticate_WhenPasswordWrong_IsNotCached() {
+        when(passwordEncoder.matches("wrong", ENCODED_PASSWORD)).thenReturn(false);
+
+        assertThrows(BadCredentialsException.class,
+                () -> authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "wrong")));
+        assertThrows(BadCredentialsException.class,
+                () -> authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "wrong")));
+
+        verify(passwordEncoder, times(2)).matches("wrong", ENCODED_PASSWORD);
+    }
+}
@@ -0,0 +1,71 @@
+package com.rabobank.bankservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingReactiveAuthenticationManagerTest {
+
+    private static final String EMAIL = "test@example.com";
+    private static final String RAW_PASSWORD = "123";
+    private static final String ENCODED_PASSWORD = "$2a$10$hash";
+
+    @Mock
+    private ReactiveUserDetailsService userDetailsService;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private CachingReactiveAuthenticationManager authenticationManager;
+
+    @BeforeEach
+    void setUp() {
+        AuthenticationCache authenticationCache = new AuthenticationCache(true, Duration.ofMinutes(5), 100, new SimpleMeterRegistry());
+        authenticationManager = new CachingReactiveAuthenticationManager(userDetailsService, passwordEncoder, authenticationCache);
+
+        when(userDetailsService.findByUsername(EMAIL)).thenReturn(Mono.just(User.withUsername(EMAIL)
+                .password(ENCODED_PASSWORD)
+                .authorities("ROLE_USER")
+                .build()));
+    }
+
+    @Test
+    void authenticate_WhenRepeated_VerifiesPasswordOnlyOnce() {
+        when(passwordEncoder.matches(RAW_PASSWORD, ENCODED_PASSWORD)).thenReturn(true);
+
+        Authentication first = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, RAW_PASSWORD)).block();
+        Authentication second = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, RAW_PASSWORD)).block();
+
+        assertTrue(first.isAuthenticated());
+        assertTrue(second.isAuthenticated());
+        verify(passwordEncoder, times(1)).matches(RAW_PASSWORD, ENCODED_PASSWORD);
+    }
+
+    @Test
+    void authenticate_WhenPasswordWrong_IsNotCached() {
+        when(passwordEncoder.matches("wrong", ENCODED_PASSWORD)).thenReturn(false);
+
+        Mono<Authentication> authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "wrong"));
+
+        assertThrows(BadCredentialsException.class, authentication::block);
+        assertThrows(BadCredentialsException.class, authentication::block);
+        verify(passwordEncoder, times(2)).matches("wrong", ENCODED_PASSWORD);
+    }
+}
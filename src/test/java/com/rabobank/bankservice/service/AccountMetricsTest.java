@@ -0,0 +1,79 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.error.InsufficientBalanceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccountMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountMetrics accountMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountMetrics = new AccountMetrics(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void record_WhenSuccessful_TimesWithSuccessOutcome() {
+        String result = accountMetrics.record("withdraw", () -> "done");
+
+        assertEquals("done", result);
+        assertEquals(1, meterRegistry.get(AccountMetrics.OPERATION_METRIC)
+                .tags("operation", "withdraw", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void record_WhenInsufficientBalance_TimesWithOutcomeAndRethrows() {
+        assertThrows(InsufficientBalanceException.class, () -> accountMetrics.record("transfer", () -> {
+            throw new InsufficientBalanceException("Insufficient balance");
+        }));
+
+        assertEquals(1, meterRegistry.get(AccountMetrics.OPERATION_METRIC)
+                .tags("operation", "transfer", "outcome", "insufficient_balance").timer().count());
+    }
+
+    @Test
+    void recordFee_OutsideTransaction_IncrementsImmediately() {
+        accountMetrics.recordFee(CardType.CREDIT, new BigDecimal("1.50"));
+
+        assertEquals(1.5, meterRegistry.get(AccountMetrics.FEES_METRIC).tag("card.type", "CREDIT").counter().count());
+    }
+
+    @Test
+    void recordFee_InsideTransaction_WaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        accountMetrics.recordFee(CardType.CREDIT, new BigDecimal("2.00"));
+        assertEquals(0, meterRegistry.get(AccountMetrics.FEES_METRIC).counter().count());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(2.0, meterRegistry.get(AccountMetrics.FEES_METRIC).counter().count());
+    }
+
+    @Test
+    void recordFee_WhenZero_RegistersNothing() {
+        accountMetrics.recordFee(CardType.DEBIT, BigDecimal.ZERO);
+
+        assertNull(meterRegistry.find(AccountMetrics.FEES_METRIC).counter());
+    }
+}
@@ -0,0 +1,109 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.error.AccountNotFoundException;
+import com.rabobank.bankservice.event.BalanceChangedEvent;
+import com.rabobank.bankservice.model.AccountOverview;
+import com.rabobank.bankservice.model.AccountToUserAccountMapper;
+import com.rabobank.bankservice.model.UserAccount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountOverviewServiceTest {
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private AccountToUserAccountMapper mapper;
+
+    @Mock
+    private UserContext userContext;
+
+    private final List<AccountOverview> overview = List.of();
+    private final UserAccount userAccount = UserAccount.builder().userName("Test").build();
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(1L);
+        lenient().when(userContext.getCurrentUser()).thenReturn(user);
+        lenient().when(accountService.getAccountOverview()).thenReturn(overview);
+        lenient().when(mapper.overviewToUserAccount(overview)).thenReturn(userAccount);
+    }
+
+    private AccountOverviewService accountOverviewService(boolean enabled) {
+        return new AccountOverviewService(accountService, mapper, userContext, enabled,
+                Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void getUserAccount_WhenCached_LoadsOnce() {
+        AccountOverviewService accountOverviewService = accountOverviewService(true);
+
+        assertSame(userAccount, accountOverviewService.getUserAccount());
+        assertSame(userAccount, accountOverviewService.getUserAccount());
+
+        verify(accountService, times(1)).getAccountOverview();
+        assertEquals(1, accountOverviewService.stats().hitCount());
+    }
+
+    @Test
+    void onBalanceChanged_EvictsAffectedUser() {
+        AccountOverviewService accountOverviewService = accountOverviewService(true);
+        accountOverviewService.getUserAccount();
+
+        accountOverviewService.onBalanceChanged(new BalanceChangedEvent(Set.of(1L, 2L)));
+        accountOverviewService.getUserAccount();
+
+        verify(accountService, times(2)).getAccountOverview();
+    }
+
+    @Test
+    void getUserAccount_WhenLoadFails_RethrowsAndDoesNotCacheFailure() {
+        AccountOverviewService accountOverviewService = accountOverviewService(true);
+        when(accountService.getAccountOverview())
+                .thenThrow(new AccountNotFoundException("Account not found"))
+                .thenReturn(overview);
+
+        assertThrows(AccountNotFoundException.class, accountOverviewService::getUserAccount);
+        assertSame(userAccount, accountOverviewService.getUserAccount());
+    }
+
+    @Test
+    void getUserAccount_WhenLoadFailsWithError_DoesNotLeaveLoadPending() {
+        AccountOverviewService accountOverviewService = accountOverviewService(true);
+        when(accountService.getAccountOverview())
+                .thenThrow(new StackOverflowError())
+                .thenReturn(overview);
+
+        assertThrows(StackOverflowError.class, accountOverviewService::getUserAccount);
+        assertSame(userAccount, assertTimeoutPreemptively(Duration.ofSeconds(5), accountOverviewService::getUserAccount));
+    }
+
+    @Test
+    void getUserAccount_WhenDisabled_AlwaysLoads() {
+        AccountOverviewService accountOverviewService = accountOverviewService(false);
+
+        accountOverviewService.getUserAccount();
+        accountOverviewService.getUserAccount();
+
+        verify(accountService, times(2)).getAccountOverview();
+    }
+}
@@ -0,0 +1,122 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.error.ConcurrentUpdateException;
+import com.rabobank.bankservice.error.InsufficientBalanceException;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fires parallel withdrawals at a single account and checks that every cent is accounted for.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Import(TestAccounts.class)
+class AccountServiceConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int WITHDRAWALS_PER_THREAD = 25;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+    private static final BigDecimal WITHDRAW_AMOUNT = new BigDecimal("1.00");
+
+    @MockitoBean
+    private UserContext userContext;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        account = testAccounts.account(testAccounts.user("Concurrent"), CardType.DEBIT, INITIAL_BALANCE.toPlainString());
+    }
+
+    @Test
+    void withdraw_WhenCalledInParallel_NeverLosesMoney() throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < WITHDRAWALS_PER_THREAD; j++) {
+                    WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+                    withdrawTransaction.setAccount(account.getId());
+                    withdrawTransaction.setAmount(WITHDRAW_AMOUNT);
+                    try {
+                        accountService.withdraw(withdrawTransaction);
+                        succeeded.incrementAndGet();
+                    } catch (InsufficientBalanceException e) {
+                        rejected.incrementAndGet();
+                    } catch (ConcurrentUpdateException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        int expectedSuccesses = INITIAL_BALANCE.divide(WITHDRAW_AMOUNT).intValueExact();
+        BigDecimal finalBalance = accountRepository.findBalanceById(account.getId()).orElseThrow().toBigDecimal();
+        int ledgerRows = transactionRepository.findAllByAccountId(account.getId()).orElseThrow().size();
+
+        assertEquals(THREADS * WITHDRAWALS_PER_THREAD, succeeded.get() + rejected.get() + conflicts.get());
+        assertEquals(0, INITIAL_BALANCE.subtract(WITHDRAW_AMOUNT.multiply(BigDecimal.valueOf(succeeded.get())))
+                .compareTo(finalBalance));
+        assertEquals(succeeded.get(), ledgerRows);
+        if (allowsConflicts()) {
+            //a withdrawal is only rejected once the balance ran out
+            assertTrue(rejected.get() == 0 || finalBalance.signum() == 0);
+        } else {
+            assertEquals(0, conflicts.get());
+            assertEquals(expectedSuccesses, succeeded.get());
+            assertEquals(0, finalBalance.signum());
+        }
+    }
+
+    protected boolean allowsConflicts() {
+        return false;
+    }
+}
@@ -1,22 +1,37 @@
 package com.rabobank.bankservice.service;
 
+import com.rabobank.bankservice.balance.DatabaseBalanceEngine;
 import com.rabobank.bankservice.context.UserContext;
 import com.rabobank.bankservice.entity.*;
+import com.rabobank.bankservice.event.BalanceChangedEvent;
 import com.rabobank.bankservice.error.AccountNotFoundException;
+import com.rabobank.bankservice.error.ConcurrentUpdateException;
+import com.rabobank.bankservice.error.IdempotencyKeyReusedException;
+import com.rabobank.bankservice.error.InsufficientBalanceException;
+import com.rabobank.bankservice.error.WithdrawalLimitExceededException;
+import com.rabobank.bankservice.model.AccountOverview;
+import com.rabobank.bankservice.model.Money;
 import com.rabobank.bankservice.model.request.TransferTransaction;
 import com.rabobank.bankservice.model.request.WithdrawTransaction;
 import com.rabobank.bankservice.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -29,6 +44,8 @@ class AccountServiceTest {
     private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
     private static final BigDecimal TRANSACTION_AMOUNT = new BigDecimal("100.00");
     private static final BigDecimal TRANSACTION_FEE = new BigDecimal("1.00");
+    private static final Money AMOUNT = Money.of(TRANSACTION_AMOUNT);
+    private static final Money FEE = Money.of(TRANSACTION_FEE);
 
     @Mock
     private AccountRepository accountRepository;
@@ -45,7 +62,24 @@ class AccountServiceTest {
     @Mock
     private User user;
 
-    @InjectMocks
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private BalanceGroupCommitter groupCommitter;
+
+    @Mock
+    private WithdrawalLimitService withdrawalLimitService;
+
     private AccountService accountService;
 
     private Account sourceAccount;
@@ -59,36 +93,55 @@ class AccountServiceTest {
         sourceAccount.setId(1L);
         sourceAccount.setBalance(INITIAL_BALANCE);
         sourceAccount.setCard(debitCard);
+        sourceAccount.setUser(owner(10L));
 
         targetAccount = new Account();
         targetAccount.setId(2L);
         targetAccount.setBalance(INITIAL_BALANCE);
+        targetAccount.setCard(debitCard);
+        targetAccount.setUser(owner(20L));
+
+        accountService = accountService(ConcurrencyMode.ATOMIC);
+    }
+
+    private AccountService accountService(ConcurrencyMode concurrencyMode) {
+        OptimisticRetryExecutor retryExecutor = new OptimisticRetryExecutor(3, Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry());
+        return new AccountService(accountRepository, transactionService, transactionFeeService, userContext,
+                transactionManager, retryExecutor, concurrencyMode, eventPublisher,
+                new AccountMetrics(new SimpleMeterRegistry()), idempotencyService, outboxService,
+                new DatabaseBalanceEngine(accountRepository), groupCommitter, withdrawalLimitService);
+    }
+
+    private static User owner(Long id) {
+        User owner = new User();
+        owner.setId(id);
+        return owner;
     }
 
     @Test
-    void getAccountList_ShouldReturnAccounts_WhenAccountsExist() {
+    void getAccountOverview_ShouldReturnAccounts_WhenAccountsExist() {
         Long userId = 1L;
-        List<Account> expectedAccounts = Arrays.asList(sourceAccount, targetAccount);
+        List<AccountOverview> expectedAccounts = Arrays.asList(mock(AccountOverview.class), mock(AccountOverview.class));
         when(userContext.getCurrentUser()).thenReturn(user);
         when(user.getId()).thenReturn(userId);
-        when(accountRepository.findAllByUserId(userId)).thenReturn(Optional.of(expectedAccounts));
+        when(accountRepository.findOverviewByUserId(userId)).thenReturn(expectedAccounts);
 
 
-        List<Account> accounts = accountService.getAccountList();
+        List<AccountOverview> accounts = accountService.getAccountOverview();
 
         assertEquals(expectedAccounts, accounts);
-        verify(accountRepository).findAllByUserId(userId);
+        verify(accountRepository).findOverviewByUserId(userId);
     }
 
     @Test
-    void getAccountList_ShouldThrowException_WhenNoAccountsFound() {
+    void getAccountOverview_ShouldThrowException_WhenNoAccountsFound() {
         Long userId = 1L;
         when(userContext.getCurrentUser()).thenReturn(user);
         when(user.getId()).thenReturn(userId);
-        when(accountRepository.findAllByUserId(userId)).thenReturn(Optional.of(List.of()));
+        when(accountRepository.findOverviewByUserId(userId)).thenReturn(List.of());
 
         assertThrows(AccountNotFoundException.class,
-                () -> accountService.getAccountList());
+                () -> accountService.getAccountOverview());
     }
 
     @Test
@@ -97,26 +150,65 @@ class AccountServiceTest {
         withdrawTransaction.setAccount(1L);
         withdrawTransaction.setAmount(TRANSACTION_AMOUNT);
 
+        BigDecimal expectedBalance = INITIAL_BALANCE
+                .subtract(TRANSACTION_AMOUNT)
+                .subtract(TRANSACTION_FEE);
+
         when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
-        when(transactionFeeService.calculateFee(withdrawTransaction, sourceAccount)).thenReturn(TRANSACTION_FEE);
-        when(accountRepository.save(any(Account.class))).thenReturn(sourceAccount);
+        when(transactionFeeService.calculateFee(AMOUNT, CardType.DEBIT, TransactionType.WITHDRAWAL)).thenReturn(FEE);
+        when(accountRepository.debit(1L, AMOUNT.plus(FEE))).thenReturn(Optional.of(Money.of(expectedBalance)));
 
         Account updatedAccount = accountService.withdraw(withdrawTransaction);
 
-        BigDecimal expectedBalance = INITIAL_BALANCE
-                .subtract(TRANSACTION_AMOUNT)
-                .subtract(TRANSACTION_FEE);
         assertEquals(expectedBalance, updatedAccount.getBalance());
 
-        verify(accountRepository).save(sourceAccount);
+        verify(accountRepository, never()).findBalanceById(any());
+        verify(accountRepository, never()).save(any());
         verify(transactionService).saveTransaction(
                 eq(sourceAccount),
-                eq(TRANSACTION_AMOUNT),
-                eq(TRANSACTION_FEE),
+                eq(AMOUNT),
+                eq(FEE),
                 eq(TransactionType.WITHDRAWAL)
         );
     }
 
+    @Test
+    void withdraw_WhenInsufficientBalance_ExceptionThrown() {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(1L);
+        withdrawTransaction.setAmount(TRANSACTION_AMOUNT);
+
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
+        when(transactionFeeService.calculateFee(AMOUNT, CardType.DEBIT, TransactionType.WITHDRAWAL)).thenReturn(FEE);
+        when(accountRepository.debit(1L, AMOUNT.plus(FEE))).thenReturn(Optional.empty());
+        when(accountRepository.findBalanceById(1L)).thenReturn(Optional.of(Money.of("50.00")));
+
+        InsufficientBalanceException exception = assertThrows(InsufficientBalanceException.class,
+                () -> accountService.withdraw(withdrawTransaction));
+
+        assertEquals("Cannot subtract 101.00. Current balance: 50.00. Resulting balance would be negative.",
+                exception.getMessage());
+        verify(transactionService, never()).saveTransaction(any(), any(), any(), any());
+        verify(outboxService, never()).append(any());
+    }
+
+    @Test
+    void withdraw_WhenLimitExceeded_NotDebited() {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(1L);
+        withdrawTransaction.setAmount(TRANSACTION_AMOUNT);
+
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
+        when(transactionFeeService.calculateFee(AMOUNT, CardType.DEBIT, TransactionType.WITHDRAWAL)).thenReturn(FEE);
+        when(withdrawalLimitService.reserve(sourceAccount, AMOUNT))
+                .thenThrow(new WithdrawalLimitExceededException("Daily withdrawal limit exceeded"));
+
+        assertThrows(WithdrawalLimitExceededException.class, () -> accountService.withdraw(withdrawTransaction));
+
+        verify(accountRepository, never()).debit(any(), any());
+        verify(transactionService, never()).saveTransaction(any(), any(), any(), any());
+    }
+
     @Test
     void transfer_WhenSufficientBalance_Success() {
         TransferTransaction transferTransaction = new TransferTransaction();
@@ -124,30 +216,157 @@ class AccountServiceTest {
         transferTransaction.setTargetAccountId(2L);
         transferTransaction.setAmount(TRANSACTION_AMOUNT);
 
+        BigDecimal expectedSourceBalance = INITIAL_BALANCE
+                .subtract(TRANSACTION_AMOUNT)
+                .subtract(TRANSACTION_FEE);
+
         when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(targetAccount));
-        when(transactionFeeService.calculateFee(transferTransaction, sourceAccount)).thenReturn(TRANSACTION_FEE);
-        when(accountRepository.save(any(Account.class))).thenReturn(sourceAccount);
+        when(transactionFeeService.calculateFee(AMOUNT, CardType.DEBIT, TransactionType.TRANSFER)).thenReturn(FEE);
+        when(accountRepository.debit(1L, AMOUNT.plus(FEE))).thenReturn(Optional.of(Money.of(expectedSourceBalance)));
+        when(accountRepository.credit(2L, AMOUNT)).thenReturn(1);
+        when(accountRepository.getReferenceById(2L)).thenReturn(targetAccount);
 
         Account updatedAccount = accountService.transfer(transferTransaction);
 
-        BigDecimal expectedSourceBalance = INITIAL_BALANCE
-                .subtract(TRANSACTION_AMOUNT)
-                .subtract(TRANSACTION_FEE);
-        BigDecimal expectedTargetBalance = INITIAL_BALANCE
-                .add(TRANSACTION_AMOUNT);
+        assertEquals(expectedSourceBalance, updatedAccount.getBalance());
+
+        verify(accountRepository).debit(1L, AMOUNT.plus(FEE));
+        verify(accountRepository).credit(2L, AMOUNT);
+        verify(accountRepository, never()).save(any());
+        verify(transactionService).saveTransfer(sourceAccount, targetAccount, AMOUNT, FEE);
+        verify(eventPublisher).publishEvent(new BalanceChangedEvent(Set.of(10L, 20L)));
+        verify(outboxService).append(argThat(event -> event.getType() == TransactionType.TRANSFER
+                && event.getAccountId() == 1L && event.getTargetAccountId() == 2L
+                && TRANSACTION_AMOUNT.equals(event.getAmount()) && TRANSACTION_FEE.equals(event.getFee())));
+    }
+
+    @Test
+    void transfer_WhenTargetAccountNotFound_ExceptionThrown() {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(1L);
+        transferTransaction.setTargetAccountId(2L);
+        transferTransaction.setAmount(TRANSACTION_AMOUNT);
+
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
+        when(transactionFeeService.calculateFee(AMOUNT, CardType.DEBIT, TransactionType.TRANSFER)).thenReturn(FEE);
+        when(accountRepository.debit(1L, AMOUNT.plus(FEE))).thenReturn(Optional.of(Money.of(INITIAL_BALANCE)));
+        when(accountRepository.credit(2L, AMOUNT)).thenReturn(0);
 
-        assertEquals(expectedSourceBalance, sourceAccount.getBalance());
-        assertEquals(expectedTargetBalance, targetAccount.getBalance());
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class,
+                () -> accountService.transfer(transferTransaction));
 
+        assertEquals("Target account not found", exception.getMessage());
+        verify(transactionService, never()).saveTransfer(any(), any(), any(), any());
+    }
+
+    @Test
+    void withdraw_WhenIdempotencyKeyRecorded_ReturnsRecordedBalanceWithoutDebit() {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(1L);
+        withdrawTransaction.setAmount(TRANSACTION_AMOUNT);
+
+        IdempotencyRecord recorded = IdempotencyRecord.of(10L, "key-1", "withdraw:1:100", sourceAccount);
+        recorded.setBalance(new BigDecimal("899.00"));
+        when(userContext.getCurrentUser()).thenReturn(sourceAccount.getUser());
+        when(idempotencyService.find(10L, "key-1")).thenReturn(Optional.of(recorded));
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
+
+        Account replayed = accountService.withdraw(withdrawTransaction, "key-1");
+
+        assertEquals(new BigDecimal("899.00"), replayed.getBalance());
+        verify(accountRepository, never()).debit(any(), any());
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    @Test
+    void withdraw_WhenIdempotencyKeyUsedForOtherRequest_ExceptionThrown() {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(1L);
+        withdrawTransaction.setAmount(TRANSACTION_AMOUNT);
+
+        when(userContext.getCurrentUser()).thenReturn(sourceAccount.getUser());
+        when(idempotencyService.find(10L, "key-1"))
+                .thenReturn(Optional.of(IdempotencyRecord.of(10L, "key-1", "withdraw:1:250", sourceAccount)));
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> accountService.withdraw(withdrawTransaction, "key-1"));
+
+        verify(accountRepository, never()).debit(any(), any());
+    }
+
+    @Test
+    void withdraw_WhenOptimisticMode_UpdatesVersionedEntity() {
+        accountService = accountService(ConcurrencyMode.OPTIMISTIC);
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(1L);
+        withdrawTransaction.setAmount(TRANSACTION_AMOUNT);
+
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
+        when(transactionFeeService.calculateFee(AMOUNT, CardType.DEBIT, TransactionType.WITHDRAWAL)).thenReturn(FEE);
+
+        Account updatedAccount = accountService.withdraw(withdrawTransaction);
+
+        assertEquals(INITIAL_BALANCE.subtract(TRANSACTION_AMOUNT).subtract(TRANSACTION_FEE), updatedAccount.getBalance());
         verify(accountRepository).save(sourceAccount);
-        verify(accountRepository).save(targetAccount);
-        verify(transactionService, times(2)).saveTransaction(
-                any(Account.class),
-                eq(TRANSACTION_AMOUNT),
-                eq(TRANSACTION_FEE),
-                eq(TransactionType.TRANSFER)
-        );
+        verify(accountRepository, never()).debit(any(), any());
+    }
+
+    @Test
+    void withdraw_WhenOptimisticConflict_ReplaysTransaction() {
+        accountService = accountService(ConcurrencyMode.OPTIMISTIC);
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(1L);
+        withdrawTransaction.setAmount(TRANSACTION_AMOUNT);
+
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
+        when(transactionFeeService.calculateFee(AMOUNT, CardType.DEBIT, TransactionType.WITHDRAWAL)).thenReturn(FEE);
+        doThrow(new ObjectOptimisticLockingFailureException(Account.class, 1L))
+                .doNothing()
+                .when(transactionManager).commit(any());
+
+        accountService.withdraw(withdrawTransaction);
+
+        verify(transactionManager, times(2)).commit(any());
+        verify(accountRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void transfer_WhenPessimisticMode_LocksAccountsInAscendingIdOrder() {
+        accountService = accountService(ConcurrencyMode.PESSIMISTIC);
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(2L);
+        transferTransaction.setTargetAccountId(1L);
+        transferTransaction.setAmount(TRANSACTION_AMOUNT);
+
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(sourceAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(targetAccount));
+        when(transactionFeeService.calculateFee(AMOUNT, CardType.DEBIT, TransactionType.TRANSFER)).thenReturn(FEE);
+
+        accountService.transfer(transferTransaction);
+
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).findByIdForUpdate(1L);
+        inOrder.verify(accountRepository).findByIdForUpdate(2L);
+        assertEquals(INITIAL_BALANCE.subtract(TRANSACTION_AMOUNT).subtract(TRANSACTION_FEE), targetAccount.getBalance());
+        assertEquals(INITIAL_BALANCE.add(TRANSACTION_AMOUNT), sourceAccount.getBalance());
+        verify(accountRepository, never()).findById(any());
+    }
+
+    @Test
+    void transfer_WhenLockTimesOut_ConcurrentUpdateExceptionThrown() {
+        accountService = accountService(ConcurrencyMode.PESSIMISTIC);
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(1L);
+        transferTransaction.setTargetAccountId(2L);
+        transferTransaction.setAmount(TRANSACTION_AMOUNT);
+
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(sourceAccount));
+        when(transactionFeeService.calculateFee(AMOUNT, CardType.DEBIT, TransactionType.TRANSFER)).thenReturn(FEE);
+        when(accountRepository.findByIdForUpdate(2L)).thenThrow(new PessimisticLockingFailureException("lock timeout"));
+
+        assertThrows(ConcurrentUpdateException.class, () -> accountService.transfer(transferTransaction));
+
+        verify(accountRepository, never()).save(any());
+        verify(transactionService, never()).saveTransfer(any(), any(), any(), any());
     }
 
     @Test
@@ -160,10 +379,8 @@ class AccountServiceTest {
         assertThrows(AccountNotFoundException.class,
                 () -> accountService.transfer(transferTransaction));
 
-        verify(accountRepository, never()).save(any());
-        verify(transactionService, never()).saveTransaction(
-                any(), any(), any(), any()
-        );
+        verify(accountRepository, never()).debit(any(), any());
+        verify(transactionService, never()).saveTransfer(any(), any(), any(), any());
     }
 
     @Test
@@ -175,7 +392,7 @@ class AccountServiceTest {
         assertThrows(AccountNotFoundException.class,
                 () -> accountService.withdraw(withdrawTransaction));
 
-        verify(accountRepository, never()).save(any());
+        verify(accountRepository, never()).debit(any(), any());
         verify(transactionService, never()).saveTransaction(
                 any(), any(), any(), any()
         );
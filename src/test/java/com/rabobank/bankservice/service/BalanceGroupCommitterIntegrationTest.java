@@ -0,0 +1,180 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.balance.BalanceEngine;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batch members that fail after their debit: nothing of theirs may outlive the batch, while the rest of it
+ * commits.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        //own database, so the group-commit worker can't interfere with other contexts
+        "spring.datasource.url=jdbc:h2:mem:groupcommitrollbackdb",
+        "account.group-commit.enabled=true",
+        "account.group-commit.window=200ms",
+        "account.group-commit.max-batch-size=32"
+})
+@Import(TestAccounts.class)
+class BalanceGroupCommitterIntegrationTest {
+
+    private static final int RETRIES = 16;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100.00");
+    private static final BigDecimal WITHDRAW_AMOUNT = new BigDecimal("10.00");
+    //one percent on credit cards
+    private static final BigDecimal FEE = new BigDecimal("0.10");
+
+    @MockitoBean
+    private UserContext userContext;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BalanceGroupCommitter balanceGroupCommitter;
+
+    @Autowired
+    private BalanceEngine balanceEngine;
+
+    @Autowired
+    private AccountMetrics accountMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        User user = testAccounts.user("Retrying");
+        when(userContext.getCurrentUser()).thenReturn(user);
+        account = testAccounts.account(user, CardType.CREDIT, INITIAL_BALANCE.toPlainString());
+    }
+
+    @Test
+    void execute_WhenMemberFailsAfterDebit_ItsDebitAndFeeRolledBack() throws Exception {
+        double feesBefore = creditFees();
+        Money amount = Money.of(WITHDRAW_AMOUNT);
+        Money fee = Money.of(FEE);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<Account> declined = executor.submit(() -> {
+            start.await();
+            return balanceGroupCommitter.execute(() -> {
+                balanceEngine.debit(account.getId(), amount, fee);
+                accountMetrics.recordFee(CardType.CREDIT, FEE);
+                throw new IllegalStateException("Declined after the debit");
+            });
+        });
+        Future<Account> withdrawn = executor.submit(() -> {
+            start.await();
+            return balanceGroupCommitter.execute(() -> {
+                balanceEngine.debit(account.getId(), amount, fee);
+                accountMetrics.recordFee(CardType.CREDIT, FEE);
+                return accountRepository.findById(account.getId()).orElseThrow();
+            });
+        });
+        start.countDown();
+
+        ExecutionException e = assertThrows(ExecutionException.class, declined::get);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        withdrawn.get();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(0, INITIAL_BALANCE.subtract(WITHDRAW_AMOUNT).subtract(FEE).compareTo(
+                accountRepository.findBalanceById(account.getId()).orElseThrow().toBigDecimal()));
+        assertEquals(FEE.doubleValue(), creditFees() - feesBefore, 1e-9);
+    }
+
+    /**
+     * Retries of one withdrawal all miss the idempotency record and race into the same batch, where all but
+     * the first fail on the key after their debit.
+     */
+    @Test
+    void withdraw_WhenRetriesShareBatch_FeeCountedOnce() throws Exception {
+        double feesBefore = creditFees();
+
+        List<Account> results = withdrawInParallel(UUID.randomUUID().toString());
+
+        BigDecimal expectedBalance = INITIAL_BALANCE.subtract(WITHDRAW_AMOUNT).subtract(FEE);
+        for (Account result : results) {
+            assertEquals(0, expectedBalance.compareTo(result.getBalance()));
+        }
+        assertEquals(0, expectedBalance.compareTo(
+                accountRepository.findBalanceById(account.getId()).orElseThrow().toBigDecimal()));
+        assertEquals(1, transactionRepository.findAllByAccountId(account.getId()).orElseThrow().size());
+        assertEquals(FEE.doubleValue(), creditFees() - feesBefore, 1e-9);
+    }
+
+    private List<Account> withdrawInParallel(String idempotencyKey) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(RETRIES);
+        List<Future<Account>> futures = new ArrayList<>();
+        for (int i = 0; i < RETRIES; i++) {
+            futures.add(executor.submit(() -> {
+                WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+                withdrawTransaction.setAccount(account.getId());
+                withdrawTransaction.setAmount(WITHDRAW_AMOUNT);
+                start.await();
+                return accountService.withdraw(withdrawTransaction, idempotencyKey);
+            }));
+        }
+        start.countDown();
+        List<Account> results = new ArrayList<>();
+        for (Future<Account> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        return results;
+    }
+
+    private double creditFees() {
+        Counter counter = meterRegistry.find(AccountMetrics.FEES_METRIC).tag("card.type", "CREDIT").counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
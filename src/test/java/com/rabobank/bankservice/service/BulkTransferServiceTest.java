@@ -0,0 +1,155 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.balance.DatabaseBalanceEngine;
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.Card;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.event.BalanceChangedEvent;
+import com.rabobank.bankservice.model.BulkTransferItemStatus;
+import com.rabobank.bankservice.model.BulkTransferResult;
+import com.rabobank.bankservice.model.request.BulkTransferMode;
+import com.rabobank.bankservice.model.request.BulkTransferRequest;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkTransferServiceTest {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100.00");
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private UserContext userContext;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private OutboxService outboxService;
+
+    private BulkTransferService bulkTransferService;
+
+    private Account first;
+    private Account second;
+
+    @BeforeEach
+    void setUp() {
+        first = debitAccount(1L);
+        second = debitAccount(2L);
+
+        TransactionFeeService transactionFeeService = new TransactionFeeService(new BigDecimal("0.01"));
+        bulkTransferService = new BulkTransferService(accountRepository, transactionService, transactionFeeService,
+                userContext, transactionManager, 2, eventPublisher, new AccountMetrics(new SimpleMeterRegistry()),
+                outboxService, new DatabaseBalanceEngine(accountRepository));
+
+        lenient().when(accountRepository.findAllByIdIn(anyCollection())).thenReturn(List.of(first, second));
+        lenient().when(accountRepository.findBalancesByIdIn(anyCollection()))
+                .thenAnswer(invocation -> new HashMap<>(Map.of(1L, INITIAL_BALANCE, 2L, INITIAL_BALANCE)));
+        lenient().when(accountRepository.applyBalanceDeltas(any())).thenReturn(List.of());
+    }
+
+    private static Account debitAccount(Long id) {
+        Card card = new Card();
+        card.setCardType(CardType.DEBIT);
+        User owner = new User();
+        owner.setId(id * 10);
+        Account account = new Account();
+        account.setId(id);
+        account.setCard(card);
+        account.setUser(owner);
+        return account;
+    }
+
+    @Test
+    void transfer_NetsDeltasPerChunk() {
+        BulkTransferResult result = bulkTransferService.transfer(request(BulkTransferMode.ALL_OR_NOTHING,
+                transfer(1L, 2L, "30.00"), transfer(2L, 1L, "10.00"), transfer(1L, 2L, "5.00")));
+
+        assertEquals(3, result.getApplied());
+        verify(accountRepository).applyBalanceDeltas(new TreeMap<>(Map.of(1L, new BigDecimal("-20.00"), 2L, new BigDecimal("20.00"))));
+        verify(accountRepository).applyBalanceDeltas(new TreeMap<>(Map.of(1L, new BigDecimal("-5.00"), 2L, new BigDecimal("5.00"))));
+        verify(transactionService, times(2)).saveTransactions(any());
+        verify(eventPublisher, times(2)).publishEvent(new BalanceChangedEvent(Set.of(10L, 20L)));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void transfer_WhenBalanceRunsOutWithinChunk_LaterTransferRejected() {
+        BulkTransferResult result = bulkTransferService.transfer(request(BulkTransferMode.BEST_EFFORT,
+                transfer(1L, 2L, "60.00"), transfer(1L, 2L, "60.00")));
+
+        assertEquals(BulkTransferItemStatus.APPLIED, result.getResults().get(0).getStatus());
+        assertEquals(BulkTransferItemStatus.REJECTED, result.getResults().get(1).getStatus());
+        verify(accountRepository).applyBalanceDeltas(new TreeMap<>(Map.of(1L, new BigDecimal("-60.00"), 2L, new BigDecimal("60.00"))));
+    }
+
+    @Test
+    void transfer_WhenAllOrNothingRejected_RollsBack() {
+        BulkTransferResult result = bulkTransferService.transfer(request(BulkTransferMode.ALL_OR_NOTHING,
+                transfer(1L, 2L, "10.00"), transfer(1L, 3L, "10.00")));
+
+        assertEquals(0, result.getApplied());
+        assertEquals(1, result.getNotApplied());
+        assertEquals("Target account not found", result.getResults().get(1).getMessage());
+        verify(accountRepository, never()).applyBalanceDeltas(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void transfer_WhenChunkLosesRace_ReplansChunk() {
+        when(accountRepository.applyBalanceDeltas(any())).thenReturn(List.of(1L)).thenReturn(List.of());
+
+        BulkTransferResult result = bulkTransferService.transfer(request(BulkTransferMode.BEST_EFFORT,
+                transfer(1L, 2L, "10.00")));
+
+        assertEquals(1, result.getApplied());
+        verify(accountRepository, times(2)).applyBalanceDeltas(any());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+    }
+
+    private static BulkTransferRequest request(BulkTransferMode mode, TransferTransaction... transfers) {
+        BulkTransferRequest request = new BulkTransferRequest();
+        request.setMode(mode);
+        request.setTransfers(List.of(transfers));
+        return request;
+    }
+
+    private static TransferTransaction transfer(Long sourceAccountId, Long targetAccountId, String amount) {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(sourceAccountId);
+        transferTransaction.setTargetAccountId(targetAccountId);
+        transferTransaction.setAmount(new BigDecimal(amount));
+        return transferTransaction;
+    }
+}
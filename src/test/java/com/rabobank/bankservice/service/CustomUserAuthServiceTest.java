@@ -2,6 +2,7 @@ package com.rabobank.bankservice.service;
 
 import com.rabobank.bankservice.entity.User;
 import com.rabobank.bankservice.repository.UserRepository;
+import com.rabobank.bankservice.security.AuthenticatedUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -31,6 +32,8 @@ class CustomUserAuthServiceTest {
     @BeforeEach
     void setUp() {
         testUser = new User();
+        testUser.setId(1L);
+        testUser.setName("Test");
         testUser.setEmail(TEST_EMAIL);
         testUser.setPassword(TEST_PASSWORD);
     }
@@ -52,6 +55,17 @@ class CustomUserAuthServiceTest {
         assertTrue(userDetails.isAccountNonLocked());
     }
 
+    @Test
+    void loadUserByUsername_WhenUserExists_ReturnsPrincipalWithUserIdentity() {
+        when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.of(testUser));
+
+        AuthenticatedUser principal = (AuthenticatedUser) userAuthService.loadUserByUsername(TEST_EMAIL);
+
+        assertEquals(1L, principal.getId());
+        assertEquals("Test", principal.getName());
+        assertEquals(TEST_EMAIL, principal.toUser().getEmail());
+    }
+
     @Test
     void loadUserByUsername_WhenUserDoesNotExist_ThrowsUsernameNotFoundException() {
         String nonExistentEmail = "nonexistent@example.com";
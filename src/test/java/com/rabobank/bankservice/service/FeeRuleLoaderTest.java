@@ -0,0 +1,72 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.fee.FeeRule;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.repository.FeeRuleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FeeRuleLoaderTest {
+
+    private static final Money AMOUNT = Money.of("100.00");
+
+    @Mock
+    private FeeRuleRepository feeRuleRepository;
+
+    private TransactionFeeService transactionFeeService;
+    private FeeRuleLoader feeRuleLoader;
+
+    @BeforeEach
+    void setUp() {
+        transactionFeeService = new TransactionFeeService(new BigDecimal("0.01"));
+        feeRuleLoader = new FeeRuleLoader(feeRuleRepository, transactionFeeService);
+    }
+
+    @Test
+    void reload_WhenRulesChanged_SwapsSchedule() {
+        when(feeRuleRepository.findAll())
+                .thenReturn(List.of(percentage("0.02")))
+                .thenReturn(List.of(percentage("0.02")))
+                .thenReturn(List.of(percentage("0.03")));
+
+        assertTrue(feeRuleLoader.reload());
+        assertEquals(Money.of("2.00"), fee());
+        assertFalse(feeRuleLoader.reload());
+        assertTrue(feeRuleLoader.reload());
+        assertEquals(Money.of("3.00"), fee());
+    }
+
+    @Test
+    void refresh_WhenRulesInvalid_KeepsCurrentSchedule() {
+        when(feeRuleRepository.findAll())
+                .thenReturn(List.of(percentage("0.02")))
+                .thenReturn(List.of(percentage("0.02"), percentage("0.03")));
+        feeRuleLoader.afterPropertiesSet();
+
+        feeRuleLoader.refresh();
+
+        assertEquals(Money.of("2.00"), fee());
+    }
+
+    private Money fee() {
+        return transactionFeeService.calculateFee(AMOUNT, CardType.CREDIT, TransactionType.WITHDRAWAL);
+    }
+
+    private static FeeRule percentage(String rate) {
+        return FeeRule.percentage(CardType.CREDIT, TransactionType.WITHDRAWAL, new BigDecimal(rate));
+    }
+}
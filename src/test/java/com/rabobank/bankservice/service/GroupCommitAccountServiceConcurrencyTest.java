@@ -0,0 +1,36 @@
+package com.rabobank.bankservice.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Same parallel withdrawals as {@link AccountServiceConcurrencyTest}, coalesced into shared transactions.
+ * Withdrawals that overdraw fail on their own inside a batch, the rest of the batch still commits.
+ */
+@TestPropertySource(properties = {
+        //own database, so the group-commit worker can't interfere with other contexts
+        "spring.datasource.url=jdbc:h2:mem:groupcommitdb",
+        "account.group-commit.enabled=true",
+        "account.group-commit.window=5ms",
+        "account.group-commit.max-batch-size=32"
+})
+class GroupCommitAccountServiceConcurrencyTest extends AccountServiceConcurrencyTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void withdraw_WhenCalledInParallel_SharesTransactions() throws Exception {
+        withdraw_WhenCalledInParallel_NeverLosesMoney();
+
+        DistributionSummary batchSizes = meterRegistry.get(BalanceGroupCommitter.BATCH_SIZE_METRIC).summary();
+        assertTrue(batchSizes.count() < batchSizes.totalAmount(), "expected shared transactions, got "
+                + batchSizes.count() + " for " + batchSizes.totalAmount() + " withdrawals");
+        assertTrue(batchSizes.max() <= 32);
+    }
+}
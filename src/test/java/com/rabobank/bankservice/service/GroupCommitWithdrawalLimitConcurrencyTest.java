@@ -0,0 +1,17 @@
+package com.rabobank.bankservice.service;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Same limits as {@link WithdrawalLimitConcurrencyTest}, with the withdrawals coalesced into shared
+ * transactions, where a failed withdrawal is only rolled back to its savepoint.
+ */
+@TestPropertySource(properties = {
+        //own database, so the group-commit worker can't interfere with other contexts
+        "spring.datasource.url=jdbc:h2:mem:groupcommitlimitdb",
+        "account.group-commit.enabled=true",
+        "account.group-commit.window=5ms",
+        "account.group-commit.max-batch-size=32"
+})
+class GroupCommitWithdrawalLimitConcurrencyTest extends WithdrawalLimitConcurrencyTest {
+}
@@ -0,0 +1,163 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.LedgerJournalEntry;
+import com.rabobank.bankservice.entity.Transaction;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.DailyTotal;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.LedgerJournalRepository;
+import com.rabobank.bankservice.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        //own database, so only this context's writer touches the journal
+        "spring.datasource.url=jdbc:h2:mem:ledgerjournaldb",
+        "transaction.ledger.mode=write-behind"
+})
+@Import(TestAccounts.class)
+class LedgerJournalWriterIntegrationTest {
+
+    @MockitoBean
+    private UserContext userContext;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private LedgerJournalWriter ledgerJournalWriter;
+
+    @Autowired
+    private LedgerJournalRepository ledgerJournalRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountDailyTotalsService dailyTotalsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Account sourceAccount;
+    private Account targetAccount;
+
+    @BeforeEach
+    void setUp() {
+        User user = testAccounts.user("Journal");
+        sourceAccount = testAccounts.debitAccount(user);
+        targetAccount = testAccounts.debitAccount(user);
+    }
+
+    @Test
+    void transfer_MaterializesOneRowPerAccountAfterCommit() throws Exception {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(sourceAccount.getId());
+        transferTransaction.setTargetAccountId(targetAccount.getId());
+        transferTransaction.setAmount(new BigDecimal("250.00"));
+
+        accountService.transfer(transferTransaction);
+
+        assertEquals(new BigDecimal("750.00"), accountRepository.findBalanceById(sourceAccount.getId()).orElseThrow().toBigDecimal());
+        List<Transaction> sourceRows = awaitLedgerRows(sourceAccount, 1);
+        List<Transaction> targetRows = awaitLedgerRows(targetAccount, 1);
+        assertEquals(TransactionType.TRANSFER, sourceRows.get(0).getType());
+        assertEquals(Money.of("250.00"), targetRows.get(0).getAmount());
+        assertEquals(sourceRows.get(0).getTimestamp(), targetRows.get(0).getTimestamp());
+    }
+
+    @Test
+    void withdraw_WhenCalledInParallel_MaterializesEveryCommittedWithdrawal() throws Exception {
+        int threads = 16;
+        int withdrawalsPerThread = 25;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < withdrawalsPerThread; j++) {
+                    WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+                    withdrawTransaction.setAccount(sourceAccount.getId());
+                    withdrawTransaction.setAmount(BigDecimal.ONE);
+                    accountService.withdraw(withdrawTransaction);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        ledgerJournalWriter.drain();
+
+        assertEquals(threads * withdrawalsPerThread,
+                transactionRepository.findAllByAccountId(sourceAccount.getId()).orElseThrow().size());
+        assertEquals(0, ledgerJournalRepository.count());
+    }
+
+    @Test
+    void start_ReplaysEntriesLeftFromPreviousRun() {
+        LedgerJournalEntry leftOver = LedgerJournalEntry.of(TransactionType.TRANSFER, sourceAccount.getId(),
+                targetAccount.getId(), new BigDecimal("5.00"), BigDecimal.ZERO);
+        leftOver.setTimestamp(LocalDateTime.now().minusMinutes(1));
+        ledgerJournalRepository.save(leftOver);
+
+        //a fresh writer, as on the next application start
+        new LedgerJournalWriter(ledgerJournalRepository, transactionRepository, accountRepository, dailyTotalsService,
+                transactionManager, LedgerMode.SYNC, 500, Duration.ofSeconds(1), Duration.ZERO).afterPropertiesSet();
+
+        assertEquals(1, transactionRepository.findAllByAccountId(sourceAccount.getId()).orElseThrow().size());
+        assertEquals(1, transactionRepository.findAllByAccountId(targetAccount.getId()).orElseThrow().size());
+        assertTrue(ledgerJournalRepository.findAll().stream().noneMatch(entry -> entry.getId().equals(leftOver.getId())));
+        DailyTotal targetTotal = dailyTotalsService.findDailyTotal(targetAccount.getId(),
+                leftOver.getTimestamp().toLocalDate(), TransactionType.TRANSFER);
+        assertEquals(1, targetTotal.getCount());
+        assertEquals(new BigDecimal("5.00"), targetTotal.getAmount());
+    }
+
+    private List<Transaction> awaitLedgerRows(Account account, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        List<Transaction> rows = transactionRepository.findAllByAccountId(account.getId()).orElseThrow();
+        while (rows.size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            rows = transactionRepository.findAllByAccountId(account.getId()).orElseThrow();
+        }
+        assertEquals(expected, rows.size());
+        return rows;
+    }
+}
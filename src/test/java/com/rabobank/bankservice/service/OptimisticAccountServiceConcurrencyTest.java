@@ -0,0 +1,19 @@
+package com.rabobank.bankservice.service;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Same parallel withdrawals as {@link AccountServiceConcurrencyTest}, using version checks and retries.
+ * Requests that exhaust their retries are rejected with a conflict and must leave no trace.
+ */
+@TestPropertySource(properties = {
+        "account.concurrency.mode=optimistic",
+        "account.concurrency.retry.max-attempts=10"
+})
+class OptimisticAccountServiceConcurrencyTest extends AccountServiceConcurrencyTest {
+
+    @Override
+    protected boolean allowsConflicts() {
+        return true;
+    }
+}
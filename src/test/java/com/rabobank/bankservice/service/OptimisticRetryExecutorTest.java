@@ -0,0 +1,66 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.error.ConcurrentUpdateException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OptimisticRetryExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticRetryExecutor retryExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        retryExecutor = new OptimisticRetryExecutor(3, Duration.ofMillis(1), Duration.ofMillis(2), meterRegistry);
+    }
+
+    @Test
+    void execute_WhenConflictIsTransient_RetriesUntilSuccess() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryExecutor.execute(7L, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Account", 7L);
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, meterRegistry.counter(OptimisticRetryExecutor.RETRIES_METRIC, "account", "7").count());
+    }
+
+    @Test
+    void execute_WhenConflictPersists_GivesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ConcurrentUpdateException.class, () -> retryExecutor.execute(7L, () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("Account", 7L);
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(1.0, meterRegistry.counter(OptimisticRetryExecutor.CONFLICTS_METRIC, "account", "7").count());
+    }
+
+    @Test
+    void execute_WhenOtherExceptionThrown_DoesNotRetry() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> retryExecutor.execute(7L, () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+}
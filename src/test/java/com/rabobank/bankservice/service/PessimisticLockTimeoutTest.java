@@ -0,0 +1,108 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.error.ConcurrentUpdateException;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A transfer waiting on a row lock held by another transaction gives up after
+ * {@code account.concurrency.lock-timeout}, which is well below H2's default of 2 seconds here.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "account.concurrency.mode=pessimistic",
+        "account.concurrency.lock-timeout=500ms"
+})
+@Import(TestAccounts.class)
+class PessimisticLockTimeoutTest {
+
+    @MockitoBean
+    private UserContext userContext;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void transfer_WhenRowLockHeld_ConflictAfterConfiguredTimeout() throws Exception {
+        User user = testAccounts.user("Waiting");
+        Account source = testAccounts.debitAccount(user);
+        Account target = testAccounts.debitAccount(user);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    accountRepository.findByIdForUpdate(source.getId()).orElseThrow();
+                    locked.countDown();
+                    try {
+                        assertTrue(done.await(30, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertThrows(ConcurrentUpdateException.class, () -> accountService.transfer(transfer(source, target)));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        done.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        assertTrue(waitedMillis >= 450 && waitedMillis < 1500, "waited " + waitedMillis + "ms");
+        accountService.transfer(transfer(source, target));
+    }
+
+    @Test
+    void findByIdForUpdate_RestoresSessionLockTimeout() {
+        Account account = testAccounts.debitAccount(testAccounts.user("Waiting"));
+
+        Long lockTimeout = new TransactionTemplate(transactionManager).execute(status -> {
+            accountRepository.findByIdForUpdate(account.getId()).orElseThrow();
+            //same connection as the select, it's bound to the transaction
+            return jdbcTemplate.queryForObject("call lock_timeout()", Long.class);
+        });
+
+        assertEquals(2000L, lockTimeout);
+    }
+
+    private static TransferTransaction transfer(Account source, Account target) {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(source.getId());
+        transferTransaction.setTargetAccountId(target.getId());
+        transferTransaction.setAmount(new BigDecimal("1.00"));
+        return transferTransaction;
+    }
+}
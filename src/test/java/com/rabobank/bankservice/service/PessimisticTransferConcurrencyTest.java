@@ -0,0 +1,111 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.User;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fires transfers in both directions across every pair of a few accounts, so threads lock overlapping
+ * but distinct id pairs; with unordered locking these would deadlock, so every transfer finishing
+ * before the timeout is the assertion.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "account.concurrency.mode=pessimistic"
+})
+@Import(TestAccounts.class)
+class PessimisticTransferConcurrencyTest {
+
+    private static final int ACCOUNTS = 4;
+    private static final int THREADS = 32;
+    private static final int TRANSFERS_PER_THREAD = 100;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100000.00");
+    private static final BigDecimal TRANSFER_AMOUNT = new BigDecimal("1.00");
+
+    @MockitoBean
+    private UserContext userContext;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private final List<Account> accounts = new ArrayList<>();
+    private final List<Account[]> pairs = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User user = testAccounts.user("Crossing");
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(testAccounts.account(user, CardType.DEBIT, INITIAL_BALANCE.toPlainString()));
+        }
+        for (int i = 0; i < ACCOUNTS; i++) {
+            for (int j = i + 1; j < ACCOUNTS; j++) {
+                pairs.add(new Account[]{accounts.get(i), accounts.get(j)});
+            }
+        }
+    }
+
+    @Test
+    void transfer_WhenCrossingInParallel_CompletesWithoutDeadlock() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            //threads 2k and 2k + 1 walk the same pairs in opposite directions
+            int offset = i / 2;
+            boolean forward = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                    Account[] pair = pairs.get((offset + j) % pairs.size());
+                    TransferTransaction transferTransaction = new TransferTransaction();
+                    transferTransaction.setSourceAccountId(pair[forward ? 0 : 1].getId());
+                    transferTransaction.setTargetAccountId(pair[forward ? 1 : 0].getId());
+                    transferTransaction.setAmount(TRANSFER_AMOUNT);
+                    accountService.transfer(transferTransaction);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        //every pair is crossed as often one way as the other, so all accounts end where they started
+        for (Account account : accounts) {
+            BigDecimal balance = accountRepository.findBalanceById(account.getId()).orElseThrow().toBigDecimal();
+            assertEquals(0, INITIAL_BALANCE.compareTo(balance));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.context.ReactiveUserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.Card;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.error.InsufficientBalanceException;
+import com.rabobank.bankservice.error.UnauthorizedException;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.model.request.TransferTransaction;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.repository.ReactiveAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveAccountServiceTest {
+
+    private static final BigDecimal TRANSACTION_AMOUNT = new BigDecimal("100.00");
+    private static final BigDecimal TRANSACTION_FEE = new BigDecimal("1.00");
+
+    @Mock
+    private ReactiveAccountRepository accountRepository;
+
+    @Mock
+    private TransactionFeeService transactionFeeService;
+
+    @Mock
+    private ReactiveUserContext userContext;
+
+    @Mock
+    private ReactiveTransactionManager transactionManager;
+
+    @Mock
+    private ReactiveTransaction reactiveTransaction;
+
+    private ReactiveAccountService accountService;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        Card card = new Card();
+        card.setCardType(CardType.CREDIT);
+        account = new Account();
+        account.setId(2L);
+        account.setBalance(new BigDecimal("1000.00"));
+        account.setCard(card);
+
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(reactiveTransaction));
+        lenient().when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        lenient().when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+        when(accountRepository.findById(2L)).thenReturn(Mono.just(account));
+
+        accountService = new ReactiveAccountService(accountRepository, transactionFeeService, userContext, transactionManager);
+    }
+
+    @Test
+    void withdraw_DebitsAmountPlusFeeAndWritesLedger() {
+        WithdrawTransaction withdrawTransaction = withdrawal();
+        when(userContext.isAuthorized(account)).thenReturn(Mono.just(account));
+        when(transactionFeeService.calculateFee(withdrawTransaction, account)).thenReturn(Money.of(TRANSACTION_FEE));
+        when(accountRepository.debit(2L, new BigDecimal("101.00"))).thenReturn(Mono.just(1L));
+        when(accountRepository.findBalanceById(2L)).thenReturn(Mono.just(new BigDecimal("899.00")));
+        when(accountRepository.saveTransaction(2L, TRANSACTION_AMOUNT, TRANSACTION_FEE, TransactionType.WITHDRAWAL))
+                .thenReturn(Mono.empty());
+
+        Account result = accountService.withdraw(withdrawTransaction).block();
+
+        assertEquals(new BigDecimal("899.00"), result.getBalance());
+        verify(transactionManager).commit(reactiveTransaction);
+    }
+
+    @Test
+    void withdraw_WhenBalanceInsufficient_RollsBackWithoutLedger() {
+        WithdrawTransaction withdrawTransaction = withdrawal();
+        when(userContext.isAuthorized(account)).thenReturn(Mono.just(account));
+        when(transactionFeeService.calculateFee(withdrawTransaction, account)).thenReturn(Money.of(TRANSACTION_FEE));
+        when(accountRepository.debit(2L, new BigDecimal("101.00"))).thenReturn(Mono.just(0L));
+        when(accountRepository.findBalanceById(2L)).thenReturn(Mono.just(new BigDecimal("50.00")));
+
+        Mono<Account> withdrawal = accountService.withdraw(withdrawTransaction);
+
+        assertThrows(InsufficientBalanceException.class, withdrawal::block);
+        verify(accountRepository, never()).saveTransaction(any(), any(), any(), any());
+        verify(transactionManager).rollback(reactiveTransaction);
+    }
+
+    @Test
+    void withdraw_WhenNotOwner_DoesNotTouchBalance() {
+        when(userContext.isAuthorized(account))
+                .thenReturn(Mono.error(new UnauthorizedException("User id and account ID mismatch")));
+
+        Mono<Account> withdrawal = accountService.withdraw(withdrawal());
+
+        assertThrows(UnauthorizedException.class, withdrawal::block);
+        verify(accountRepository, never()).debit(any(), any());
+    }
+
+    @Test
+    void transfer_WhenTargetIdIsLower_CreditsTargetFirst() {
+        TransferTransaction transferTransaction = new TransferTransaction();
+        transferTransaction.setSourceAccountId(2L);
+        transferTransaction.setTargetAccountId(1L);
+        transferTransaction.setAmount(TRANSACTION_AMOUNT);
+        when(userContext.isAuthorized(account)).thenReturn(Mono.just(account));
+        when(transactionFeeService.calculateFee(transferTransaction, account)).thenReturn(Money.of(TRANSACTION_FEE));
+        when(accountRepository.credit(1L, TRANSACTION_AMOUNT)).thenReturn(Mono.just(1L));
+        when(accountRepository.debit(2L, new BigDecimal("101.00"))).thenReturn(Mono.just(1L));
+        when(accountRepository.findBalanceById(2L)).thenReturn(Mono.just(new BigDecimal("899.00")));
+        when(accountRepository.saveTransaction(any(), any(), any(), any())).thenReturn(Mono.empty());
+
+        accountService.transfer(transferTransaction).block();
+
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).credit(1L, TRANSACTION_AMOUNT);
+        inOrder.verify(accountRepository).debit(2L, new BigDecimal("101.00"));
+        verify(accountRepository).saveTransaction(2L, TRANSACTION_AMOUNT, TRANSACTION_FEE, TransactionType.TRANSFER);
+        verify(accountRepository).saveTransaction(1L, TRANSACTION_AMOUNT, TRANSACTION_FEE, TransactionType.TRANSFER);
+    }
+
+    private static WithdrawTransaction withdrawal() {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(2L);
+        withdrawTransaction.setAmount(TRANSACTION_AMOUNT);
+        return withdrawTransaction;
+    }
+}
@@ -3,6 +3,10 @@ package com.rabobank.bankservice.service;
 import com.rabobank.bankservice.entity.Account;
 import com.rabobank.bankservice.entity.Card;
 import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.fee.FeeRule;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.model.request.TransferTransaction;
 import com.rabobank.bankservice.model.request.WithdrawTransaction;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,9 +15,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,7 +37,7 @@ class TransactionFeeServiceTest {
 
     @BeforeEach
     void setUp() {
-        when(account.getCard()).thenReturn(card);
+        lenient().when(account.getCard()).thenReturn(card);
 
         transactionFeeService = new TransactionFeeService(CREDIT_CARD_FEE);
     }
@@ -42,9 +48,9 @@ class TransactionFeeServiceTest {
         transaction.setAmount(new BigDecimal("100.00"));
         when(card.getCardType()).thenReturn(CardType.CREDIT);
 
-        BigDecimal fee = transactionFeeService.calculateFee(transaction, account).setScale(2, RoundingMode.HALF_UP);
+        Money fee = transactionFeeService.calculateFee(transaction, account);
 
-        assertEquals(new BigDecimal("1.00"), fee);
+        assertEquals(Money.of("1.00"), fee);
     }
 
     @Test
@@ -53,9 +59,9 @@ class TransactionFeeServiceTest {
         transaction.setAmount(new BigDecimal("100.00"));
         when(card.getCardType()).thenReturn(CardType.DEBIT);
 
-        BigDecimal fee = transactionFeeService.calculateFee(transaction, account);
+        Money fee = transactionFeeService.calculateFee(transaction, account);
 
-        assertEquals(BigDecimal.ZERO, fee);
+        assertEquals(Money.ZERO, fee);
     }
 
     @Test
@@ -64,8 +70,44 @@ class TransactionFeeServiceTest {
         transaction.setAmount(BigDecimal.ZERO);
         when(card.getCardType()).thenReturn(CardType.CREDIT);
 
-        BigDecimal fee = transactionFeeService.calculateFee(transaction, account);
+        Money fee = transactionFeeService.calculateFee(transaction, account);
 
-        assertEquals(new BigDecimal("0.00"), fee);
+        assertEquals(Money.ZERO, fee);
+    }
+
+    @Test
+    void shouldCalculateFeeForCreditCardTransfer() {
+        TransferTransaction transaction = new TransferTransaction();
+        transaction.setAmount(new BigDecimal("250.00"));
+        when(card.getCardType()).thenReturn(CardType.CREDIT);
+
+        Money fee = transactionFeeService.calculateFee(transaction, account);
+
+        assertEquals(Money.of("2.50"), fee);
+    }
+
+    @Test
+    void replaceRules_AppliesNewRulesPerTransactionType() {
+        transactionFeeService.replaceRules(List.of(
+                new FeeRule(CardType.DEBIT, TransactionType.WITHDRAWAL, BigDecimal.ZERO, new BigDecimal("0.50"),
+                        BigDecimal.ZERO, BigDecimal.ZERO, null)));
+
+        assertEquals(Money.of("0.50"),
+                transactionFeeService.calculateFee(Money.of("100.00"), CardType.DEBIT, TransactionType.WITHDRAWAL));
+        assertEquals(Money.ZERO,
+                transactionFeeService.calculateFee(Money.of("100.00"), CardType.DEBIT, TransactionType.TRANSFER));
+        assertEquals(Money.ZERO,
+                transactionFeeService.calculateFee(Money.of("100.00"), CardType.CREDIT, TransactionType.WITHDRAWAL));
+    }
+
+    @Test
+    void replaceRules_WhenInvalid_KeepsCurrentRules() {
+        List<FeeRule> invalid = List.of(
+                FeeRule.percentage(CardType.CREDIT, TransactionType.WITHDRAWAL, new BigDecimal("-0.01")));
+
+        assertThrows(IllegalArgumentException.class, () -> transactionFeeService.replaceRules(invalid));
+
+        assertEquals(Money.of("1.00"),
+                transactionFeeService.calculateFee(Money.of("100.00"), CardType.CREDIT, TransactionType.WITHDRAWAL));
     }
 }
@@ -0,0 +1,90 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.error.AccountNotFoundException;
+import com.rabobank.bankservice.error.InvalidCursorException;
+import com.rabobank.bankservice.model.TransactionDetail;
+import com.rabobank.bankservice.model.TransactionHistoryPage;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionHistoryServiceTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UserContext userContext;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionHistoryService transactionHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        transactionHistoryService = new TransactionHistoryService(accountRepository, transactionRepository,
+                userContext, transactionManager, 2);
+    }
+
+    @Test
+    void getPage_WhenMoreRows_ReturnsCursorOfLastRow() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(new Account()));
+        when(transactionRepository.findFirstPage(1L, Limit.of(3)))
+                .thenReturn(List.of(detail(30L), detail(20L), detail(10L)));
+        when(transactionRepository.findPageBefore(1L, TIMESTAMP, 20L, Limit.of(3)))
+                .thenReturn(List.of(detail(10L)));
+
+        TransactionHistoryPage firstPage = transactionHistoryService.getPage(1L, null, 100);
+        assertEquals(2, firstPage.getTransactions().size());
+
+        TransactionHistoryPage lastPage = transactionHistoryService.getPage(1L, firstPage.getNextCursor(), 100);
+        assertEquals(List.of(detail(10L)), lastPage.getTransactions());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    void getPage_WhenCursorInvalid_ExceptionThrown() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(new Account()));
+
+        assertThrows(InvalidCursorException.class, () -> transactionHistoryService.getPage(1L, "bm9wZQ", 10));
+    }
+
+    @Test
+    void prepareStream_WhenAccountNotFound_ExceptionThrownBeforeStreaming() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(AccountNotFoundException.class, () -> transactionHistoryService.prepareStream(1L));
+        verify(transactionRepository, never()).streamByAccountId(any(), any());
+    }
+
+    private static TransactionDetail detail(Long id) {
+        return new TransactionDetail(id, TransactionType.WITHDRAWAL, BigDecimal.ONE, BigDecimal.ZERO, TIMESTAMP);
+    }
+}
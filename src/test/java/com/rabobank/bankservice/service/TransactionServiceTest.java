@@ -0,0 +1,112 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.LedgerJournalEntry;
+import com.rabobank.bankservice.entity.Transaction;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.repository.LedgerJournalRepository;
+import com.rabobank.bankservice.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private LedgerJournalRepository ledgerJournalRepository;
+
+    @Mock
+    private LedgerJournalWriter ledgerJournalWriter;
+
+    @Mock
+    private AccountDailyTotalsService dailyTotalsService;
+
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        transactionService = new TransactionService(transactionRepository, ledgerJournalRepository, ledgerJournalWriter,
+                dailyTotalsService, LedgerMode.SYNC);
+    }
+
+    @Test
+    void saveTransaction_BuildsLedgerRow() {
+        Account account = new Account();
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        transactionService.saveTransaction(account, Money.of("10.00"), Money.of("0.10"), TransactionType.WITHDRAWAL);
+
+        verify(transactionRepository).save(captor.capture());
+        Transaction transaction = captor.getValue();
+        assertSame(account, transaction.getAccount());
+        assertEquals(Money.of("10.00"), transaction.getAmount());
+        assertEquals(Money.of("0.10"), transaction.getCalculatedFee());
+        assertEquals(TransactionType.WITHDRAWAL, transaction.getType());
+        assertNotNull(transaction.getTimestamp());
+    }
+
+    @Test
+    void saveTransactions_SavesAllRowsInOneCall() {
+        List<Transaction> transactions = List.of(
+                Transaction.of(new Account(), Money.of("1.00"), Money.ZERO, TransactionType.TRANSFER),
+                Transaction.of(new Account(), Money.of("1.00"), Money.ZERO, TransactionType.TRANSFER));
+
+        transactionService.saveTransactions(transactions);
+
+        verify(transactionRepository).saveAll(transactions);
+    }
+
+    @Test
+    void saveTransfer_WritesOneRowPerAccount() {
+        Account source = new Account();
+        Account target = new Account();
+
+        transactionService.saveTransfer(source, target, Money.of("1.00"), Money.ZERO);
+
+        verify(transactionRepository).saveAll(argThat(transactions -> transactions instanceof List<Transaction> rows
+                && rows.size() == 2 && rows.get(0).getAccount() == source && rows.get(1).getAccount() == target));
+        verify(ledgerJournalRepository, never()).save(any());
+    }
+
+    @Test
+    void saveTransfer_WhenWriteBehind_JournalsSingleEntry() {
+        transactionService = new TransactionService(transactionRepository, ledgerJournalRepository, ledgerJournalWriter,
+                dailyTotalsService, LedgerMode.WRITE_BEHIND);
+        Account source = new Account();
+        source.setId(1L);
+        Account target = new Account();
+        target.setId(2L);
+        ArgumentCaptor<LedgerJournalEntry> captor = ArgumentCaptor.forClass(LedgerJournalEntry.class);
+
+        transactionService.saveTransfer(source, target, Money.of("10.00"), Money.of("0.10"));
+
+        verify(ledgerJournalRepository).save(captor.capture());
+        LedgerJournalEntry entry = captor.getValue();
+        assertEquals(TransactionType.TRANSFER, entry.getType());
+        assertEquals(1L, entry.getAccountId());
+        assertEquals(2L, entry.getTargetAccountId());
+        assertEquals(new BigDecimal("10.00"), entry.getAmount());
+        assertEquals(new BigDecimal("0.10"), entry.getFee());
+        verify(ledgerJournalWriter).wakeUpAfterCommit();
+        verify(transactionRepository, never()).saveAll(any());
+    }
+}
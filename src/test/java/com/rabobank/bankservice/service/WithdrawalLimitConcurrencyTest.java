@@ -0,0 +1,194 @@
+package com.rabobank.bankservice.service;
+
+import com.rabobank.bankservice.TestAccounts;
+import com.rabobank.bankservice.context.UserContext;
+import com.rabobank.bankservice.entity.Account;
+import com.rabobank.bankservice.entity.CardType;
+import com.rabobank.bankservice.entity.Transaction;
+import com.rabobank.bankservice.entity.TransactionType;
+import com.rabobank.bankservice.error.InsufficientBalanceException;
+import com.rabobank.bankservice.error.WithdrawalLimitExceededException;
+import com.rabobank.bankservice.model.Money;
+import com.rabobank.bankservice.model.request.WithdrawTransaction;
+import com.rabobank.bankservice.repository.AccountRepository;
+import com.rabobank.bankservice.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fires parallel withdrawals at accounts close to their limits and checks that no limit is passed.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "account.withdrawal-limit.enabled=true",
+        "account.withdrawal-limit.debit.daily-amount=100.00",
+        "account.withdrawal-limit.debit.max-per-window=1000",
+        "account.withdrawal-limit.credit.daily-amount=10000.00",
+        "account.withdrawal-limit.credit.max-per-window=5",
+        "account.withdrawal-limit.credit.window=PT1H"
+})
+@Import(TestAccounts.class)
+class WithdrawalLimitConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int WITHDRAWALS_PER_THREAD = 10;
+
+    @MockitoBean
+    private UserContext userContext;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Autowired
+    private AccountDailyTotalsService dailyTotalsService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void withdraw_WhenCalledInParallel_NeverExceedsDailyAmount() throws Exception {
+        Account account = account(CardType.DEBIT, "1000.00");
+
+        int succeeded = withdrawInParallel(account, "3.00");
+
+        //100.00 allows 33 withdrawals of 3.00
+        assertEquals(33, succeeded);
+        assertEquals(new BigDecimal("99.00"), dailyTotalsService.findDailyTotal(account.getId(),
+                LocalDate.now(), TransactionType.WITHDRAWAL).getAmount());
+        assertEquals(new BigDecimal("901.00"), accountRepository.findBalanceById(account.getId()).orElseThrow().toBigDecimal());
+    }
+
+    @Test
+    void withdraw_WhenCalledInParallel_NeverExceedsVelocity() throws Exception {
+        Account account = account(CardType.CREDIT, "1000.00");
+
+        int succeeded = withdrawInParallel(account, "1.00");
+
+        assertEquals(5, succeeded);
+        assertEquals(5, transactionRepository.findAllByAccountId(account.getId()).orElseThrow().size());
+    }
+
+    @Test
+    void withdraw_WhenRolledBack_LimitNotUsed() {
+        Account account = account(CardType.DEBIT, "50.00");
+
+        assertThrows(InsufficientBalanceException.class, () -> accountService.withdraw(withdrawal(account, "60.00")));
+        accountService.withdraw(withdrawal(account, "40.00"));
+        accountService.withdraw(withdrawal(account, "10.00"));
+    }
+
+    @Test
+    void withdraw_WhenRetriedInParallel_OnlyFirstCounted() throws Exception {
+        Account account = account(CardType.DEBIT, "1000.00");
+        when(userContext.getCurrentUser()).thenReturn(account.getUser());
+        String idempotencyKey = UUID.randomUUID().toString();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        //the retries that lose on the key after their debit must give their reservation back; all of them
+        //reserved at once stay within the limit, so none is turned down before it sees the winner's outcome
+        List<Future<Account>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return accountService.withdraw(withdrawal(account, "3.00"), idempotencyKey);
+            }));
+        }
+        start.countDown();
+        for (Future<Account> future : futures) {
+            assertEquals(new BigDecimal("997.00"), future.get().getBalance());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        accountService.withdraw(withdrawal(account, "97.00"));
+        assertThrows(WithdrawalLimitExceededException.class, () -> accountService.withdraw(withdrawal(account, "0.01")));
+    }
+
+    @Test
+    void withdraw_WhenWithdrawnBeforeFirstCheck_CountersSeededFromLedger() {
+        Account account = account(CardType.DEBIT, "1000.00");
+        //rows of an earlier process, as the limits only see withdrawals made through them
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Transaction transaction = Transaction.of(account, Money.of("95.00"), Money.ZERO, TransactionType.WITHDRAWAL);
+            transactionRepository.save(transaction);
+            dailyTotalsService.record(List.of(transaction));
+        });
+
+        assertThrows(WithdrawalLimitExceededException.class, () -> accountService.withdraw(withdrawal(account, "5.01")));
+        accountService.withdraw(withdrawal(account, "5.00"));
+    }
+
+    private int withdrawInParallel(Account account, String amount) throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger limited = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < WITHDRAWALS_PER_THREAD; j++) {
+                    try {
+                        accountService.withdraw(withdrawal(account, amount));
+                        succeeded.incrementAndGet();
+                    } catch (WithdrawalLimitExceededException e) {
+                        limited.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(THREADS * WITHDRAWALS_PER_THREAD, succeeded.get() + limited.get());
+        return succeeded.get();
+    }
+
+    private static WithdrawTransaction withdrawal(Account account, String amount) {
+        WithdrawTransaction withdrawTransaction = new WithdrawTransaction();
+        withdrawTransaction.setAccount(account.getId());
+        withdrawTransaction.setAmount(new BigDecimal(amount));
+        return withdrawTransaction;
+    }
+
+    private Account account(CardType cardType, String balance) {
+        return testAccounts.account(testAccounts.user("Limited"), cardType, balance);
+    }
+}